@@ -0,0 +1,108 @@
+package bstmap;
+
+/** An AVL tree map: a binary search tree in which the heights of the two
+ *  subtrees of every node differ by at most one, so its height stays below
+ *  1.45 lg N. It is more rigidly balanced than LLRBMap, so lookups are a
+ *  little faster and updates do a little more work. put and remove walk
+ *  down recording the path, then retrace it without recursion.
+ *  @author Shuyuan Wang
+ */
+public class AVLMap<K extends Comparable<K>, V> extends BalancedBSTMap<K, V> {
+
+    private static int height(Node<?, ?> x) {
+        return x == null ? 0 : x.height;
+    }
+
+    private static void updateHeight(Node<?, ?> x) {
+        x.height = 1 + Math.max(height(x.left), height(x.right));
+    }
+
+    private static <K, V> Node<K, V> rotateLeft(Node<K, V> h) {
+        Node<K, V> x = h.right;
+        h.right = x.left;
+        x.left = h;
+        updateHeight(h);
+        updateHeight(x);
+        return x;
+    }
+
+    private static <K, V> Node<K, V> rotateRight(Node<K, V> h) {
+        Node<K, V> x = h.left;
+        h.left = x.right;
+        x.right = h;
+        updateHeight(h);
+        updateHeight(x);
+        return x;
+    }
+
+    /** Updates H's height and rotates if its subtrees differ by two. */
+    private static <K, V> Node<K, V> rebalance(Node<K, V> h) {
+        updateHeight(h);
+        int balance = height(h.left) - height(h.right);
+        if (balance > 1) {
+            if (height(h.left.left) < height(h.left.right)) {
+                h.left = rotateLeft(h.left);
+            }
+            return rotateRight(h);
+        }
+        if (balance < -1) {
+            if (height(h.right.right) < height(h.right.left)) {
+                h.right = rotateRight(h.right);
+            }
+            return rotateLeft(h);
+        }
+        return h;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        Node<K, V> x = root;
+        while (x != null) {
+            int cmp = key.compareTo(x.key);
+            if (cmp == 0) {
+                x.value = value;
+                depth = 0;
+                return;
+            }
+            push(x, cmp < 0);
+            x = cmp < 0 ? x.left : x.right;
+        }
+        Node<K, V> leaf = new Node<>(key, value);
+        leaf.height = 1;
+        size += 1;
+        retrace(leaf, AVLMap::rebalance);
+    }
+
+    @Override
+    public V remove(K key) {
+        Node<K, V> x = root;
+        while (x != null) {
+            int cmp = key.compareTo(x.key);
+            if (cmp == 0) {
+                break;
+            }
+            push(x, cmp < 0);
+            x = cmp < 0 ? x.left : x.right;
+        }
+        if (x == null) {
+            depth = 0;
+            return null;
+        }
+        V old = x.value;
+        Node<K, V> target = x;
+        if (x.left != null && x.right != null) {
+            /* Move the successor's entry into X and unlink the successor. */
+            push(x, false);
+            target = x.right;
+            while (target.left != null) {
+                push(target, true);
+                target = target.left;
+            }
+            x.key = target.key;
+            x.value = target.value;
+        }
+        size -= 1;
+        retrace(target.left != null ? target.left : target.right, AVLMap::rebalance);
+        return old;
+    }
+}
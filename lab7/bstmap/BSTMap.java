@@ -0,0 +1,72 @@
+package bstmap;
+
+import java.util.function.UnaryOperator;
+
+/** A binary search tree map that does nothing to stay balanced: keys that
+ *  arrive in random order give it a height near 2 ln N, keys that arrive
+ *  in order make it a linked list. It shares lookups, ordered queries and
+ *  iteration with the balanced trees, and like them walks down recording
+ *  the path and retraces it without recursion, so a degenerate tree
+ *  cannot overflow the stack.
+ *  @author Shuyuan Wang
+ */
+public class BSTMap<K extends Comparable<K>, V> extends BalancedBSTMap<K, V> {
+
+    @Override
+    public void put(K key, V value) {
+        Node<K, V> x = root;
+        while (x != null) {
+            int cmp = key.compareTo(x.key);
+            if (cmp == 0) {
+                x.value = value;
+                depth = 0;
+                return;
+            }
+            push(x, cmp < 0);
+            x = cmp < 0 ? x.left : x.right;
+        }
+        size += 1;
+        retrace(new Node<>(key, value), UnaryOperator.identity());
+    }
+
+    /** Removes KEY by Hibbard deletion: a node with two children takes the
+     *  entry of its successor, which is then unlinked instead. */
+    @Override
+    public V remove(K key) {
+        Node<K, V> x = root;
+        while (x != null) {
+            int cmp = key.compareTo(x.key);
+            if (cmp == 0) {
+                break;
+            }
+            push(x, cmp < 0);
+            x = cmp < 0 ? x.left : x.right;
+        }
+        if (x == null) {
+            depth = 0;
+            return null;
+        }
+        V old = x.value;
+        Node<K, V> target = x;
+        if (x.left != null && x.right != null) {
+            push(x, false);
+            target = x.right;
+            while (target.left != null) {
+                push(target, true);
+                target = target.left;
+            }
+            x.key = target.key;
+            x.value = target.value;
+        }
+        size -= 1;
+        retrace(target.left != null ? target.left : target.right, UnaryOperator.identity());
+        return old;
+    }
+
+    /** Prints the keys in increasing order, one per line. */
+    public void printInOrder() {
+        for (K key : this) {
+            System.out.println(key);
+        }
+    }
+}
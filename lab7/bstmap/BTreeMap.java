@@ -0,0 +1,547 @@
+package bstmap;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+
+/** A B+ tree map. Each node keeps up to FANOUT keys in a sorted array, so
+ *  a lookup touches about log_FANOUT N nodes and binary-searches each one
+ *  inside a few cache lines, instead of chasing lg N pointers through a
+ *  binary tree. Entries live only in the leaves, which are linked left to
+ *  right for range scans; inner nodes hold separator keys.
+ *
+ *  Every node but the root stays at least half full: put splits a full
+ *  node in two, and remove refills an underfull one from a sibling or
+ *  merges the two. Both walk down once, recording the path, and fix nodes
+ *  on the way back up without recursion. fromSorted builds a tree from
+ *  sorted entries in O(N).
+ *  @author Shuyuan Wang
+ */
+public class BTreeMap<K extends Comparable<K>, V> implements SortedMap61B<K, V> {
+
+    private static final int DEFAULT_FANOUT = 64;
+
+    /**
+     * A node. A leaf holds n entries in keys and values. An inner node holds
+     * n + 1 children and n separator keys: keys[i] is no greater than any key
+     * under children[i + 1], and greater than every key under children[i].
+     * The arrays have room for one more than the most a node may keep, so a
+     * node can overflow before it is split.
+     */
+    private static class Node {
+        final Object[] keys;
+        final Object[] values;
+        final Node[] children;
+        int n;
+        /** The next leaf to the right, or null. */
+        Node next;
+
+        Node(int fanout, boolean leaf) {
+            if (leaf) {
+                keys = new Object[fanout + 1];
+                values = new Object[fanout + 1];
+                children = null;
+            } else {
+                keys = new Object[fanout];
+                values = null;
+                children = new Node[fanout + 1];
+            }
+        }
+
+        boolean isLeaf() {
+            return children == null;
+        }
+    }
+
+    private final int fanout;
+    /** The fewest entries in a leaf, or children of an inner node, but the root. */
+    private final int minFill;
+    private Node root;
+    private int size;
+
+    /** The inner nodes on the path walked by the current put or remove. */
+    private Node[] path = new Node[16];
+    /** For each node of path, the index of the child the walk went to. */
+    private int[] pathIndex = new int[16];
+    private int depth;
+
+    public BTreeMap() {
+        this(DEFAULT_FANOUT);
+    }
+
+    /**
+     * @param fanout the most entries a leaf, or children an inner node, may
+     *               have; at least 4
+     */
+    public BTreeMap(int fanout) {
+        if (fanout < 4) {
+            throw new IllegalArgumentException("fanout must be at least 4");
+        }
+        this.fanout = fanout;
+        this.minFill = (fanout + 1) / 2;
+        root = new Node(fanout, true);
+    }
+
+    /**
+     * Returns a map of FANOUT holding KEYS mapped to the matching VALUES,
+     * built bottom-up in linear time. KEYS must be strictly ascending.
+     */
+    public static <K extends Comparable<K>, V> BTreeMap<K, V> fromSorted(
+            int fanout, List<K> keys, List<V> values) {
+        if (keys.size() != values.size()) {
+            throw new IllegalArgumentException("keys and values differ in length");
+        }
+        for (int i = 1; i < keys.size(); i += 1) {
+            if (keys.get(i - 1).compareTo(keys.get(i)) >= 0) {
+                throw new IllegalArgumentException("keys are not strictly ascending");
+            }
+        }
+        BTreeMap<K, V> map = new BTreeMap<>(fanout);
+        if (keys.isEmpty()) {
+            return map;
+        }
+        /* Fill the leaves as evenly as possible, so each is at least half full. */
+        List<Node> level = new ArrayList<>();
+        List<Object> lows = new ArrayList<>();
+        int count = (keys.size() + fanout - 1) / fanout;
+        Node previous = null;
+        for (int i = 0, from = 0; i < count; i += 1) {
+            int n = keys.size() / count + (i < keys.size() % count ? 1 : 0);
+            Node leaf = new Node(fanout, true);
+            for (int j = 0; j < n; j += 1) {
+                leaf.keys[j] = keys.get(from + j);
+                leaf.values[j] = values.get(from + j);
+            }
+            leaf.n = n;
+            if (previous != null) {
+                previous.next = leaf;
+            }
+            previous = leaf;
+            level.add(leaf);
+            lows.add(leaf.keys[0]);
+            from += n;
+        }
+        /* Then each level of inner nodes over the one below. */
+        while (level.size() > 1) {
+            List<Node> parents = new ArrayList<>();
+            List<Object> parentLows = new ArrayList<>();
+            count = (level.size() + fanout - 1) / fanout;
+            for (int i = 0, from = 0; i < count; i += 1) {
+                int n = level.size() / count + (i < level.size() % count ? 1 : 0);
+                Node inner = new Node(fanout, false);
+                for (int j = 0; j < n; j += 1) {
+                    inner.children[j] = level.get(from + j);
+                    if (j > 0) {
+                        inner.keys[j - 1] = lows.get(from + j);
+                    }
+                }
+                inner.n = n - 1;
+                parents.add(inner);
+                parentLows.add(lows.get(from));
+                from += n;
+            }
+            level = parents;
+            lows = parentLows;
+        }
+        map.root = level.get(0);
+        map.size = keys.size();
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object a, Object b) {
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    /** Returns the number of the N first KEYS that are at most KEY. */
+    private static int countAtMost(Object[] keys, int n, Object key) {
+        int lo = 0;
+        int hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(keys[mid], key) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** Returns the number of the N first KEYS that are less than KEY. */
+    private static int countLess(Object[] keys, int n, Object key) {
+        int lo = 0;
+        int hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(keys[mid], key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** Returns the leaf KEY belongs in, recording the path if RECORD. */
+    private Node findLeaf(K key, boolean record) {
+        Node x = root;
+        while (!x.isLeaf()) {
+            int i = countAtMost(x.keys, x.n, key);
+            if (record) {
+                push(x, i);
+            }
+            x = x.children[i];
+        }
+        return x;
+    }
+
+    private void push(Node node, int index) {
+        if (depth == path.length) {
+            Node[] longer = new Node[depth * 2];
+            System.arraycopy(path, 0, longer, 0, depth);
+            path = longer;
+            int[] longerIndex = new int[depth * 2];
+            System.arraycopy(pathIndex, 0, longerIndex, 0, depth);
+            pathIndex = longerIndex;
+        }
+        path[depth] = node;
+        pathIndex[depth] = index;
+        depth += 1;
+    }
+
+    /** Returns the index of KEY in LEAF, or -1. */
+    private static int indexIn(Node leaf, Object key) {
+        int i = countLess(leaf.keys, leaf.n, key);
+        return i < leaf.n && compare(leaf.keys[i], key) == 0 ? i : -1;
+    }
+
+    @Override
+    public void clear() {
+        root = new Node(fanout, true);
+        size = 0;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return indexIn(findLeaf(key, false), key) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        Node leaf = findLeaf(key, false);
+        int i = indexIn(leaf, key);
+        return i < 0 ? null : (V) leaf.values[i];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        depth = 0;
+        Node leaf = findLeaf(key, true);
+        int i = countLess(leaf.keys, leaf.n, key);
+        if (i < leaf.n && compare(leaf.keys[i], key) == 0) {
+            leaf.values[i] = value;
+            return;
+        }
+        System.arraycopy(leaf.keys, i, leaf.keys, i + 1, leaf.n - i);
+        System.arraycopy(leaf.values, i, leaf.values, i + 1, leaf.n - i);
+        leaf.keys[i] = key;
+        leaf.values[i] = value;
+        leaf.n += 1;
+        size += 1;
+        if (leaf.n <= fanout) {
+            return;
+        }
+
+        /* Split the leaf, then each inner node on the path that overflows. */
+        Node right = splitLeaf(leaf);
+        Object separator = right.keys[0];
+        for (int d = depth - 1; d >= 0; d -= 1) {
+            Node parent = path[d];
+            int at = pathIndex[d];
+            System.arraycopy(parent.keys, at, parent.keys, at + 1, parent.n - at);
+            System.arraycopy(parent.children, at + 1, parent.children, at + 2, parent.n - at);
+            parent.keys[at] = separator;
+            parent.children[at + 1] = right;
+            parent.n += 1;
+            if (parent.n + 1 <= fanout) {
+                return;
+            }
+            int keep = (parent.n + 2) / 2;
+            separator = parent.keys[keep - 1];
+            right = new Node(fanout, false);
+            right.n = parent.n - keep;
+            System.arraycopy(parent.keys, keep, right.keys, 0, right.n);
+            System.arraycopy(parent.children, keep, right.children, 0, right.n + 1);
+            clear(parent, keep - 1, parent.n, keep, parent.n + 1);
+            parent.n = keep - 1;
+        }
+        Node newRoot = new Node(fanout, false);
+        newRoot.keys[0] = separator;
+        newRoot.children[0] = root;
+        newRoot.children[1] = right;
+        newRoot.n = 1;
+        root = newRoot;
+    }
+
+    /** Moves the upper half of LEAF into a new leaf after it, and returns that. */
+    private Node splitLeaf(Node leaf) {
+        int keep = (leaf.n + 1) / 2;
+        Node right = new Node(fanout, true);
+        right.n = leaf.n - keep;
+        System.arraycopy(leaf.keys, keep, right.keys, 0, right.n);
+        System.arraycopy(leaf.values, keep, right.values, 0, right.n);
+        clear(leaf, keep, leaf.n, 0, 0);
+        leaf.n = keep;
+        right.next = leaf.next;
+        leaf.next = right;
+        return right;
+    }
+
+    /** Nulls keys (and values) FROM to TO, and children CFROM to CTO, of X. */
+    private static void clear(Node x, int from, int to, int cFrom, int cTo) {
+        for (int i = from; i < to; i += 1) {
+            x.keys[i] = null;
+            if (x.values != null) {
+                x.values[i] = null;
+            }
+        }
+        for (int i = cFrom; i < cTo; i += 1) {
+            x.children[i] = null;
+        }
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> keys = new TreeSet<>();
+        for (K key : this) {
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        depth = 0;
+        Node leaf = findLeaf(key, true);
+        int i = indexIn(leaf, key);
+        if (i < 0) {
+            return null;
+        }
+        V old = (V) leaf.values[i];
+        System.arraycopy(leaf.keys, i + 1, leaf.keys, i, leaf.n - i - 1);
+        System.arraycopy(leaf.values, i + 1, leaf.values, i, leaf.n - i - 1);
+        leaf.n -= 1;
+        clear(leaf, leaf.n, leaf.n + 1, 0, 0);
+        size -= 1;
+
+        /* Refill or merge each underfull node on the way up. */
+        Node x = leaf;
+        for (int d = depth - 1; d >= 0 && fill(x) < minFill; d -= 1) {
+            Node parent = path[d];
+            int at = pathIndex[d];
+            Node left = at > 0 ? parent.children[at - 1] : null;
+            Node right = at < parent.n ? parent.children[at + 1] : null;
+            if (left != null && fill(left) > minFill) {
+                borrowFromLeft(parent, at, left, x);
+            } else if (right != null && fill(right) > minFill) {
+                borrowFromRight(parent, at, x, right);
+            } else if (left != null) {
+                merge(parent, at - 1, left, x);
+            } else {
+                merge(parent, at, x, right);
+            }
+            x = parent;
+        }
+        if (!root.isLeaf() && root.n == 0) {
+            root = root.children[0];
+        }
+        return old;
+    }
+
+    /** Returns the entries of a leaf, or the children of an inner node. */
+    private static int fill(Node x) {
+        return x.isLeaf() ? x.n : x.n + 1;
+    }
+
+    /** Moves the last entry or child of LEFT to the front of X, child AT of PARENT. */
+    private static void borrowFromLeft(Node parent, int at, Node left, Node x) {
+        System.arraycopy(x.keys, 0, x.keys, 1, x.n);
+        if (x.isLeaf()) {
+            System.arraycopy(x.values, 0, x.values, 1, x.n);
+            x.keys[0] = left.keys[left.n - 1];
+            x.values[0] = left.values[left.n - 1];
+            parent.keys[at - 1] = x.keys[0];
+            clear(left, left.n - 1, left.n, 0, 0);
+        } else {
+            System.arraycopy(x.children, 0, x.children, 1, x.n + 1);
+            x.keys[0] = parent.keys[at - 1];
+            x.children[0] = left.children[left.n];
+            parent.keys[at - 1] = left.keys[left.n - 1];
+            clear(left, left.n - 1, left.n, left.n, left.n + 1);
+        }
+        x.n += 1;
+        left.n -= 1;
+    }
+
+    /** Moves the first entry or child of RIGHT to the end of X, child AT of PARENT. */
+    private static void borrowFromRight(Node parent, int at, Node x, Node right) {
+        if (x.isLeaf()) {
+            x.keys[x.n] = right.keys[0];
+            x.values[x.n] = right.values[0];
+            System.arraycopy(right.keys, 1, right.keys, 0, right.n - 1);
+            System.arraycopy(right.values, 1, right.values, 0, right.n - 1);
+            clear(right, right.n - 1, right.n, 0, 0);
+            parent.keys[at] = right.keys[0];
+        } else {
+            x.keys[x.n] = parent.keys[at];
+            x.children[x.n + 1] = right.children[0];
+            parent.keys[at] = right.keys[0];
+            System.arraycopy(right.keys, 1, right.keys, 0, right.n - 1);
+            System.arraycopy(right.children, 1, right.children, 0, right.n);
+            clear(right, right.n - 1, right.n, right.n, right.n + 1);
+        }
+        x.n += 1;
+        right.n -= 1;
+    }
+
+    /** Moves RIGHT, child AT + 1 of PARENT, into LEFT, and drops it from PARENT. */
+    private static void merge(Node parent, int at, Node left, Node right) {
+        if (left.isLeaf()) {
+            System.arraycopy(right.keys, 0, left.keys, left.n, right.n);
+            System.arraycopy(right.values, 0, left.values, left.n, right.n);
+            left.n += right.n;
+            left.next = right.next;
+        } else {
+            left.keys[left.n] = parent.keys[at];
+            System.arraycopy(right.keys, 0, left.keys, left.n + 1, right.n);
+            System.arraycopy(right.children, 0, left.children, left.n + 1, right.n + 1);
+            left.n += right.n + 1;
+        }
+        System.arraycopy(parent.keys, at + 1, parent.keys, at, parent.n - at - 1);
+        System.arraycopy(parent.children, at + 2, parent.children, at + 1, parent.n - at - 1);
+        clear(parent, parent.n - 1, parent.n, parent.n, parent.n + 1);
+        parent.n -= 1;
+    }
+
+    @Override
+    public V remove(K key, V value) {
+        V current = get(key);
+        if (current == null ? value != null || !containsKey(key) : !current.equals(value)) {
+            return null;
+        }
+        return remove(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public K floorKey(K key) {
+        /* The floor is in KEY's leaf, or else is the greatest key of the
+         * nearest subtree to the left of the path. */
+        Node x = root;
+        Node leftOfPath = null;
+        while (!x.isLeaf()) {
+            int i = countAtMost(x.keys, x.n, key);
+            if (i > 0) {
+                leftOfPath = x.children[i - 1];
+            }
+            x = x.children[i];
+        }
+        int i = countAtMost(x.keys, x.n, key);
+        if (i > 0) {
+            return (K) x.keys[i - 1];
+        }
+        if (leftOfPath == null) {
+            return null;
+        }
+        while (!leftOfPath.isLeaf()) {
+            leftOfPath = leftOfPath.children[leftOfPath.n];
+        }
+        return (K) leftOfPath.keys[leftOfPath.n - 1];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public K ceilingKey(K key) {
+        Node leaf = findLeaf(key, false);
+        int i = countLess(leaf.keys, leaf.n, key);
+        if (i < leaf.n) {
+            return (K) leaf.keys[i];
+        }
+        return leaf.next == null ? null : (K) leaf.next.keys[0];
+    }
+
+    @Override
+    public Iterable<K> keys(K lo, K hi) {
+        return () -> {
+            Node leaf = findLeaf(lo, false);
+            return new KeyIterator(leaf, countLess(leaf.keys, leaf.n, lo), hi);
+        };
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        Node leaf = root;
+        while (!leaf.isLeaf()) {
+            leaf = leaf.children[0];
+        }
+        return new KeyIterator(leaf, 0, null);
+    }
+
+    /** Returns the height of the tree, counting the leaves as 1. */
+    int height() {
+        int height = 1;
+        for (Node x = root; !x.isLeaf(); x = x.children[0]) {
+            height += 1;
+        }
+        return height;
+    }
+
+    /** Walks the linked leaves from entry I of LEAF up to HI, or to the end if HI is null. */
+    private class KeyIterator implements Iterator<K> {
+        private Node leaf;
+        private int i;
+        private final K hi;
+
+        KeyIterator(Node leaf, int i, K hi) {
+            this.leaf = leaf;
+            this.i = i;
+            this.hi = hi;
+            skipExhausted();
+        }
+
+        private void skipExhausted() {
+            while (leaf != null && i >= leaf.n) {
+                leaf = leaf.next;
+                i = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return leaf != null && (hi == null || compare(leaf.keys[i], hi) <= 0);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            K key = (K) leaf.keys[i];
+            i += 1;
+            skipExhausted();
+            return key;
+        }
+    }
+}
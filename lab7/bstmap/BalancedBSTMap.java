@@ -0,0 +1,243 @@
+package bstmap;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.UnaryOperator;
+
+/** The parts of a binary search tree map that do not depend on how the tree
+ *  is kept balanced: lookups, ordered queries and iteration, all without
+ *  recursion. Subclasses implement put and remove, and can record the path
+ *  they walk down with push() to retrace it without recursion.
+ *  @author Shuyuan Wang
+ */
+public abstract class BalancedBSTMap<K extends Comparable<K>, V> implements SortedMap61B<K, V> {
+
+    /** A tree node. Subclasses use whichever of red and height they need. */
+    protected static class Node<K, V> {
+        K key;
+        V value;
+        Node<K, V> left;
+        Node<K, V> right;
+        boolean red;
+        int height;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    protected Node<K, V> root;
+    protected int size;
+
+    /** The nodes on the path walked by the current put or remove. */
+    private Node<K, V>[] path = newPath(64);
+    /** For each node of path, whether the walk went to its left child. */
+    private boolean[] wentLeft = new boolean[64];
+    /** The number of nodes on path. */
+    protected int depth;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K, V> Node<K, V>[] newPath(int length) {
+        return (Node<K, V>[]) new Node[length];
+    }
+
+    /** Records that the walk went from NODE to its left child if LEFT. */
+    protected void push(Node<K, V> node, boolean left) {
+        if (depth == path.length) {
+            Node<K, V>[] longer = newPath(depth * 2);
+            System.arraycopy(path, 0, longer, 0, depth);
+            path = longer;
+            boolean[] longerLeft = new boolean[depth * 2];
+            System.arraycopy(wentLeft, 0, longerLeft, 0, depth);
+            wentLeft = longerLeft;
+        }
+        path[depth] = node;
+        wentLeft[depth] = left;
+        depth += 1;
+    }
+
+    /**
+     * Walks the recorded path back up from its end, hanging SUBTREE where
+     * the walk left each node and fixing that node with FIX. Sets root to
+     * what is left at the top, and clears the path.
+     */
+    protected void retrace(Node<K, V> subtree, UnaryOperator<Node<K, V>> fix) {
+        for (int i = depth - 1; i >= 0; i -= 1) {
+            Node<K, V> h = path[i];
+            if (wentLeft[i]) {
+                h.left = subtree;
+            } else {
+                h.right = subtree;
+            }
+            path[i] = null;
+            subtree = fix.apply(h);
+        }
+        depth = 0;
+        root = subtree;
+    }
+
+    /** Returns the node holding KEY, or null. */
+    protected Node<K, V> getNode(K key) {
+        Node<K, V> x = root;
+        while (x != null) {
+            int cmp = key.compareTo(x.key);
+            if (cmp == 0) {
+                return x;
+            }
+            x = cmp < 0 ? x.left : x.right;
+        }
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return getNode(key) != null;
+    }
+
+    @Override
+    public V get(K key) {
+        Node<K, V> x = getNode(key);
+        return x == null ? null : x.value;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public V remove(K key, V value) {
+        Node<K, V> x = getNode(key);
+        if (x == null || (x.value == null ? value != null : !x.value.equals(value))) {
+            return null;
+        }
+        return remove(key);
+    }
+
+    @Override
+    public K floorKey(K key) {
+        K best = null;
+        Node<K, V> x = root;
+        while (x != null) {
+            int cmp = key.compareTo(x.key);
+            if (cmp == 0) {
+                return x.key;
+            } else if (cmp < 0) {
+                x = x.left;
+            } else {
+                best = x.key;
+                x = x.right;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public K ceilingKey(K key) {
+        K best = null;
+        Node<K, V> x = root;
+        while (x != null) {
+            int cmp = key.compareTo(x.key);
+            if (cmp == 0) {
+                return x.key;
+            } else if (cmp > 0) {
+                x = x.right;
+            } else {
+                best = x.key;
+                x = x.left;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public Iterable<K> keys(K lo, K hi) {
+        return () -> new KeyIterator(lo, hi);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> keys = new TreeSet<>();
+        for (K key : this) {
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new KeyIterator(null, null);
+    }
+
+    /** Returns the height of the tree, counting nodes; 0 if empty. */
+    int height() {
+        int height = 0;
+        ArrayDeque<Node<K, V>> level = new ArrayDeque<>();
+        if (root != null) {
+            level.add(root);
+        }
+        while (!level.isEmpty()) {
+            height += 1;
+            for (int n = level.size(); n > 0; n -= 1) {
+                Node<K, V> x = level.poll();
+                if (x.left != null) {
+                    level.add(x.left);
+                }
+                if (x.right != null) {
+                    level.add(x.right);
+                }
+            }
+        }
+        return height;
+    }
+
+    /**
+     * Iterates in order over the keys from lo to hi, with a stack of the
+     * nodes whose keys are still to come. A null bound is unbounded.
+     */
+    private class KeyIterator implements Iterator<K> {
+        private final ArrayDeque<Node<K, V>> stack = new ArrayDeque<>();
+        private final K hi;
+
+        KeyIterator(K lo, K hi) {
+            this.hi = hi;
+            /* Push the path to the first key >= lo, skipping smaller subtrees. */
+            Node<K, V> x = root;
+            while (x != null) {
+                if (lo != null && lo.compareTo(x.key) > 0) {
+                    x = x.right;
+                } else {
+                    stack.push(x);
+                    x = x.left;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty() && (hi == null || stack.peek().key.compareTo(hi) <= 0);
+        }
+
+        @Override
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node<K, V> x = stack.pop();
+            for (Node<K, V> y = x.right; y != null; y = y.left) {
+                stack.push(y);
+            }
+            return x.key;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package bstmap;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.TreeMap;
 import java.io.IOException;
 import java.util.Scanner;
@@ -25,7 +28,8 @@ public class InsertInOrderSpeedTest {
         // borrow waitForPositiveInt(Scanner input) from InsertRandomSpeedTest
         InsertRandomSpeedTest i = new InsertRandomSpeedTest();
         System.out.println("This program inserts lexicographically "
-                + "increasing Strings into Maps as <String, Integer> pairs.");
+                + "increasing Strings into Maps as <String, Integer> pairs.\n"
+                + "Memory per entry includes the String key and Integer value.");
 
         String repeat = "y";
         do {
@@ -33,6 +37,10 @@ public class InsertInOrderSpeedTest {
             int N = i.waitForPositiveInt(input);
             timeInOrderMap61B(new ULLMap<>(), N);
             timeInOrderMap61B(new BSTMap<>(), N);
+            timeInOrderMap61B(new LLRBMap<>(), N);
+            timeInOrderMap61B(new AVLMap<>(), N);
+            timeInOrderMap61B(new BTreeMap<>(), N);
+            timeInOrderBulkLoad(N);
             timeInOrderTreeMap(new TreeMap<>(), N);
             timeInOrderHashMap(new HashMap<>(), N);
 
@@ -44,14 +52,13 @@ public class InsertInOrderSpeedTest {
 
     /**
      * Returns time needed to put N strings into a Map61B in increasing order.
-     * makes use of StringUtils.nextString(String s)
+     * makes use of inOrderKeys(int N)
      */
     public static double insertInOrder(Map61B<String, Integer> map61B, int N) {
+        KeyStream keys = inOrderKeys(N);
         Stopwatch sw = new Stopwatch();
-        String s = "cat";
         for (int i = 0; i < N; i++) {
-            s = StringUtils.nextString(s);
-            map61B.put(s, new Integer(i));
+            map61B.put(keys.next(), keys.value());
         }
         return sw.elapsedTime();
     }
@@ -60,23 +67,37 @@ public class InsertInOrderSpeedTest {
      * Returns time needed to put N strings into TreeMap in increasing order.
      */
     public static double insertInOrder(TreeMap<String, Integer> ts, int N) {
+        KeyStream keys = inOrderKeys(N);
         Stopwatch sw = new Stopwatch();
-        String s = "cat";
         for (int i = 0; i < N; i++) {
-            s = StringUtils.nextString(s);
-            ts.put(s, new Integer(i));
+            ts.put(keys.next(), keys.value());
         }
         return sw.elapsedTime();
     }
 
     public static double insertInOrder(HashMap<String, Integer> ts, int N) {
+        KeyStream keys = inOrderKeys(N);
         Stopwatch sw = new Stopwatch();
+        for (int i = 0; i < N; i++) {
+            ts.put(keys.next(), keys.value());
+        }
+        return sw.elapsedTime();
+    }
+
+    /**
+     * Returns the N strings after "cat" in increasing order, made with
+     * StringUtils.nextString before any timing starts.
+     */
+    public static KeyStream inOrderKeys(int N) {
+        String[] keys = new String[N];
+        Integer[] values = new Integer[N];
         String s = "cat";
         for (int i = 0; i < N; i++) {
             s = StringUtils.nextString(s);
-            ts.put(s, new Integer(i));
+            keys[i] = s;
+            values[i] = i;
         }
-        return sw.elapsedTime();
+        return new KeyStream(keys, values);
     }
 
     /**
@@ -86,8 +107,10 @@ public class InsertInOrderSpeedTest {
      */
     public static void timeInOrderMap61B(Map61B<String, Integer> map, int N) {
         try {
+            long before = InsertRandomSpeedTest.usedMemory();
             double mapTime = insertInOrder(map, N);
-            System.out.printf(map.getClass() + ": %.2f sec\n", mapTime);
+            System.out.printf(map.getClass() + ": %.2f sec, %d bytes/entry\n", mapTime,
+                    InsertRandomSpeedTest.bytesPerEntry(before, map, map.size()));
         } catch (StackOverflowError e) {
             printInfoOnStackOverflow(N);
         } catch (RuntimeException e) {
@@ -102,8 +125,10 @@ public class InsertInOrderSpeedTest {
      */
     public static void timeInOrderTreeMap(TreeMap<String, Integer> treeMap, int N) {
         try {
+            long before = InsertRandomSpeedTest.usedMemory();
             double javaTime = insertInOrder(treeMap, N);
-            System.out.printf("Java's Built-in TreeMap: %.2f sec\n", javaTime);
+            System.out.printf("Java's Built-in TreeMap: %.2f sec, %d bytes/entry\n", javaTime,
+                    InsertRandomSpeedTest.bytesPerEntry(before, treeMap, treeMap.size()));
         } catch (StackOverflowError e) {
             printInfoOnStackOverflow(N);
         } catch (RuntimeException e) {
@@ -118,8 +143,10 @@ public class InsertInOrderSpeedTest {
      */
     public static void timeInOrderHashMap(HashMap<String, Integer> hashMap, int N) {
         try {
+            long before = InsertRandomSpeedTest.usedMemory();
             double javaTime = insertInOrder(hashMap, N);
-            System.out.printf("Java's Built-in HashMap: %.2f sec\n", javaTime);
+            System.out.printf("Java's Built-in HashMap: %.2f sec, %d bytes/entry\n", javaTime,
+                    InsertRandomSpeedTest.bytesPerEntry(before, hashMap, hashMap.size()));
         } catch (StackOverflowError e) {
             printInfoOnStackOverflow(N);
         } catch (RuntimeException e) {
@@ -127,6 +154,30 @@ public class InsertInOrderSpeedTest {
         }
     }
 
+    /**
+     * Builds a BTreeMap of the same N strings with BTreeMap.fromSorted
+     * instead of N puts, and prints the time. nextString wraps from "zzz"
+     * to "aaaa", so the strings are sorted first, outside the timing.
+     */
+    public static void timeInOrderBulkLoad(int N) {
+        List<String> keys = new ArrayList<>(N);
+        List<Integer> values = new ArrayList<>(N);
+        String s = "cat";
+        for (int i = 0; i < N; i++) {
+            s = StringUtils.nextString(s);
+            keys.add(s);
+            values.add(Integer.valueOf(i));
+        }
+        Collections.sort(keys);
+        long before = InsertRandomSpeedTest.usedMemory();
+        Stopwatch sw = new Stopwatch();
+        BTreeMap<String, Integer> map = BTreeMap.fromSorted(64, keys, values);
+        double time = sw.elapsedTime();
+        /* The keys and values were already allocated, so this is the tree alone. */
+        System.out.printf("BTreeMap.fromSorted: %.2f sec, %d bytes/entry without keys and values\n",
+                time, InsertRandomSpeedTest.bytesPerEntry(before, map, map.size()));
+    }
+
     /* ---------------------- Private methods ---------------------- */
 
     /**
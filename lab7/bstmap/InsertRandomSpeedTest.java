@@ -3,6 +3,7 @@ package bstmap;
 import java.util.HashMap;
 import java.util.TreeMap;
 import java.io.IOException;
+import java.lang.ref.Reference;
 import java.util.Scanner;
 import edu.princeton.cs.algs4.Stopwatch;
 
@@ -11,6 +12,9 @@ import edu.princeton.cs.algs4.Stopwatch;
  *  @author Brendan Hu
  */
 public class InsertRandomSpeedTest {
+    /** Seeds the keys, so every map gets the same ones. */
+    private static final long SEED = 61;
+
     /**
         Requests user input and performs tests of three different set
         implementations. ARGS is unused.
@@ -21,7 +25,8 @@ public class InsertRandomSpeedTest {
         System.out.println("This program inserts random "
                            + "Strings of length L "
                            + "into different types of maps "
-                           + "as <String, Integer> pairs.");
+                           + "as <String, Integer> pairs.\n"
+                           + "Memory per entry includes the String key and Integer value.");
         System.out.print("Please enter desired length of each string: ");
         int L = waitForPositiveInt(input);
 
@@ -31,6 +36,9 @@ public class InsertRandomSpeedTest {
             int N = waitForPositiveInt(input);
             timeRandomMap61B(new ULLMap<>(), N, L);
             timeRandomMap61B(new BSTMap<>(), N, L);
+            timeRandomMap61B(new LLRBMap<>(), N, L);
+            timeRandomMap61B(new AVLMap<>(), N, L);
+            timeRandomMap61B(new BTreeMap<>(), N, L);
             timeRandomTreeMap(new TreeMap<>(), N, L);
             timeRandomHashMap(new HashMap<>(), N, L);
 
@@ -43,11 +51,10 @@ public class InsertRandomSpeedTest {
     /** Returns time needed to put N random strings of length L into the
       * Map61B 61bMap. */
     public static double insertRandom(Map61B<String, Integer> map61B, int N, int L) {
+        KeyStream keys = randomKeys(N, L);
         Stopwatch sw = new Stopwatch();
-        String s = "cat";
         for (int i = 0; i < N; i++) {
-            s = StringUtils.randomString(L);
-            map61B.put(s, new Integer(i));
+            map61B.put(keys.next(), keys.value());
         }
         return sw.elapsedTime();
     }
@@ -55,11 +62,10 @@ public class InsertRandomSpeedTest {
     /** Returns time needed to put N random strings of length L into the
       * TreeMap treeMap. */
     public static double insertRandom(TreeMap<String, Integer> treeMap, int N, int L) {
+        KeyStream keys = randomKeys(N, L);
         Stopwatch sw = new Stopwatch();
-        String s = "cat";
         for (int i = 0; i < N; i++) {
-            s = StringUtils.randomString(L);
-            treeMap.put(s, new Integer(i));
+            treeMap.put(keys.next(), keys.value());
         }
         return sw.elapsedTime();
     }
@@ -67,15 +73,22 @@ public class InsertRandomSpeedTest {
     /** Returns time needed to put N random strings of length L into the
      * HashMap treeMap. */
     public static double insertRandom(HashMap<String, Integer> treeMap, int N, int L) {
+        KeyStream keys = randomKeys(N, L);
         Stopwatch sw = new Stopwatch();
-        String s = "cat";
         for (int i = 0; i < N; i++) {
-            s = StringUtils.randomString(L);
-            treeMap.put(s, new Integer(i));
+            treeMap.put(keys.next(), keys.value());
         }
         return sw.elapsedTime();
     }
 
+    /**
+        Returns N random strings of length L, the same for every map, made
+        before any timing starts
+    */
+    public static KeyStream randomKeys(int N, int L) {
+        return KeyCorpus.random(N, L, SEED).stream();
+    }
+
     /**
         Attempts to insert N random strings of length L into map,
         Prints time of the N insert calls, otherwise
@@ -83,8 +96,10 @@ public class InsertRandomSpeedTest {
     */
     public static void timeRandomMap61B(Map61B<String, Integer> map, int N, int L) {
         try {
+            long before = usedMemory();
             double mapTime = insertRandom(map, N, L);
-            System.out.printf(map.getClass() + ": %.2f sec\n", mapTime);
+            System.out.printf(map.getClass() + ": %.2f sec, %d bytes/entry\n", mapTime,
+                    bytesPerEntry(before, map, map.size()));
         } catch (StackOverflowError e) {
             printInfoOnStackOverflow(N, L);
         } catch (RuntimeException e) {
@@ -99,8 +114,10 @@ public class InsertRandomSpeedTest {
     */
     public static void timeRandomTreeMap(TreeMap<String, Integer> treeMap, int N, int L) {
         try {
+            long before = usedMemory();
             double javaTime = insertRandom(treeMap, N, L);
-            System.out.printf("Java's Built-in TreeMap: %.2f sec\n", javaTime);
+            System.out.printf("Java's Built-in TreeMap: %.2f sec, %d bytes/entry\n", javaTime,
+                    bytesPerEntry(before, treeMap, treeMap.size()));
         } catch (StackOverflowError e) {
             printInfoOnStackOverflow(N, L);
         } catch (RuntimeException e) {
@@ -115,8 +132,10 @@ public class InsertRandomSpeedTest {
     */
     public static void timeRandomHashMap(HashMap<String, Integer> hashMap, int N, int L) {
         try {
+            long before = usedMemory();
             double javaTime = insertRandom(hashMap, N, L);
-            System.out.printf("Java's Built-in HashMap: %.2f sec\n", javaTime);
+            System.out.printf("Java's Built-in HashMap: %.2f sec, %d bytes/entry\n", javaTime,
+                    bytesPerEntry(before, hashMap, hashMap.size()));
         } catch (StackOverflowError e) {
             printInfoOnStackOverflow(N, L);
         } catch (RuntimeException e) {
@@ -124,6 +143,33 @@ public class InsertRandomSpeedTest {
         }
     }
 
+    /**
+        Returns the bytes of heap in use once garbage has been collected,
+        as best System.gc() can tell. Takes the least of several collections,
+        since the serial collector only compacts away all garbage every few
+        full collections and leaves the rest behind as filler
+    */
+    public static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    /**
+        Returns the heap MAP has taken up since BEFORE was read with
+        usedMemory(), divided among its ENTRIES. MAP is kept reachable
+        until the heap has been measured, or the collector may free it first
+    */
+    public static long bytesPerEntry(long before, Object map, int entries) {
+        long after = usedMemory();
+        Reference.reachabilityFence(map);
+        return (after - before) / Math.max(entries, 1);
+    }
+
     /**
         Waits for the user on other side of Scanner
         to enter a positive int,
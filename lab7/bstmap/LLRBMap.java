@@ -0,0 +1,157 @@
+package bstmap;
+
+/** A left-leaning red-black tree map (Sedgewick's LLRB): a binary search
+ *  tree that mirrors a 2-3 tree, so its height stays below 2 lg N even
+ *  when keys arrive in order. put and remove are the usual recursive
+ *  algorithms run without recursion: they walk down recording the path,
+ *  then retrace it fixing each node, so deep trees cannot overflow the
+ *  stack.
+ *  @author Shuyuan Wang
+ */
+public class LLRBMap<K extends Comparable<K>, V> extends BalancedBSTMap<K, V> {
+
+    private static boolean isRed(Node<?, ?> x) {
+        return x != null && x.red;
+    }
+
+    private static <K, V> Node<K, V> rotateLeft(Node<K, V> h) {
+        Node<K, V> x = h.right;
+        h.right = x.left;
+        x.left = h;
+        x.red = h.red;
+        h.red = true;
+        return x;
+    }
+
+    private static <K, V> Node<K, V> rotateRight(Node<K, V> h) {
+        Node<K, V> x = h.left;
+        h.left = x.right;
+        x.right = h;
+        x.red = h.red;
+        h.red = true;
+        return x;
+    }
+
+    private static void flipColors(Node<?, ?> h) {
+        h.red = !h.red;
+        h.left.red = !h.left.red;
+        h.right.red = !h.right.red;
+    }
+
+    /** Restores the left-leaning invariants at H on the way back up. */
+    private static <K, V> Node<K, V> balance(Node<K, V> h) {
+        if (isRed(h.right) && !isRed(h.left)) {
+            h = rotateLeft(h);
+        }
+        if (isRed(h.left) && isRed(h.left.left)) {
+            h = rotateRight(h);
+        }
+        if (isRed(h.left) && isRed(h.right)) {
+            flipColors(h);
+        }
+        return h;
+    }
+
+    /** Makes H.left or one of its children red, H being red. */
+    private static <K, V> Node<K, V> moveRedLeft(Node<K, V> h) {
+        flipColors(h);
+        if (isRed(h.right.left)) {
+            h.right = rotateRight(h.right);
+            h = rotateLeft(h);
+            flipColors(h);
+        }
+        return h;
+    }
+
+    /** Makes H.right or one of its children red, H being red. */
+    private static <K, V> Node<K, V> moveRedRight(Node<K, V> h) {
+        flipColors(h);
+        if (isRed(h.left.left)) {
+            h = rotateRight(h);
+            flipColors(h);
+        }
+        return h;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        Node<K, V> x = root;
+        while (x != null) {
+            int cmp = key.compareTo(x.key);
+            if (cmp == 0) {
+                x.value = value;
+                depth = 0;
+                return;
+            }
+            push(x, cmp < 0);
+            x = cmp < 0 ? x.left : x.right;
+        }
+        Node<K, V> leaf = new Node<>(key, value);
+        leaf.red = true;
+        size += 1;
+        retrace(leaf, LLRBMap::balance);
+        root.red = false;
+    }
+
+    @Override
+    public V remove(K key) {
+        Node<K, V> target = getNode(key);
+        if (target == null) {
+            return null;
+        }
+        V old = target.value;
+        if (!isRed(root.left) && !isRed(root.right)) {
+            root.red = true;
+        }
+        /* Walk down as the recursive delete would, keeping a red link
+         * ahead, until the node to unlink has no right child. */
+        Node<K, V> h = root;
+        boolean deletingMin = false;
+        while (true) {
+            if (deletingMin) {
+                if (h.left == null) {
+                    break;
+                }
+                if (!isRed(h.left) && !isRed(h.left.left)) {
+                    h = moveRedLeft(h);
+                }
+                push(h, true);
+                h = h.left;
+            } else if (key.compareTo(h.key) < 0) {
+                if (!isRed(h.left) && !isRed(h.left.left)) {
+                    h = moveRedLeft(h);
+                }
+                push(h, true);
+                h = h.left;
+            } else {
+                if (isRed(h.left)) {
+                    h = rotateRight(h);
+                }
+                if (key.compareTo(h.key) == 0 && h.right == null) {
+                    break;
+                }
+                if (!isRed(h.right) && !isRed(h.right.left)) {
+                    h = moveRedRight(h);
+                }
+                if (key.compareTo(h.key) == 0) {
+                    /* Replace H by its successor, then delete the successor. */
+                    Node<K, V> min = h.right;
+                    while (min.left != null) {
+                        min = min.left;
+                    }
+                    h.key = min.key;
+                    h.value = min.value;
+                    deletingMin = true;
+                }
+                push(h, false);
+                h = h.right;
+            }
+        }
+        size -= 1;
+        retrace(null, LLRBMap::balance);
+        if (root != null) {
+            root.red = false;
+        }
+        return old;
+    }
+}
@@ -0,0 +1,375 @@
+package bstmap;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/** A lock-free ordered map for many threads: the skip list of Herlihy and
+ *  Shavit, The Art of Multiprocessor Programming, chapter 14. Each node is
+ *  linked into a random number of sorted lists, every list a sample of the
+ *  one below, so a search skips down through them in O(log N) expected
+ *  steps. Every change is one compareAndSet, and a thread that finds a
+ *  half-finished change finishes it instead of waiting.
+ *
+ *  A node's links carry a mark, set when the node is being unlinked, so no
+ *  node is ever linked after a marked one. A key is present while its node
+ *  has a value: remove() takes the value away with one compareAndSet, which
+ *  is the moment the key leaves the map, then marks and unlinks the node.
+ *
+ *  get() and containsKey() take no lock and never retry. Iterators, keys(),
+ *  keySet(), floorKey() and ceilingKey() are weakly consistent: they see
+ *  every key present for the whole call, and may or may not see concurrent
+ *  changes. size() is exact only while no change is under way. Assumes
+ *  null keys and values will never be inserted.
+ *  @author Shuyuan Wang
+ */
+public class LockFreeSkipListMap<K extends Comparable<K>, V> implements SortedMap61B<K, V> {
+
+    /** The most lists a node can be in; enough for 2^32 keys. */
+    private static final int MAX_LEVEL = 32;
+
+    private static final AtomicReferenceFieldUpdater<Node, Object> VALUE =
+            AtomicReferenceFieldUpdater.newUpdater(Node.class, Object.class, "value");
+
+    /** A node, in lists 0 to next.length - 1. The head and tail have no key. */
+    private static class Node {
+        final Object key;
+        /** The value, or null once the key has been removed. */
+        volatile Object value;
+        final AtomicMarkableReference<Node>[] next;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Node(Object key, Object value, int levels) {
+            this.key = key;
+            this.value = value;
+            next = (AtomicMarkableReference<Node>[]) new AtomicMarkableReference[levels];
+        }
+    }
+
+    private final Node head = new Node(null, null, MAX_LEVEL);
+    private final Node tail = new Node(null, null, MAX_LEVEL);
+    private final AtomicInteger size = new AtomicInteger();
+    /** The most lists any node has been in, where searches start. */
+    private final AtomicInteger height = new AtomicInteger(1);
+
+    public LockFreeSkipListMap() {
+        for (int i = 0; i < MAX_LEVEL; i += 1) {
+            head.next[i] = new AtomicMarkableReference<>(tail, false);
+        }
+    }
+
+    /** Returns the number of lists for a new node: i + 1 with probability 2^-(i + 1). */
+    private static int randomLevels() {
+        int bits = ThreadLocalRandom.current().nextInt();
+        return Math.min(Integer.numberOfTrailingZeros(bits) + 1, MAX_LEVEL);
+    }
+
+    /** Returns whether X's key comes before KEY. The tail comes after every key. */
+    @SuppressWarnings("unchecked")
+    private boolean before(Node x, K key) {
+        return x != tail && ((K) x.key).compareTo(key) < 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean holds(Node x, K key) {
+        return x != tail && ((K) x.key).compareTo(key) == 0;
+    }
+
+    /**
+     * Fills PREDS and SUCCS, for each list, with the last node before KEY and
+     * the first node not before it, unlinking any marked nodes on the way.
+     * Returns the node holding KEY, or null.
+     */
+    private Node find(K key, Node[] preds, Node[] succs) {
+        boolean[] marked = {false};
+        retry:
+        while (true) {
+            Node pred = head;
+            Node curr = null;
+            for (int level = height.get() - 1; level >= 0; level -= 1) {
+                curr = pred.next[level].getReference();
+                while (true) {
+                    if (curr == tail) {
+                        break;
+                    }
+                    Node succ = curr.next[level].get(marked);
+                    while (marked[0]) {
+                        if (!pred.next[level].compareAndSet(curr, succ, false, false)) {
+                            continue retry;
+                        }
+                        curr = succ;
+                        if (curr == tail) {
+                            break;
+                        }
+                        succ = curr.next[level].get(marked);
+                    }
+                    if (!before(curr, key)) {
+                        break;
+                    }
+                    pred = curr;
+                    curr = succ;
+                }
+                preds[level] = pred;
+                succs[level] = curr;
+            }
+            return holds(curr, key) ? curr : null;
+        }
+    }
+
+    /**
+     * Returns the node holding KEY, or null, without changing the lists.
+     * Marked nodes are stepped over, not unlinked.
+     */
+    private Node findNode(K key) {
+        boolean[] marked = {false};
+        Node pred = head;
+        Node curr = null;
+        for (int level = height.get() - 1; level >= 0; level -= 1) {
+            curr = pred.next[level].getReference();
+            while (curr != tail) {
+                Node succ = curr.next[level].get(marked);
+                while (marked[0] && succ != tail) {
+                    curr = succ;
+                    succ = curr.next[level].get(marked);
+                }
+                if (marked[0]) {
+                    curr = succ;
+                    break;
+                }
+                if (!before(curr, key)) {
+                    break;
+                }
+                pred = curr;
+                curr = succ;
+            }
+        }
+        return holds(curr, key) ? curr : null;
+    }
+
+    /** Marks every link of NODE, top list first, so nothing is linked after it. */
+    private static void mark(Node node) {
+        for (int level = node.next.length - 1; level >= 0; level -= 1) {
+            AtomicMarkableReference<Node> link = node.next[level];
+            while (!link.isMarked()) {
+                link.attemptMark(link.getReference(), true);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (K key : this) {
+            remove(key);
+        }
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        Node node = findNode(key);
+        return node == null ? null : (V) node.value;
+    }
+
+    @Override
+    public int size() {
+        return Math.max(size.get(), 0);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("null value");
+        }
+        Node[] preds = new Node[MAX_LEVEL];
+        Node[] succs = new Node[MAX_LEVEL];
+        int levels = randomLevels();
+        for (int h = height.get(); h < levels; h = height.get()) {
+            height.compareAndSet(h, levels);
+        }
+        while (true) {
+            Node found = find(key, preds, succs);
+            if (found != null) {
+                Object old = found.value;
+                if (old != null && VALUE.compareAndSet(found, old, value)) {
+                    return;
+                }
+                if (old == null) {
+                    /* Being removed: finish marking it, so find() unlinks it. */
+                    mark(found);
+                }
+                continue;
+            }
+            Node node = new Node(key, value, levels);
+            for (int level = 0; level < levels; level += 1) {
+                node.next[level] = new AtomicMarkableReference<>(succs[level], false);
+            }
+            /* Linking into the bottom list adds the key; the rest are shortcuts. */
+            if (!preds[0].next[0].compareAndSet(succs[0], node, false, false)) {
+                continue;
+            }
+            size.incrementAndGet();
+            for (int level = 1; level < levels; level += 1) {
+                while (true) {
+                    /* Point past whatever was linked in since NODE was made,
+                     * and give up on the upper lists if NODE is being removed. */
+                    AtomicMarkableReference<Node> link = node.next[level];
+                    Node stale = link.getReference();
+                    if (link.isMarked()
+                            || (stale != succs[level]
+                                && !link.compareAndSet(stale, succs[level], false, false))) {
+                        return;
+                    }
+                    if (preds[level].next[level].compareAndSet(succs[level], node, false, false)) {
+                        break;
+                    }
+                    find(key, preds, succs);
+                }
+            }
+            return;
+        }
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> keys = new TreeSet<>();
+        for (K key : this) {
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    @Override
+    public V remove(K key) {
+        return remove(key, null, false);
+    }
+
+    @Override
+    public V remove(K key, V value) {
+        return remove(key, value, true);
+    }
+
+    /** Removes KEY, if it maps to VALUE or MATCH is false, and returns its old value. */
+    @SuppressWarnings("unchecked")
+    private V remove(K key, V value, boolean match) {
+        Node[] preds = new Node[MAX_LEVEL];
+        Node[] succs = new Node[MAX_LEVEL];
+        Node node = find(key, preds, succs);
+        if (node == null) {
+            return null;
+        }
+        Object old;
+        do {
+            old = node.value;
+            if (old == null || (match && !old.equals(value))) {
+                return null;
+            }
+        } while (!VALUE.compareAndSet(node, old, null));
+        size.decrementAndGet();
+        mark(node);
+        find(key, preds, succs);
+        return (V) old;
+    }
+
+    /** Returns the first live node with a key not before KEY, or the tail. */
+    private Node ceilingNode(K key) {
+        Node pred = head;
+        for (int level = height.get() - 1; level >= 0; level -= 1) {
+            Node curr = pred.next[level].getReference();
+            while (before(curr, key)) {
+                pred = curr;
+                curr = curr.next[level].getReference();
+            }
+        }
+        return nextLive(pred);
+    }
+
+    /** Returns the first node after X whose key is present, or the tail. */
+    private Node nextLive(Node x) {
+        x = x.next[0].getReference();
+        while (x != tail && (x.value == null || x.next[0].isMarked())) {
+            x = x.next[0].getReference();
+        }
+        return x;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public K floorKey(K key) {
+        /* The lists only link forwards, so find the last node up to KEY, and
+         * look again before it if it has been removed. */
+        boolean inclusive = true;
+        while (true) {
+            Node pred = head;
+            for (int level = height.get() - 1; level >= 0; level -= 1) {
+                Node curr = pred.next[level].getReference();
+                while (before(curr, key) || (inclusive && holds(curr, key))) {
+                    pred = curr;
+                    curr = curr.next[level].getReference();
+                }
+            }
+            if (pred == head) {
+                return null;
+            }
+            if (pred.value != null && !pred.next[0].isMarked()) {
+                return (K) pred.key;
+            }
+            key = (K) pred.key;
+            inclusive = false;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public K ceilingKey(K key) {
+        Node x = ceilingNode(key);
+        return x == tail ? null : (K) x.key;
+    }
+
+    @Override
+    public Iterable<K> keys(K lo, K hi) {
+        return () -> new KeyIterator(ceilingNode(lo), hi);
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new KeyIterator(nextLive(head), null);
+    }
+
+    /** Walks the bottom list from a node up to hi, or to the end if hi is null. */
+    private class KeyIterator implements Iterator<K> {
+        private Node next;
+        private final K hi;
+
+        KeyIterator(Node first, K hi) {
+            next = first;
+            this.hi = hi;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean hasNext() {
+            return next != tail && (hi == null || ((K) next.key).compareTo(hi) <= 0);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            K key = (K) next.key;
+            next = nextLive(next);
+            return key;
+        }
+    }
+}
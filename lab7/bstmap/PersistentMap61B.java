@@ -0,0 +1,99 @@
+package bstmap;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+
+/** A SortedMap61B kept as a sequence of PersistentTreeMap versions. Each
+ *  change installs a new version, so snapshot() can hand out the current
+ *  one in O(1): a consistent, unchanging view of the map that readers can
+ *  use for as long as they like while writers carry on.
+ *
+ *  Writers take this map's lock, so changes never race. Readers take no
+ *  lock: they read whichever version is current, and an iterator walks the
+ *  version current when it was made.
+ *  @author Shuyuan Wang
+ */
+public class PersistentMap61B<K extends Comparable<K>, V> implements SortedMap61B<K, V> {
+
+    private volatile PersistentTreeMap<K, V> current = PersistentTreeMap.empty();
+
+    /** Returns the current version of this map, which never changes. */
+    public PersistentTreeMap<K, V> snapshot() {
+        return current;
+    }
+
+    @Override
+    public synchronized void clear() {
+        current = PersistentTreeMap.empty();
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return current.containsKey(key);
+    }
+
+    @Override
+    public V get(K key) {
+        return current.get(key);
+    }
+
+    @Override
+    public int size() {
+        return current.size();
+    }
+
+    @Override
+    public synchronized void put(K key, V value) {
+        current = current.put(key, value);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> keys = new TreeSet<>();
+        for (K key : current) {
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    @Override
+    public synchronized V remove(K key) {
+        V old = current.get(key);
+        current = current.remove(key);
+        return old;
+    }
+
+    @Override
+    public synchronized V remove(K key, V value) {
+        if (!current.containsKey(key)) {
+            return null;
+        }
+        V old = current.get(key);
+        if (old == null ? value != null : !old.equals(value)) {
+            return null;
+        }
+        current = current.remove(key);
+        return old;
+    }
+
+    @Override
+    public K floorKey(K key) {
+        return current.floorKey(key);
+    }
+
+    @Override
+    public K ceilingKey(K key) {
+        return current.ceilingKey(key);
+    }
+
+    @Override
+    public Iterable<K> keys(K lo, K hi) {
+        return current.keys(lo, hi);
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return current.iterator();
+    }
+}
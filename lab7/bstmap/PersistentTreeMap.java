@@ -0,0 +1,324 @@
+package bstmap;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/** An immutable ordered map: a left-leaning red-black tree whose put and
+ *  remove return a new version of the map instead of changing this one.
+ *  They copy only the nodes on the path to the key, about 2 lg N of them,
+ *  and share every other node with the old version, so each version costs
+ *  O(log N) time and memory and old versions stay valid forever.
+ *
+ *  The algorithms are LLRBMap's, written recursively so that each call can
+ *  copy the node it is about to change. A node is only ever changed while
+ *  it is a fresh copy that no published version can reach. Recursion is
+ *  safe here, since the tree is never deeper than 2 lg N.
+ *  @author Shuyuan Wang
+ */
+public final class PersistentTreeMap<K extends Comparable<K>, V> implements Iterable<K> {
+
+    /** A tree node. Never changed once it is part of a version. */
+    static final class Node<K, V> {
+        K key;
+        V value;
+        Node<K, V> left;
+        Node<K, V> right;
+        boolean red;
+
+        Node(K key, V value, Node<K, V> left, Node<K, V> right, boolean red) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.red = red;
+        }
+    }
+
+    private static final PersistentTreeMap<?, ?> EMPTY = new PersistentTreeMap<>(null, 0);
+
+    final Node<K, V> root;
+    private final int size;
+
+    private PersistentTreeMap(Node<K, V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /** Returns the empty map. */
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<K>, V> PersistentTreeMap<K, V> empty() {
+        return (PersistentTreeMap<K, V>) EMPTY;
+    }
+
+    private static <K, V> Node<K, V> copy(Node<K, V> x) {
+        return new Node<>(x.key, x.value, x.left, x.right, x.red);
+    }
+
+    private static boolean isRed(Node<?, ?> x) {
+        return x != null && x.red;
+    }
+
+    /* The helpers below take a fresh node H, and copy any other node they change. */
+
+    private static <K, V> Node<K, V> rotateLeft(Node<K, V> h) {
+        Node<K, V> x = copy(h.right);
+        h.right = x.left;
+        x.left = h;
+        x.red = h.red;
+        h.red = true;
+        return x;
+    }
+
+    private static <K, V> Node<K, V> rotateRight(Node<K, V> h) {
+        Node<K, V> x = copy(h.left);
+        h.left = x.right;
+        x.right = h;
+        x.red = h.red;
+        h.red = true;
+        return x;
+    }
+
+    private static <K, V> void flipColors(Node<K, V> h) {
+        h.red = !h.red;
+        h.left = copy(h.left);
+        h.left.red = !h.left.red;
+        h.right = copy(h.right);
+        h.right.red = !h.right.red;
+    }
+
+    private static <K, V> Node<K, V> balance(Node<K, V> h) {
+        if (isRed(h.right) && !isRed(h.left)) {
+            h = rotateLeft(h);
+        }
+        if (isRed(h.left) && isRed(h.left.left)) {
+            h = rotateRight(h);
+        }
+        if (isRed(h.left) && isRed(h.right)) {
+            flipColors(h);
+        }
+        return h;
+    }
+
+    private static <K, V> Node<K, V> moveRedLeft(Node<K, V> h) {
+        flipColors(h);
+        if (isRed(h.right.left)) {
+            /* flipColors has already copied h.right. */
+            h.right = rotateRight(h.right);
+            h = rotateLeft(h);
+            flipColors(h);
+        }
+        return h;
+    }
+
+    private static <K, V> Node<K, V> moveRedRight(Node<K, V> h) {
+        flipColors(h);
+        if (isRed(h.left.left)) {
+            h = rotateRight(h);
+            flipColors(h);
+        }
+        return h;
+    }
+
+    private Node<K, V> getNode(K key) {
+        Node<K, V> x = root;
+        while (x != null) {
+            int cmp = key.compareTo(x.key);
+            if (cmp == 0) {
+                return x;
+            }
+            x = cmp < 0 ? x.left : x.right;
+        }
+        return null;
+    }
+
+    public boolean containsKey(K key) {
+        return getNode(key) != null;
+    }
+
+    /** Returns the value KEY maps to, or null if there is none. */
+    public V get(K key) {
+        Node<K, V> x = getNode(key);
+        return x == null ? null : x.value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Returns a map like this one, but mapping KEY to VALUE. */
+    public PersistentTreeMap<K, V> put(K key, V value) {
+        Node<K, V> old = getNode(key);
+        if (old != null && old.value == value) {
+            return this;
+        }
+        Node<K, V> newRoot = put(root, key, value);
+        newRoot.red = false;
+        return new PersistentTreeMap<>(newRoot, old == null ? size + 1 : size);
+    }
+
+    private static <K extends Comparable<K>, V> Node<K, V> put(Node<K, V> h, K key, V value) {
+        if (h == null) {
+            return new Node<>(key, value, null, null, true);
+        }
+        h = copy(h);
+        int cmp = key.compareTo(h.key);
+        if (cmp < 0) {
+            h.left = put(h.left, key, value);
+        } else if (cmp > 0) {
+            h.right = put(h.right, key, value);
+        } else {
+            h.value = value;
+        }
+        return balance(h);
+    }
+
+    /** Returns a map like this one, but without KEY. */
+    public PersistentTreeMap<K, V> remove(K key) {
+        if (!containsKey(key)) {
+            return this;
+        }
+        Node<K, V> h = copy(root);
+        if (!isRed(h.left) && !isRed(h.right)) {
+            h.red = true;
+        }
+        Node<K, V> newRoot = remove(h, key);
+        if (newRoot != null) {
+            newRoot.red = false;
+        }
+        return new PersistentTreeMap<>(newRoot, size - 1);
+    }
+
+    /** Removes KEY, which must be under H, from the fresh node H. */
+    private static <K extends Comparable<K>, V> Node<K, V> remove(Node<K, V> h, K key) {
+        if (key.compareTo(h.key) < 0) {
+            if (!isRed(h.left) && !isRed(h.left.left)) {
+                h = moveRedLeft(h);
+            }
+            h.left = remove(copy(h.left), key);
+        } else {
+            if (isRed(h.left)) {
+                h = rotateRight(h);
+            }
+            if (key.compareTo(h.key) == 0 && h.right == null) {
+                return null;
+            }
+            if (!isRed(h.right) && !isRed(h.right.left)) {
+                h = moveRedRight(h);
+            }
+            if (key.compareTo(h.key) == 0) {
+                /* Replace H by its successor, then remove the successor. */
+                Node<K, V> min = h.right;
+                while (min.left != null) {
+                    min = min.left;
+                }
+                h.key = min.key;
+                h.value = min.value;
+                h.right = removeMin(copy(h.right));
+            } else {
+                h.right = remove(copy(h.right), key);
+            }
+        }
+        return balance(h);
+    }
+
+    private static <K, V> Node<K, V> removeMin(Node<K, V> h) {
+        if (h.left == null) {
+            return null;
+        }
+        if (!isRed(h.left) && !isRed(h.left.left)) {
+            h = moveRedLeft(h);
+        }
+        h.left = removeMin(copy(h.left));
+        return balance(h);
+    }
+
+    /** Returns the greatest key less than or equal to KEY, or null. */
+    public K floorKey(K key) {
+        K best = null;
+        Node<K, V> x = root;
+        while (x != null) {
+            int cmp = key.compareTo(x.key);
+            if (cmp == 0) {
+                return x.key;
+            } else if (cmp < 0) {
+                x = x.left;
+            } else {
+                best = x.key;
+                x = x.right;
+            }
+        }
+        return best;
+    }
+
+    /** Returns the least key greater than or equal to KEY, or null. */
+    public K ceilingKey(K key) {
+        K best = null;
+        Node<K, V> x = root;
+        while (x != null) {
+            int cmp = key.compareTo(x.key);
+            if (cmp == 0) {
+                return x.key;
+            } else if (cmp > 0) {
+                x = x.right;
+            } else {
+                best = x.key;
+                x = x.left;
+            }
+        }
+        return best;
+    }
+
+    /** Returns the keys from LO to HI, both inclusive, in ascending order. */
+    public Iterable<K> keys(K lo, K hi) {
+        return () -> new KeyIterator(lo, hi);
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new KeyIterator(null, null);
+    }
+
+    /**
+     * Iterates in order over the keys from lo to hi, with a stack of the
+     * nodes whose keys are still to come. A null bound is unbounded.
+     */
+    private class KeyIterator implements Iterator<K> {
+        private final ArrayDeque<Node<K, V>> stack = new ArrayDeque<>();
+        private final K hi;
+
+        KeyIterator(K lo, K hi) {
+            this.hi = hi;
+            Node<K, V> x = root;
+            while (x != null) {
+                if (lo != null && lo.compareTo(x.key) > 0) {
+                    x = x.right;
+                } else {
+                    stack.push(x);
+                    x = x.left;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty() && (hi == null || stack.peek().key.compareTo(hi) <= 0);
+        }
+
+        @Override
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node<K, V> x = stack.pop();
+            for (Node<K, V> y = x.right; y != null; y = y.left) {
+                stack.push(y);
+            }
+            return x.key;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package bstmap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.TreeMap;
+
+import edu.princeton.cs.algs4.Stopwatch;
+
+/**
+ * Compares taking snapshots of a PersistentMap61B, which is O(1), with
+ * copying a java.util.TreeMap, and measures the memory each version of a
+ * PersistentTreeMap costs over the last one.
+ * @author Shuyuan Wang
+ */
+public class SnapshotSpeedTest {
+    /** The number of snapshots taken of each map. */
+    private static final int SNAPSHOTS = 100;
+    /** The number of versions kept to measure memory per version. */
+    private static final int VERSIONS = 10000;
+
+    public static void main(String[] args) {
+        Scanner input = new Scanner(System.in);
+        System.out.println("This program builds maps of N random Strings of length 10 "
+                + "and takes " + SNAPSHOTS + " snapshots of each, with a put between snapshots.");
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # strings to insert into the maps: ");
+            int N = InsertRandomSpeedTest.waitForPositiveInt(input);
+            timeSnapshots(N);
+            timeTreeMapCopies(N);
+            measureVersions(N);
+
+            System.out.print("Would you like to try more timed-tests? (y/n): ");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /** Prints the time to take SNAPSHOTS snapshots of a PersistentMap61B of N entries. */
+    public static void timeSnapshots(int N) {
+        PersistentMap61B<String, Integer> map = new PersistentMap61B<>();
+        InsertRandomSpeedTest.insertRandom(map, N, 10);
+        List<PersistentTreeMap<String, Integer>> snapshots = new ArrayList<>(SNAPSHOTS);
+        KeyStream keys = KeyCorpus.random(SNAPSHOTS, 10, N).stream();
+        Stopwatch sw = new Stopwatch();
+        for (int i = 0; i < SNAPSHOTS; i++) {
+            map.put(keys.next(), keys.value());
+            snapshots.add(map.snapshot());
+        }
+        System.out.printf("PersistentMap61B put + snapshot(): %.4f sec for %d snapshots\n",
+                sw.elapsedTime(), snapshots.size());
+    }
+
+    /** Prints the time to take SNAPSHOTS copies of a TreeMap of N entries. */
+    public static void timeTreeMapCopies(int N) {
+        TreeMap<String, Integer> map = new TreeMap<>();
+        InsertRandomSpeedTest.insertRandom(map, N, 10);
+        /* Keep only the latest copy, or the copies alone could fill the heap. */
+        TreeMap<String, Integer> snapshot = null;
+        KeyStream keys = KeyCorpus.random(SNAPSHOTS, 10, N).stream();
+        Stopwatch sw = new Stopwatch();
+        for (int i = 0; i < SNAPSHOTS; i++) {
+            map.put(keys.next(), keys.value());
+            snapshot = new TreeMap<>(map);
+        }
+        System.out.printf("TreeMap put + new TreeMap<>(treeMap): %.4f sec for %d snapshots of %d entries\n",
+                sw.elapsedTime(), SNAPSHOTS, snapshot.size());
+    }
+
+    /**
+     * Builds a PersistentTreeMap of N entries, then keeps VERSIONS more
+     * versions of it, each one put on from the last, and prints the memory
+     * each version adds. A copied TreeMap would cost all of its entries.
+     */
+    public static void measureVersions(int N) {
+        PersistentTreeMap<String, Integer> map = PersistentTreeMap.empty();
+        for (int i = 0; i < N; i++) {
+            map = map.put(StringUtils.randomString(10), i);
+        }
+        /* Make the keys and values first, so only the versions are measured. */
+        List<String> keys = new ArrayList<>(VERSIONS);
+        List<Integer> values = new ArrayList<>(VERSIONS);
+        for (int i = 0; i < VERSIONS; i++) {
+            keys.add(StringUtils.randomString(10));
+            values.add(Integer.valueOf(i));
+        }
+        List<PersistentTreeMap<String, Integer>> versions = new ArrayList<>(VERSIONS);
+        long before = InsertRandomSpeedTest.usedMemory();
+        for (int i = 0; i < VERSIONS; i++) {
+            map = map.put(keys.get(i), values.get(i));
+            versions.add(map);
+        }
+        System.out.printf("PersistentTreeMap: %d bytes/version without keys and values, "
+                + "%d bytes/entry for a TreeMap copy\n",
+                InsertRandomSpeedTest.bytesPerEntry(before, versions, VERSIONS),
+                treeMapBytesPerEntry(N));
+    }
+
+    /** Returns the memory per entry that copying a TreeMap of N entries costs. */
+    private static long treeMapBytesPerEntry(int N) {
+        TreeMap<String, Integer> map = new TreeMap<>();
+        InsertRandomSpeedTest.insertRandom(map, N, 10);
+        long before = InsertRandomSpeedTest.usedMemory();
+        TreeMap<String, Integer> copy = new TreeMap<>(map);
+        return InsertRandomSpeedTest.bytesPerEntry(before, copy, copy.size());
+    }
+}
@@ -0,0 +1,19 @@
+package bstmap;
+
+/* A Map61B whose keys are kept in order, so that it can also answer
+ * questions about the keys nearest to a given key.
+ */
+public interface SortedMap61B<K extends Comparable<K>, V> extends Map61B<K, V> {
+
+    /* Returns the greatest key less than or equal to KEY, or null if there
+     * is none. */
+    K floorKey(K key);
+
+    /* Returns the least key greater than or equal to KEY, or null if there
+     * is none. */
+    K ceilingKey(K key);
+
+    /* Returns the keys from LO to HI, both inclusive, in ascending order. */
+    Iterable<K> keys(K lo, K hi);
+
+}
@@ -0,0 +1,118 @@
+package bstmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+/** Tests of BTreeMap against java.util.TreeMap. */
+public class TestBTreeMap {
+
+    @Test
+    public void randomizedSmallFanout() {
+        randomized(new BTreeMap<>(4));
+        randomized(new BTreeMap<>(5));
+    }
+
+    @Test
+    public void randomizedDefaultFanout() {
+        randomized(new BTreeMap<>());
+    }
+
+    private static void randomized(BTreeMap<Integer, Integer> m) {
+        Random r = new Random(42);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 200000; i++) {
+            int key = r.nextInt(3000);
+            int op = r.nextInt(5);
+            if (op <= 1) {
+                m.put(key, i);
+                expected.put(key, i);
+            } else if (op == 2) {
+                assertEquals(expected.remove(key), m.remove(key));
+            } else if (op == 3) {
+                assertEquals(expected.get(key), m.get(key));
+                assertEquals(expected.floorKey(key), m.floorKey(key));
+                assertEquals(expected.ceilingKey(key), m.ceilingKey(key));
+            } else {
+                int hi = key + r.nextInt(200);
+                List<Integer> keys = new ArrayList<>();
+                for (int k : m.keys(key, hi)) {
+                    keys.add(k);
+                }
+                assertEquals(new ArrayList<>(expected.subMap(key, true, hi, true).keySet()), keys);
+            }
+            assertEquals(expected.size(), m.size());
+        }
+        List<Integer> keys = new ArrayList<>();
+        for (int k : m) {
+            keys.add(k);
+        }
+        assertEquals(new ArrayList<>(expected.keySet()), keys);
+        /* Drain it, so every merge path runs down to an empty root leaf. */
+        for (int k : expected.keySet()) {
+            assertEquals(expected.get(k), m.remove(k));
+        }
+        assertEquals(0, m.size());
+        assertFalse(m.iterator().hasNext());
+        assertEquals(1, m.height());
+    }
+
+    @Test
+    public void fromSortedMatchesPuts() {
+        for (int n : new int[] {0, 1, 31, 32, 33, 1000, 100000}) {
+            List<Integer> keys = new ArrayList<>();
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                keys.add(i * 2);
+                values.add("v" + i);
+            }
+            BTreeMap<Integer, String> m = BTreeMap.fromSorted(32, keys, values);
+            assertEquals(n, m.size());
+            List<Integer> iterated = new ArrayList<>();
+            for (int k : m) {
+                iterated.add(k);
+            }
+            assertEquals(keys, iterated);
+            for (int i = 0; i < n; i += 7) {
+                assertEquals("v" + i, m.get(i * 2));
+                assertNull(m.get(i * 2 + 1));
+            }
+            /* It must stay a valid tree under later updates. */
+            for (int i = 0; i < n; i += 2) {
+                assertEquals("v" + i, m.remove(i * 2));
+                m.put(i * 2 + 1, "odd");
+            }
+            assertEquals(n, m.size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromSortedRejectsUnsorted() {
+        BTreeMap.fromSorted(32, Arrays.asList(1, 3, 2), Arrays.asList("a", "b", "c"));
+    }
+
+    @Test
+    public void inOrderInsertStaysShallow() {
+        BTreeMap<Integer, Integer> m = new BTreeMap<>(32);
+        for (int i = 0; i < 1 << 20; i++) {
+            m.put(i, i);
+        }
+        assertTrue(m.height() <= 5);
+        assertEquals(Integer.valueOf(12345), m.get(12345));
+    }
+
+    @Test
+    public void nullValues() {
+        BTreeMap<String, Integer> b = new BTreeMap<>();
+        b.put("hi", null);
+        assertTrue(b.containsKey("hi"));
+        assertNull(b.remove("hi", 1));
+        assertNull(b.remove("hi", null));
+        assertFalse(b.containsKey("hi"));
+    }
+}
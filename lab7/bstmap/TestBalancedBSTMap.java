@@ -0,0 +1,130 @@
+package bstmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+/** Tests of BSTMap, LLRBMap and AVLMap against java.util.TreeMap. */
+public class TestBalancedBSTMap {
+
+    @Test
+    public void randomizedBST() {
+        randomized(new BSTMap<>());
+    }
+
+    @Test
+    public void randomizedLLRB() {
+        randomized(new LLRBMap<>());
+    }
+
+    @Test
+    public void randomizedAVL() {
+        randomized(new AVLMap<>());
+    }
+
+    private static void randomized(BalancedBSTMap<Integer, Integer> m) {
+        Random r = new Random(41);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 100000; i++) {
+            int key = r.nextInt(2000);
+            int op = r.nextInt(5);
+            if (op <= 1) {
+                m.put(key, i);
+                expected.put(key, i);
+            } else if (op == 2) {
+                assertEquals(expected.remove(key), m.remove(key));
+            } else if (op == 3) {
+                assertEquals(expected.get(key), m.get(key));
+                assertEquals(expected.floorKey(key), m.floorKey(key));
+                assertEquals(expected.ceilingKey(key), m.ceilingKey(key));
+            } else {
+                int hi = key + r.nextInt(100);
+                List<Integer> keys = new ArrayList<>();
+                for (int k : m.keys(key, hi)) {
+                    keys.add(k);
+                }
+                assertEquals(new ArrayList<>(expected.subMap(key, true, hi, true).keySet()), keys);
+            }
+            assertEquals(expected.size(), m.size());
+            if (i % 1000 == 0) {
+                checkInvariants(m);
+            }
+        }
+        List<Integer> keys = new ArrayList<>();
+        for (int k : m) {
+            keys.add(k);
+        }
+        assertEquals(new ArrayList<>(expected.keySet()), keys);
+    }
+
+    /** Checks the balance invariant of M's kind of tree. */
+    private static void checkInvariants(BalancedBSTMap<Integer, Integer> m) {
+        if (m instanceof LLRBMap) {
+            assertFalse(m.root != null && m.root.red);
+            blackHeight(m.root);
+        } else if (m instanceof AVLMap) {
+            avlHeight(m.root);
+        }
+    }
+
+    private static int blackHeight(BalancedBSTMap.Node<Integer, Integer> x) {
+        if (x == null) {
+            return 0;
+        }
+        assertFalse("right-leaning red link", x.right != null && x.right.red);
+        assertFalse("two reds in a row", x.red && x.left != null && x.left.red);
+        int left = blackHeight(x.left);
+        assertEquals("unequal black heights", left, blackHeight(x.right));
+        return left + (x.red ? 0 : 1);
+    }
+
+    private static int avlHeight(BalancedBSTMap.Node<Integer, Integer> x) {
+        if (x == null) {
+            return 0;
+        }
+        int left = avlHeight(x.left);
+        int right = avlHeight(x.right);
+        assertTrue("unbalanced", Math.abs(left - right) <= 1);
+        assertEquals("stale height", 1 + Math.max(left, right), x.height);
+        return x.height;
+    }
+
+    /** Keys in order would make a plain BST a list, and recursion overflow. */
+    @Test
+    public void inOrderInsertStaysShallow() {
+        int n = 1 << 18;
+        LLRBMap<Integer, Integer> llrb = new LLRBMap<>();
+        AVLMap<Integer, Integer> avl = new AVLMap<>();
+        for (int i = 0; i < n; i++) {
+            llrb.put(i, i);
+            avl.put(i, i);
+        }
+        assertTrue(llrb.height() <= 2 * 18);
+        assertTrue(avl.height() <= 1.45 * 18);
+        for (int i = 0; i < n; i += 2) {
+            assertEquals(Integer.valueOf(i), llrb.remove(i));
+            assertEquals(Integer.valueOf(i), avl.remove(i));
+        }
+        assertEquals(n / 2, llrb.size());
+        assertEquals(n / 2, avl.size());
+        assertEquals(Integer.valueOf(n - 1), llrb.floorKey(n));
+        assertEquals(Integer.valueOf(1), avl.ceilingKey(0));
+    }
+
+    @Test
+    public void nullValuesAndRemoveWithValue() {
+        LLRBMap<String, Integer> b = new LLRBMap<>();
+        b.put("hi", null);
+        assertTrue(b.containsKey("hi"));
+        AVLMap<String, String> q = new AVLMap<>();
+        q.put("c", "a");
+        assertNull(q.remove("c", "b"));
+        assertEquals("a", q.remove("c", "a"));
+        assertFalse(q.containsKey("c"));
+        assertNull(q.remove("c"));
+    }
+}
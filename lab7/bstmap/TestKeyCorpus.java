@@ -0,0 +1,68 @@
+package bstmap;
+
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+/** Tests of KeyCorpus and KeyStream. */
+public class TestKeyCorpus {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keysAreDeterministicLowerCase() {
+        KeyCorpus a = KeyCorpus.random(1000, 7, 46);
+        KeyCorpus b = KeyCorpus.random(1000, 7, 46);
+        assertEquals(1000, a.size());
+        assertEquals(7, a.keyLength());
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(a.key(i), b.key(i));
+            assertEquals(7, a.key(i).length());
+            assertTrue(StringUtils.isLowerCase(a.key(i)));
+        }
+        assertNotEquals(a.key(0), KeyCorpus.random(1, 7, 47).key(0));
+    }
+
+    @Test
+    public void mappedMatchesHeapAndIsReused() throws IOException {
+        File file = new File(folder.getRoot(), "keys");
+        KeyCorpus mapped = KeyCorpus.mapped(file, 5000, 12, 46);
+        KeyCorpus heap = KeyCorpus.random(5000, 12, 46);
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(heap.key(i), mapped.key(i));
+        }
+        /* The same corpus is reopened as it is; another one rewrites the file. */
+        assertTrue(file.setLastModified(1000));
+        KeyCorpus.mapped(file, 5000, 12, 46);
+        assertEquals(1000, file.lastModified());
+        KeyCorpus other = KeyCorpus.mapped(file, 5000, 12, 47);
+        assertEquals(KeyCorpus.random(5000, 12, 47).key(4999), other.key(4999));
+        assertNotEquals(1000, file.lastModified());
+    }
+
+    @Test
+    public void streamPairsKeysWithValuesAndStartsOver() {
+        KeyCorpus corpus = KeyCorpus.random(10, 3, 46);
+        KeyStream stream = corpus.stream(4, 3);
+        assertEquals(3, stream.size());
+        for (int round = 0; round < 2; round++) {
+            for (int i = 4; i < 7; i++) {
+                assertEquals(corpus.key(i), stream.next());
+                assertEquals(Integer.valueOf(i), stream.value());
+            }
+        }
+        stream.next();
+        stream.reset();
+        assertEquals(corpus.key(4), stream.next());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void keyOutOfRange() {
+        KeyCorpus.random(10, 3, 46).key(10);
+    }
+}
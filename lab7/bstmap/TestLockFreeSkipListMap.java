@@ -0,0 +1,165 @@
+package bstmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** Tests of LockFreeSkipListMap, alone and from several threads. */
+public class TestLockFreeSkipListMap {
+
+    @Test
+    public void randomizedSingleThread() {
+        Random r = new Random(44);
+        LockFreeSkipListMap<Integer, Integer> m = new LockFreeSkipListMap<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 100000; i++) {
+            int key = r.nextInt(2000);
+            int op = r.nextInt(6);
+            if (op <= 1) {
+                m.put(key, i);
+                expected.put(key, i);
+            } else if (op == 2) {
+                assertEquals(expected.remove(key), m.remove(key));
+            } else if (op == 3) {
+                Integer value = r.nextBoolean() ? expected.get(key) : Integer.valueOf(-1);
+                Integer removed = value != null && value.equals(expected.get(key))
+                        ? expected.remove(key) : null;
+                assertEquals(removed, m.remove(key, value == null ? -1 : value));
+            } else if (op == 4) {
+                assertEquals(expected.get(key), m.get(key));
+                assertEquals(expected.containsKey(key), m.containsKey(key));
+                assertEquals(expected.floorKey(key), m.floorKey(key));
+                assertEquals(expected.ceilingKey(key), m.ceilingKey(key));
+            } else {
+                int hi = key + r.nextInt(100);
+                List<Integer> keys = new ArrayList<>();
+                for (int k : m.keys(key, hi)) {
+                    keys.add(k);
+                }
+                assertEquals(new ArrayList<>(expected.subMap(key, true, hi, true).keySet()), keys);
+            }
+            assertEquals(expected.size(), m.size());
+        }
+        assertEquals(expected.keySet(), m.keySet());
+        m.clear();
+        assertEquals(0, m.size());
+        assertFalse(m.iterator().hasNext());
+    }
+
+    /** Each thread puts and removes its own keys, interleaved with the others'. */
+    @Test
+    public void disjointWritersWithReaders() throws InterruptedException {
+        LockFreeSkipListMap<Integer, Integer> m = new LockFreeSkipListMap<>();
+        int threads = 4;
+        int perThread = 20000;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < perThread; i++) {
+                        int key = i * threads + id;
+                        m.put(key, i);
+                        /* Another thread's keys are either absent or right. */
+                        Integer other = m.get(i * threads + (id + 1) % threads);
+                        assertTrue(other == null || other == i);
+                        assertEquals(Integer.valueOf(i), m.get(key));
+                    }
+                    for (int i = 0; i < perThread; i += 2) {
+                        assertEquals(Integer.valueOf(i), m.remove(i * threads + id));
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int t = 0; t < threads; t++) {
+            for (int i = 1; i < perThread; i += 2) {
+                expected.add(i * threads + t);
+            }
+        }
+        assertEquals(expected.size(), m.size());
+        List<Integer> keys = new ArrayList<>();
+        for (int key : m) {
+            keys.add(key);
+        }
+        assertEquals(new ArrayList<>(expected), keys);
+    }
+
+    /** Threads race to put and remove the same few keys. */
+    @Test
+    public void contendedKeysKeepSizeConsistent() throws InterruptedException {
+        LockFreeSkipListMap<Integer, Integer> m = new LockFreeSkipListMap<>();
+        Thread[] workers = new Thread[4];
+        for (int t = 0; t < workers.length; t++) {
+            Random r = new Random(t);
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < 50000; i++) {
+                    int key = r.nextInt(200);
+                    if (r.nextBoolean()) {
+                        m.put(key, key);
+                    } else {
+                        m.remove(key);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(m.keySet().size(), m.size());
+        for (int key : m) {
+            assertEquals(Integer.valueOf(key), m.get(key));
+        }
+    }
+
+    /** Iterators see keys in order, and every key no writer touches, while writers run. */
+    @Test
+    public void iteratorsStaySortedUnderWriters() throws InterruptedException {
+        LockFreeSkipListMap<Integer, Integer> m = new LockFreeSkipListMap<>();
+        for (int i = 0; i < 1000; i += 2) {
+            m.put(i, i);
+        }
+        Thread writer = new Thread(() -> {
+            Random r = new Random(4);
+            for (int i = 0; i < 200000; i++) {
+                int key = 2 * r.nextInt(500) + 1;
+                if (r.nextBoolean()) {
+                    m.put(key, key);
+                } else {
+                    m.remove(key);
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            int last = -1;
+            int evens = 0;
+            for (int key : m) {
+                assertTrue(key > last);
+                last = key;
+                if (key % 2 == 0) {
+                    evens += 1;
+                }
+            }
+            assertEquals(500, evens);
+        }
+        writer.join();
+    }
+}
@@ -0,0 +1,163 @@
+package bstmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+/** Tests of PersistentTreeMap and PersistentMap61B against java.util.TreeMap. */
+public class TestPersistentTreeMap {
+
+    @Test
+    public void randomizedAgainstTreeMap() {
+        Random r = new Random(43);
+        PersistentTreeMap<Integer, Integer> m = PersistentTreeMap.empty();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 100000; i++) {
+            int key = r.nextInt(2000);
+            int op = r.nextInt(5);
+            if (op <= 1) {
+                m = m.put(key, i);
+                expected.put(key, i);
+            } else if (op == 2) {
+                m = m.remove(key);
+                expected.remove(key);
+            } else if (op == 3) {
+                assertEquals(expected.get(key), m.get(key));
+                assertEquals(expected.floorKey(key), m.floorKey(key));
+                assertEquals(expected.ceilingKey(key), m.ceilingKey(key));
+            } else {
+                int hi = key + r.nextInt(100);
+                assertEquals(new ArrayList<>(expected.subMap(key, true, hi, true).keySet()),
+                        toList(m.keys(key, hi)));
+            }
+            assertEquals(expected.size(), m.size());
+            if (i % 1000 == 0) {
+                assertFalse(m.root != null && m.root.red);
+                blackHeight(m.root);
+            }
+        }
+        assertEquals(new ArrayList<>(expected.keySet()), toList(m));
+    }
+
+    /** Every old version keeps the entries it had when it was made. */
+    @Test
+    public void oldVersionsNeverChange() {
+        Random r = new Random(430);
+        List<PersistentTreeMap<Integer, Integer>> versions = new ArrayList<>();
+        List<TreeMap<Integer, Integer>> copies = new ArrayList<>();
+        PersistentTreeMap<Integer, Integer> m = PersistentTreeMap.empty();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 5000; i++) {
+            int key = r.nextInt(500);
+            if (r.nextInt(3) == 0) {
+                m = m.remove(key);
+                expected.remove(key);
+            } else {
+                m = m.put(key, i);
+                expected.put(key, i);
+            }
+            if (i % 50 == 0) {
+                versions.add(m);
+                copies.add(new TreeMap<>(expected));
+            }
+        }
+        for (int v = 0; v < versions.size(); v++) {
+            PersistentTreeMap<Integer, Integer> version = versions.get(v);
+            TreeMap<Integer, Integer> copy = copies.get(v);
+            assertEquals(copy.size(), version.size());
+            assertEquals(new ArrayList<>(copy.keySet()), toList(version));
+            for (int key : copy.keySet()) {
+                assertEquals(copy.get(key), version.get(key));
+            }
+            blackHeight(version.root);
+        }
+    }
+
+    @Test
+    public void unchangedMapsAreReused() {
+        PersistentTreeMap<String, String> m = PersistentTreeMap.<String, String>empty().put("a", "x");
+        assertSame(m, m.put("a", "x"));
+        assertSame(m, m.remove("b"));
+        assertTrue(m.remove("a").isEmpty());
+        assertTrue(PersistentTreeMap.<String, String>empty().isEmpty());
+    }
+
+    @Test
+    public void snapshotIgnoresLaterWrites() {
+        PersistentMap61B<Integer, Integer> m = new PersistentMap61B<>();
+        for (int i = 0; i < 1000; i++) {
+            m.put(i, i);
+        }
+        PersistentTreeMap<Integer, Integer> snapshot = m.snapshot();
+        for (int i = 0; i < 1000; i += 2) {
+            assertEquals(Integer.valueOf(i), m.remove(i));
+        }
+        m.put(5000, 5000);
+        assertNull(m.remove(1, 2));
+        assertEquals(Integer.valueOf(1), m.remove(1, 1));
+        assertEquals(1000, snapshot.size());
+        assertEquals(Integer.valueOf(0), snapshot.get(0));
+        assertNull(snapshot.get(5000));
+        assertEquals(500, m.size());
+        assertEquals(Integer.valueOf(3), m.ceilingKey(0));
+        assertEquals(Integer.valueOf(999), m.floorKey(4999));
+        m.clear();
+        assertEquals(0, m.size());
+        assertEquals(1000, snapshot.size());
+    }
+
+    /** A reader iterating over a snapshot sees one version throughout. */
+    @Test
+    public void snapshotsAreConsistentUnderWriters() throws InterruptedException {
+        PersistentMap61B<Integer, Integer> m = new PersistentMap61B<>();
+        int n = 2000;
+        for (int i = 0; i < n; i++) {
+            m.put(i, 0);
+        }
+        /* The writer bumps every value in turn; a version has at most two values. */
+        Thread writer = new Thread(() -> {
+            for (int round = 1; round <= 20; round++) {
+                for (int i = 0; i < n; i++) {
+                    m.put(i, round);
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            PersistentTreeMap<Integer, Integer> snapshot = m.snapshot();
+            int count = 0;
+            int last = Integer.MAX_VALUE;
+            for (int key : snapshot) {
+                int value = snapshot.get(key);
+                assertTrue("values only go down with the key", value <= last);
+                last = value;
+                count += 1;
+            }
+            assertEquals(n, count);
+        }
+        writer.join();
+    }
+
+    private static List<Integer> toList(Iterable<Integer> keys) {
+        List<Integer> list = new ArrayList<>();
+        for (int k : keys) {
+            list.add(k);
+        }
+        return list;
+    }
+
+    private static int blackHeight(PersistentTreeMap.Node<Integer, Integer> x) {
+        if (x == null) {
+            return 0;
+        }
+        assertFalse("right-leaning red link", x.right != null && x.right.red);
+        assertFalse("two reds in a row", x.red && x.left != null && x.left.red);
+        int left = blackHeight(x.left);
+        assertEquals("unequal black heights", left, blackHeight(x.right));
+        return left + (x.red ? 0 : 1);
+    }
+}
@@ -0,0 +1,66 @@
+package bstmap.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bstmap.Map61B;
+
+import java.util.concurrent.TimeUnit;
+
+/** Time to put N keys into an empty map: what InsertRandomSpeedTest
+ *  (keys=random) and InsertInOrderSpeedTest (keys=inorder) measure, with
+ *  warm-up, forks and the keys made ahead of time. Divide the score by N
+ *  for the time per put.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FillBenchmark {
+
+    /** The Map61B implementation, by class name. */
+    @Param({"ULLMap", "BSTMap", "LLRBMap", "AVLMap", "BTreeMap",
+            "PersistentMap61B", "LockFreeSkipListMap"})
+    public String impl;
+
+    /** Number of keys. ULLMap overflows the stack past about 30000. */
+    @Param({"1000", "10000"})
+    public int n;
+
+    /** Key length. */
+    @Param({"10"})
+    public int length;
+
+    /** How keys are chosen: "random" or "inorder". */
+    @Param({"random", "inorder"})
+    public String keys;
+
+    private String[] keyArray;
+    private Integer[] values;
+
+    @Setup
+    public void generate() {
+        keyArray = Keys.generate(keys, n, length);
+        values = Keys.values(n);
+    }
+
+    @Benchmark
+    public Map61B<String, Integer> fill() {
+        Map61B<String, Integer> map = Maps.create(impl);
+        for (int i = 0; i < keyArray.length; i += 1) {
+            map.put(keyArray[i], values[i]);
+        }
+        return map;
+    }
+}
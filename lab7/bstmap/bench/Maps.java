@@ -0,0 +1,40 @@
+package bstmap.bench;
+
+import bstmap.AVLMap;
+import bstmap.BSTMap;
+import bstmap.BTreeMap;
+import bstmap.LLRBMap;
+import bstmap.LockFreeSkipListMap;
+import bstmap.Map61B;
+import bstmap.PersistentMap61B;
+import bstmap.ULLMap;
+
+/** Makes an empty map of each Map61B implementation, by class name, for
+ *  the impl parameter of the benchmarks.
+ */
+final class Maps {
+
+    private Maps() {
+    }
+
+    static Map61B<String, Integer> create(String impl) {
+        switch (impl) {
+            case "ULLMap":
+                return new ULLMap<>();
+            case "BSTMap":
+                return new BSTMap<>();
+            case "LLRBMap":
+                return new LLRBMap<>();
+            case "AVLMap":
+                return new AVLMap<>();
+            case "BTreeMap":
+                return new BTreeMap<>();
+            case "PersistentMap61B":
+                return new PersistentMap61B<>();
+            case "LockFreeSkipListMap":
+                return new LockFreeSkipListMap<>();
+            default:
+                throw new IllegalArgumentException("unknown map " + impl);
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package hashmap;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ *  A bucketized cuckoo hash map: every key may live in one of two
+ *  buckets of four slots, picked by two hash functions, or in a small
+ *  stash. A lookup checks at most those eight slots and the stash, so it
+ *  takes constant time in the worst case, not only on average.
+ *
+ *  An insertion into two full buckets evicts an entry at random from one
+ *  of them and moves it to its other bucket, evicting in turn, for up to
+ *  MAX_KICKS moves. An entry still homeless after that goes to the stash.
+ *  A full stash means the hash functions have made a cycle, so the table
+ *  is rehashed with new ones, and doubled if rehashing keeps failing. The
+ *  table also doubles when the load factor would exceed maxLoad; two
+ *  choices of four slots stay insertable up to about 0.95.
+ *
+ *  Keys with equal hashCodes share both buckets, which no rehash can
+ *  change; when more of them than fit arrive in a sparse table the stash
+ *  grows instead, and lookups of those keys slow down with it.
+ *
+ *  Assumes null keys will never be inserted.
+ *  @author Shuyuan Wang
+ */
+public class CuckooHashMap<K, V> implements Map61B<K, V> {
+
+    private static final int SLOTS_PER_BUCKET = 4;
+    private static final int DEFAULT_SIZE = 16;
+    private static final double DEFAULT_MAX_LOAD = 0.9;
+    private static final int STASH_SIZE = 4;
+    /** The most evictions one insertion may make before using the stash. */
+    private static final int MAX_KICKS = 256;
+    /** The most rehashes with new functions before the table is doubled. */
+    private static final int MAX_REHASHES = 4;
+
+    /** Slots 4b to 4b + 3 make up bucket b; a free slot has a null key. */
+    private Object[] keys;
+    private Object[] values;
+    /** The spread hash of each key, to skip most equals() calls. */
+    private int[] hashes;
+    /** log2 of the number of buckets. */
+    private int bits;
+    private int seed0;
+    private int seed1;
+    private Object[] stashKeys;
+    private Object[] stashValues;
+    private int stashSize;
+    /** The entry the last failed insert() could not place. */
+    private Object homelessKey;
+    private Object homelessValue;
+    private int size;
+    private int rehashes;
+    private final double maxLoad;
+    /** Xorshift state for picking which entry to evict. */
+    private int random = 0x61B;
+
+    public CuckooHashMap() {
+        this(DEFAULT_SIZE, DEFAULT_MAX_LOAD);
+    }
+
+    public CuckooHashMap(int initialSize) {
+        this(initialSize, DEFAULT_MAX_LOAD);
+    }
+
+    /**
+     * @param initialSize the number of slots, rounded up to a power of two
+     *                    of at least two buckets
+     * @param maxLoad maximum load factor, at most 1
+     */
+    public CuckooHashMap(int initialSize, double maxLoad) {
+        if (initialSize < 1 || maxLoad <= 0 || maxLoad > 1) {
+            throw new IllegalArgumentException();
+        }
+        this.maxLoad = maxLoad;
+        int buckets = Math.max(2, (initialSize + SLOTS_PER_BUCKET - 1) / SLOTS_PER_BUCKET);
+        allocate(32 - Integer.numberOfLeadingZeros(buckets - 1));
+        stashKeys = new Object[STASH_SIZE];
+        stashValues = new Object[STASH_SIZE];
+        newSeeds();
+    }
+
+    private void allocate(int newBits) {
+        bits = newBits;
+        keys = new Object[SLOTS_PER_BUCKET << bits];
+        values = new Object[SLOTS_PER_BUCKET << bits];
+        hashes = new int[SLOTS_PER_BUCKET << bits];
+    }
+
+    private int nextRandom() {
+        random ^= random << 13;
+        random ^= random >>> 17;
+        random ^= random << 5;
+        return random;
+    }
+
+    private void newSeeds() {
+        seed0 = nextRandom();
+        seed1 = nextRandom();
+    }
+
+    private static int spread(Object key) {
+        return key.hashCode() * 0x9E3779B9;
+    }
+
+    /** Mixes H with SEED into the high bits, which pick the bucket. */
+    private int bucket(int h, int seed) {
+        h ^= seed;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        return h >>> (32 - bits);
+    }
+
+    private int bucket0(int hash) {
+        return bucket(hash, seed0);
+    }
+
+    private int bucket1(int hash) {
+        return bucket(hash, seed1);
+    }
+
+    /** Returns the slot of KEY in BUCKET, or -1. */
+    private int findIn(int bucket, Object key, int hash) {
+        int first = bucket * SLOTS_PER_BUCKET;
+        for (int i = first; i < first + SLOTS_PER_BUCKET; i += 1) {
+            if (hashes[i] == hash && keys[i] != null && keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns the slot holding KEY, or -1. */
+    private int find(Object key, int hash) {
+        int i = findIn(bucket0(hash), key, hash);
+        return i >= 0 ? i : findIn(bucket1(hash), key, hash);
+    }
+
+    /** Returns the index of KEY in the stash, or -1. */
+    private int findInStash(Object key) {
+        for (int j = 0; j < stashSize; j += 1) {
+            if (stashKeys[j].equals(key)) {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns a free slot of BUCKET, or -1. */
+    private int freeIn(int bucket) {
+        int first = bucket * SLOTS_PER_BUCKET;
+        for (int i = first; i < first + SLOTS_PER_BUCKET; i += 1) {
+            if (keys[i] == null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void set(int i, Object key, Object value, int hash) {
+        keys[i] = key;
+        values[i] = value;
+        hashes[i] = hash;
+    }
+
+    /**
+     * Places KEY, known to be absent, with VALUE and HASH in the table,
+     * evicting entries along the way. Returns true, or returns false with
+     * the entry left over in homelessKey and homelessValue if MAX_KICKS
+     * ran out.
+     */
+    private boolean insert(Object key, Object value, int hash) {
+        int bucket = bucket0(hash);
+        int free = freeIn(bucket);
+        if (free < 0) {
+            bucket = bucket1(hash);
+            free = freeIn(bucket);
+        }
+        for (int kick = 0; free < 0 && kick < MAX_KICKS; kick += 1) {
+            /* Swap in for a random entry of the full bucket, which moves on
+             * to its other bucket. */
+            int victim = bucket * SLOTS_PER_BUCKET + (nextRandom() & (SLOTS_PER_BUCKET - 1));
+            Object k = keys[victim];
+            Object v = values[victim];
+            int h = hashes[victim];
+            set(victim, key, value, hash);
+            key = k;
+            value = v;
+            hash = h;
+            bucket = bucket == bucket0(hash) ? bucket1(hash) : bucket0(hash);
+            free = freeIn(bucket);
+        }
+        if (free < 0) {
+            homelessKey = key;
+            homelessValue = value;
+            return false;
+        }
+        set(free, key, value, hash);
+        return true;
+    }
+
+    /** Places KEY, known to be absent, with VALUE in the table or the stash. */
+    private void place(Object key, Object value) {
+        if (insert(key, value, spread(key))) {
+            return;
+        }
+        if (stashSize < stashKeys.length) {
+            stashKeys[stashSize] = homelessKey;
+            stashValues[stashSize] = homelessValue;
+            stashSize += 1;
+        } else {
+            rehashes += 1;
+            rebuild(bits, homelessKey, homelessValue);
+        }
+        homelessKey = null;
+        homelessValue = null;
+    }
+
+    /**
+     * Moves every entry, and EXTRAKEY with EXTRAVALUE unless null, into a
+     * table of at least 1 << NEWBITS buckets with new hash functions,
+     * trying again until no more than a stash full is left homeless. After
+     * MAX_REHASHES failures in a row the table is doubled, unless it is
+     * under an eighth full, which doubling cannot help; the stash grows
+     * instead.
+     */
+    private void rebuild(int newBits, Object extraKey, Object extraValue) {
+        int count = size + (extraKey == null ? 0 : 1);
+        Object[] entryKeys = new Object[count];
+        Object[] entryValues = new Object[count];
+        int n = 0;
+        for (int i = 0; i < keys.length; i += 1) {
+            if (keys[i] != null) {
+                entryKeys[n] = keys[i];
+                entryValues[n] = values[i];
+                n += 1;
+            }
+        }
+        for (int j = 0; j < stashSize; j += 1) {
+            entryKeys[n] = stashKeys[j];
+            entryValues[n] = stashValues[j];
+            n += 1;
+        }
+        if (extraKey != null) {
+            entryKeys[n] = extraKey;
+            entryValues[n] = extraValue;
+        }
+        boolean growStash = false;
+        for (int tries = 1; !tryRebuild(newBits, entryKeys, entryValues, growStash); tries += 1) {
+            if (tries % MAX_REHASHES == 0) {
+                if (count < (SLOTS_PER_BUCKET << newBits) / 8) {
+                    growStash = true;
+                } else {
+                    newBits += 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts ENTRYKEYS with ENTRYVALUES into an empty table of 1 << NEWBITS
+     * buckets with new hash functions. Returns false if the stash fills up,
+     * unless GROWSTASH, in which case it is made bigger.
+     */
+    private boolean tryRebuild(int newBits, Object[] entryKeys, Object[] entryValues,
+                               boolean growStash) {
+        allocate(newBits);
+        newSeeds();
+        stashKeys = new Object[STASH_SIZE];
+        stashValues = new Object[STASH_SIZE];
+        stashSize = 0;
+        for (int n = 0; n < entryKeys.length; n += 1) {
+            if (insert(entryKeys[n], entryValues[n], spread(entryKeys[n]))) {
+                continue;
+            }
+            if (stashSize == stashKeys.length) {
+                if (!growStash) {
+                    return false;
+                }
+                stashKeys = Arrays.copyOf(stashKeys, stashSize * 2);
+                stashValues = Arrays.copyOf(stashValues, stashSize * 2);
+            }
+            stashKeys[stashSize] = homelessKey;
+            stashValues[stashSize] = homelessValue;
+            stashSize += 1;
+        }
+        return true;
+    }
+
+    /** Moves stash entries into the table while there is room for them. */
+    private void drainStash() {
+        for (int j = stashSize - 1; j >= 0; j -= 1) {
+            int hash = spread(stashKeys[j]);
+            int free = freeIn(bucket0(hash));
+            if (free < 0) {
+                free = freeIn(bucket1(hash));
+            }
+            if (free >= 0) {
+                set(free, stashKeys[j], stashValues[j], hash);
+                deleteFromStash(j);
+            }
+        }
+    }
+
+    private void deleteFromStash(int j) {
+        stashSize -= 1;
+        stashKeys[j] = stashKeys[stashSize];
+        stashValues[j] = stashValues[stashSize];
+        stashKeys[stashSize] = null;
+        stashValues[stashSize] = null;
+    }
+
+    /** Returns the number of slots in the table, not counting the stash. */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /** Returns the number of entries in the stash. */
+    public int stashSize() {
+        return stashSize;
+    }
+
+    /** Returns how many times the table has been rebuilt after a failed insertion. */
+    public int rehashes() {
+        return rehashes;
+    }
+
+    @Override
+    public void clear() {
+        allocate(1);
+        stashKeys = new Object[STASH_SIZE];
+        stashValues = new Object[STASH_SIZE];
+        stashSize = 0;
+        size = 0;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return find(key, spread(key)) >= 0 || findInStash(key) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        int i = find(key, spread(key));
+        if (i >= 0) {
+            return (V) values[i];
+        }
+        int j = findInStash(key);
+        return j < 0 ? null : (V) stashValues[j];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        int i = find(key, spread(key));
+        if (i >= 0) {
+            values[i] = value;
+            return;
+        }
+        int j = findInStash(key);
+        if (j >= 0) {
+            stashValues[j] = value;
+            return;
+        }
+        if (size + 1 > maxLoad * keys.length) {
+            rebuild(bits + 1, null, null);
+        }
+        place(key, value);
+        size += 1;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> set = new HashSet<>();
+        for (K key : this) {
+            set.add(key);
+        }
+        return set;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int i = find(key, spread(key));
+        V old;
+        if (i >= 0) {
+            old = (V) values[i];
+            keys[i] = null;
+            values[i] = null;
+        } else {
+            int j = findInStash(key);
+            if (j < 0) {
+                return null;
+            }
+            old = (V) stashValues[j];
+            deleteFromStash(j);
+        }
+        size -= 1;
+        if (stashSize > 0) {
+            drainStash();
+        }
+        return old;
+    }
+
+    @Override
+    public V remove(K key, V value) {
+        V old = get(key);
+        if (old == null || !old.equals(value)) {
+            return null;
+        }
+        return remove(key);
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new Iterator<K>() {
+            /* Slots first, then the stash. */
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < keys.length && keys[from] == null) {
+                    from += 1;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < keys.length + stashSize;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public K next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                K key;
+                if (next < keys.length) {
+                    key = (K) keys[next];
+                    next = advance(next + 1);
+                } else {
+                    key = (K) stashKeys[next - keys.length];
+                    next += 1;
+                }
+                return key;
+            }
+        };
+    }
+}
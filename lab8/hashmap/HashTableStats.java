@@ -0,0 +1,22 @@
+package hashmap;
+
+/**
+ * A hash table that can describe its own shape, so that InstrumentedMap61B
+ * and the speed tests can show why it is fast or slow. Computing these
+ * costs nothing until they are asked for.
+ * @author Shuyuan Wang
+ */
+public interface HashTableStats {
+    /** Returns the number of buckets, or slots, in the table. */
+    int capacity();
+
+    /** Returns the number of times the table has grown. */
+    int resizeCount();
+
+    /**
+     * Returns how the entries are spread over the table. For separate
+     * chaining, element d counts the buckets holding d entries; for open
+     * addressing, the entries d slots past their home slot.
+     */
+    int[] occupancyHistogram();
+}
@@ -0,0 +1,240 @@
+package hashmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ *  A Map61B that passes every call through to another one, counting the
+ *  calls and timing each into a LatencyHistogram per operation. When the
+ *  map underneath is a HashTableStats, it also notes every resize: the
+ *  capacities before and after, the size, and how long the put that set
+ *  it off took. report() sums all this up, with the load factor and the
+ *  occupancy histogram, to show why a map is slow.
+ *
+ *  Recording can be switched off and on at any time. While it is off a
+ *  call costs one field check more than calling the map directly, so a
+ *  map can be left wrapped in production and switched on to look at it.
+ *  Not thread-safe, as the maps it wraps are not.
+ *  @author Shuyuan Wang
+ */
+public class InstrumentedMap61B<K, V> implements Map61B<K, V> {
+
+    /** The operations that are counted and timed. */
+    public enum Op { GET, PUT, CONTAINS_KEY, REMOVE }
+
+    /** A resize of the wrapped table, seen from the outside. */
+    public static final class ResizeEvent {
+        /** The capacity before the resize. */
+        public final int from;
+        /** The capacity after the resize. */
+        public final int to;
+        /** The number of entries after the put that set it off. */
+        public final int size;
+        /** How long that put took, in nanoseconds. */
+        public final long nanos;
+
+        ResizeEvent(int from, int to, int size, long nanos) {
+            this.from = from;
+            this.to = to;
+            this.size = size;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d -> %d at size %d, %dns", from, to, size, nanos);
+        }
+    }
+
+    private final Map61B<K, V> map;
+    /** MAP, if it can describe its table, or null. */
+    private final HashTableStats stats;
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Op.values().length];
+    private final List<ResizeEvent> resizes = new ArrayList<>();
+    private int lastCapacity;
+    private boolean enabled;
+
+    /** Wraps MAP, recording from the start. */
+    public InstrumentedMap61B(Map61B<K, V> map) {
+        this(map, true);
+    }
+
+    /** Wraps MAP, recording from the start if ENABLED. */
+    public InstrumentedMap61B(Map61B<K, V> map, boolean enabled) {
+        this.map = map;
+        this.stats = map instanceof HashTableStats ? (HashTableStats) map : null;
+        for (int i = 0; i < latencies.length; i += 1) {
+            latencies[i] = new LatencyHistogram();
+        }
+        setEnabled(enabled);
+    }
+
+    /** Starts recording if ENABLED, else stops, keeping what was recorded. */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (enabled && stats != null) {
+            lastCapacity = stats.capacity();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Returns the map underneath. */
+    public Map61B<K, V> delegate() {
+        return map;
+    }
+
+    /** Returns the number of calls of OP recorded. */
+    public long count(Op op) {
+        return latencies[op.ordinal()].count();
+    }
+
+    /** Returns the latencies of the calls of OP recorded, in nanoseconds. */
+    public LatencyHistogram latencies(Op op) {
+        return latencies[op.ordinal()];
+    }
+
+    /** Returns the resizes seen while recording, oldest first. */
+    public List<ResizeEvent> resizes() {
+        return Collections.unmodifiableList(resizes);
+    }
+
+    /** Forgets everything recorded so far. */
+    public void reset() {
+        for (LatencyHistogram histogram : latencies) {
+            histogram.reset();
+        }
+        resizes.clear();
+    }
+
+    /**
+     * Returns a summary of everything recorded, with the table's capacity,
+     * load factor, resize count and occupancy histogram if the map can
+     * describe its table.
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder(map.getClass().getName()).append('\n');
+        report.append("  size ").append(map.size());
+        if (stats != null) {
+            report.append(String.format(", capacity %d, load %.2f, resizes %d",
+                    stats.capacity(), (double) map.size() / stats.capacity(),
+                    stats.resizeCount()));
+        }
+        report.append('\n');
+        for (Op op : Op.values()) {
+            if (count(op) > 0) {
+                report.append("  ").append(op).append(": ").append(latencies(op)).append('\n');
+            }
+        }
+        for (ResizeEvent event : resizes) {
+            report.append("  resize ").append(event).append('\n');
+        }
+        if (stats != null) {
+            report.append("  occupancy ").append(Arrays.toString(stats.occupancyHistogram()))
+                    .append('\n');
+        }
+        return report.toString();
+    }
+
+    private void record(Op op, long start) {
+        latencies[op.ordinal()].record(System.nanoTime() - start);
+    }
+
+    /** Notes a resize if the put that started at START changed the capacity. */
+    private void checkResize(long start) {
+        if (stats == null) {
+            return;
+        }
+        int capacity = stats.capacity();
+        if (capacity != lastCapacity) {
+            resizes.add(new ResizeEvent(lastCapacity, capacity, map.size(),
+                    System.nanoTime() - start));
+            lastCapacity = capacity;
+        }
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+        if (enabled && stats != null) {
+            lastCapacity = stats.capacity();
+        }
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        if (!enabled) {
+            return map.containsKey(key);
+        }
+        long start = System.nanoTime();
+        boolean found = map.containsKey(key);
+        record(Op.CONTAINS_KEY, start);
+        return found;
+    }
+
+    @Override
+    public V get(K key) {
+        if (!enabled) {
+            return map.get(key);
+        }
+        long start = System.nanoTime();
+        V value = map.get(key);
+        record(Op.GET, start);
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public void put(K key, V value) {
+        if (!enabled) {
+            map.put(key, value);
+            return;
+        }
+        long start = System.nanoTime();
+        map.put(key, value);
+        record(Op.PUT, start);
+        checkResize(start);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return map.keySet();
+    }
+
+    @Override
+    public V remove(K key) {
+        if (!enabled) {
+            return map.remove(key);
+        }
+        long start = System.nanoTime();
+        V value = map.remove(key);
+        record(Op.REMOVE, start);
+        return value;
+    }
+
+    @Override
+    public V remove(K key, V value) {
+        if (!enabled) {
+            return map.remove(key, value);
+        }
+        long start = System.nanoTime();
+        V old = map.remove(key, value);
+        record(Op.REMOVE, start);
+        return old;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return map.iterator();
+    }
+}
@@ -0,0 +1,247 @@
+package hashmap;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ *  An open-addressing hash map from int to int. Keys and values sit in two
+ *  parallel int arrays, so an entry costs 8 bytes of table and no Node,
+ *  bucket or boxed Integer.
+ *
+ *  Slots are probed linearly from the key's home slot, which comes from
+ *  Fibonacci hashing into a power-of-two table. remove() shifts the
+ *  following entries back instead of leaving tombstones, so lookups never
+ *  slow down after deletions. Key 0 marks a free slot, so the mapping for
+ *  0 is kept in its own fields.
+ *
+ *  The Map61B methods box; the int overloads (getOrDefault, containsKey,
+ *  put, removeOrDefault) do not.
+ *  @author Shuyuan Wang
+ */
+public class IntIntMap implements Map61B<Integer, Integer> {
+
+    private static final int DEFAULT_SIZE = 16;
+    private static final double DEFAULT_MAX_LOAD = 0.75;
+    private static final int FREE = 0;
+
+    private int[] keys;
+    private int[] values;
+    /** log2 of the table length. */
+    private int bits;
+    /** The number of entries in the table, not counting key 0. */
+    private int tableSize;
+    private boolean hasZero;
+    private int zeroValue;
+    private final double maxLoad;
+
+    public IntIntMap() {
+        this(DEFAULT_SIZE, DEFAULT_MAX_LOAD);
+    }
+
+    public IntIntMap(int initialSize) {
+        this(initialSize, DEFAULT_MAX_LOAD);
+    }
+
+    /**
+     * @param initialSize the number of slots, rounded up to a power of two
+     * @param maxLoad maximum load factor, below 1
+     */
+    public IntIntMap(int initialSize, double maxLoad) {
+        if (initialSize < 1 || maxLoad <= 0 || maxLoad >= 1) {
+            throw new IllegalArgumentException();
+        }
+        this.maxLoad = maxLoad;
+        allocate(Math.max(1, 32 - Integer.numberOfLeadingZeros(initialSize - 1)));
+    }
+
+    private void allocate(int newBits) {
+        bits = newBits;
+        keys = new int[1 << bits];
+        values = new int[1 << bits];
+    }
+
+    /** Returns the home slot of KEY. */
+    private int slot(int key) {
+        return (key * 0x9E3779B9) >>> (32 - bits);
+    }
+
+    /** Returns the slot holding KEY, or -1. KEY must not be 0. */
+    private int find(int key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+            if (keys[i] == FREE) {
+                return -1;
+            }
+        }
+    }
+
+    /** Returns the value for KEY, or DEFAULTVALUE if there is none. */
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == FREE) {
+            return hasZero ? zeroValue : defaultValue;
+        }
+        int i = find(key);
+        return i < 0 ? defaultValue : values[i];
+    }
+
+    public boolean containsKey(int key) {
+        return key == FREE ? hasZero : find(key) >= 0;
+    }
+
+    public void put(int key, int value) {
+        if (key == FREE) {
+            hasZero = true;
+            zeroValue = value;
+            return;
+        }
+        int mask = keys.length - 1;
+        int i = slot(key);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        tableSize += 1;
+        if (tableSize > maxLoad * keys.length) {
+            rehash(bits + 1);
+        }
+    }
+
+    /** Removes KEY. Returns its value, or DEFAULTVALUE if there was none. */
+    public int removeOrDefault(int key, int defaultValue) {
+        if (key == FREE) {
+            if (!hasZero) {
+                return defaultValue;
+            }
+            hasZero = false;
+            return zeroValue;
+        }
+        int i = find(key);
+        if (i < 0) {
+            return defaultValue;
+        }
+        int old = values[i];
+        deleteAt(i);
+        return old;
+    }
+
+    /** Empties slot I, moving back any later entries of the same probe run
+     *  that may not stay behind a gap. */
+    private void deleteAt(int i) {
+        int mask = keys.length - 1;
+        for (int j = (i + 1) & mask; keys[j] != FREE; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = FREE;
+        tableSize -= 1;
+    }
+
+    private void rehash(int newBits) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newBits);
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j += 1) {
+            if (oldKeys[j] != FREE) {
+                int i = slot(oldKeys[j]);
+                while (keys[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        allocate(Math.max(1, 32 - Integer.numberOfLeadingZeros(DEFAULT_SIZE - 1)));
+        tableSize = 0;
+        hasZero = false;
+    }
+
+    @Override
+    public boolean containsKey(Integer key) {
+        return containsKey(key.intValue());
+    }
+
+    @Override
+    public Integer get(Integer key) {
+        return containsKey(key.intValue()) ? getOrDefault(key, 0) : null;
+    }
+
+    @Override
+    public int size() {
+        return tableSize + (hasZero ? 1 : 0);
+    }
+
+    @Override
+    public void put(Integer key, Integer value) {
+        put(key.intValue(), value.intValue());
+    }
+
+    @Override
+    public Set<Integer> keySet() {
+        Set<Integer> set = new HashSet<>();
+        for (Integer key : this) {
+            set.add(key);
+        }
+        return set;
+    }
+
+    @Override
+    public Integer remove(Integer key) {
+        return containsKey(key.intValue()) ? removeOrDefault(key, 0) : null;
+    }
+
+    @Override
+    public Integer remove(Integer key, Integer value) {
+        if (!containsKey(key.intValue()) || getOrDefault(key, 0) != value) {
+            return null;
+        }
+        return removeOrDefault(key, 0);
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private int next = hasZero ? -1 : advance(0);
+
+            private int advance(int from) {
+                while (from < keys.length && keys[from] == FREE) {
+                    from += 1;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < keys.length;
+            }
+
+            @Override
+            public Integer next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int key = next < 0 ? FREE : keys[next];
+                next = advance(next + 1);
+                return key;
+            }
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package hashmap;
+
+import java.util.Arrays;
+
+/**
+ *  A histogram of non-negative longs, such as latencies in nanoseconds,
+ *  laid out the way HdrHistogram lays them out: values below 2^SUB_BITS
+ *  get a bucket each, and every power of two above that is split into
+ *  2^SUB_BITS equal buckets. So every value is counted to within about 3%
+ *  in a fixed array of under 2000 counts, and record() is a few shifts
+ *  and an increment, allocating nothing.
+ *  @author Shuyuan Wang
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    private final long[] counts = new long[(64 - SUB_BITS) * SUB_COUNT];
+    private long count;
+    private long sum;
+    private long max;
+
+    /** Returns the bucket VALUE is counted in. */
+    private static int index(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_COUNT + (int) ((value >>> shift) - SUB_COUNT);
+    }
+
+    /** Returns the largest value counted in bucket I. */
+    private static long highestIn(int i) {
+        if (i < SUB_COUNT) {
+            return i;
+        }
+        int shift = i / SUB_COUNT - 1;
+        long sub = i % SUB_COUNT + SUB_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /** Counts VALUE; a negative one counts as 0. */
+    public void record(long value) {
+        value = Math.max(value, 0);
+        counts[index(value)] += 1;
+        count += 1;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    /** Returns the number of values counted. */
+    public long count() {
+        return count;
+    }
+
+    /** Returns the largest value counted, exactly, or 0. */
+    public long max() {
+        return max;
+    }
+
+    /** Returns the mean of the values counted, or 0. */
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns the Pth percentile, 0 < P <= 100: the smallest value at least
+     * P% of the counted values are no greater than, to within the width
+     * of its bucket. Returns 0 if nothing has been counted.
+     */
+    public long percentile(double p) {
+        if (p <= 0 || p > 100) {
+            throw new IllegalArgumentException("percentile " + p);
+        }
+        long rank = Math.max(1, (long) Math.ceil(p / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length && count > 0; i += 1) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestIn(i), max);
+            }
+        }
+        return 0;
+    }
+
+    /** Forgets every value counted. */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    /** Returns the count, mean, p50, p99, p99.9 and max, in nanoseconds. */
+    @Override
+    public String toString() {
+        return String.format("count %d, mean %.0fns, p50 %dns, p99 %dns, p99.9 %dns, max %dns",
+                count, mean(), percentile(50), percentile(99), percentile(99.9), max);
+    }
+}
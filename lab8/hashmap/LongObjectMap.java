@@ -0,0 +1,243 @@
+package hashmap;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ *  An open-addressing hash map from long to objects: a long[] of keys
+ *  beside an Object[] of values, probed the same way as IntIntMap. Key 0
+ *  marks a free slot, so the mapping for 0 is kept in its own fields.
+ *
+ *  The Map61B methods box the key; the long overloads do not.
+ *  @author Shuyuan Wang
+ */
+public class LongObjectMap<V> implements Map61B<Long, V> {
+
+    private static final int DEFAULT_SIZE = 16;
+    private static final double DEFAULT_MAX_LOAD = 0.75;
+    private static final long FREE = 0;
+
+    private long[] keys;
+    private Object[] values;
+    /** log2 of the table length. */
+    private int bits;
+    /** The number of entries in the table, not counting key 0. */
+    private int tableSize;
+    private boolean hasZero;
+    private V zeroValue;
+    private final double maxLoad;
+
+    public LongObjectMap() {
+        this(DEFAULT_SIZE, DEFAULT_MAX_LOAD);
+    }
+
+    public LongObjectMap(int initialSize) {
+        this(initialSize, DEFAULT_MAX_LOAD);
+    }
+
+    /**
+     * @param initialSize the number of slots, rounded up to a power of two
+     * @param maxLoad maximum load factor, below 1
+     */
+    public LongObjectMap(int initialSize, double maxLoad) {
+        if (initialSize < 1 || maxLoad <= 0 || maxLoad >= 1) {
+            throw new IllegalArgumentException();
+        }
+        this.maxLoad = maxLoad;
+        allocate(Math.max(1, 32 - Integer.numberOfLeadingZeros(initialSize - 1)));
+    }
+
+    private void allocate(int newBits) {
+        bits = newBits;
+        keys = new long[1 << bits];
+        values = new Object[1 << bits];
+    }
+
+    /** Returns the home slot of KEY. */
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - bits));
+    }
+
+    /** Returns the slot holding KEY, or -1. KEY must not be 0. */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+            if (keys[i] == FREE) {
+                return -1;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == FREE) {
+            return hasZero ? zeroValue : null;
+        }
+        int i = find(key);
+        return i < 0 ? null : (V) values[i];
+    }
+
+    public boolean containsKey(long key) {
+        return key == FREE ? hasZero : find(key) >= 0;
+    }
+
+    public void put(long key, V value) {
+        if (key == FREE) {
+            hasZero = true;
+            zeroValue = value;
+            return;
+        }
+        int mask = keys.length - 1;
+        int i = slot(key);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        tableSize += 1;
+        if (tableSize > maxLoad * keys.length) {
+            rehash(bits + 1);
+        }
+    }
+
+    /** Removes KEY. Returns its value, or null if there was none. */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == FREE) {
+            V old = hasZero ? zeroValue : null;
+            hasZero = false;
+            zeroValue = null;
+            return old;
+        }
+        int i = find(key);
+        if (i < 0) {
+            return null;
+        }
+        V old = (V) values[i];
+        deleteAt(i);
+        return old;
+    }
+
+    /** Empties slot I, moving back any later entries of the same probe run
+     *  that may not stay behind a gap. */
+    private void deleteAt(int i) {
+        int mask = keys.length - 1;
+        for (int j = (i + 1) & mask; keys[j] != FREE; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = FREE;
+        values[i] = null;
+        tableSize -= 1;
+    }
+
+    private void rehash(int newBits) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newBits);
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j += 1) {
+            if (oldKeys[j] != FREE) {
+                int i = slot(oldKeys[j]);
+                while (keys[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        allocate(Math.max(1, 32 - Integer.numberOfLeadingZeros(DEFAULT_SIZE - 1)));
+        tableSize = 0;
+        hasZero = false;
+        zeroValue = null;
+    }
+
+    @Override
+    public boolean containsKey(Long key) {
+        return containsKey(key.longValue());
+    }
+
+    @Override
+    public V get(Long key) {
+        return get(key.longValue());
+    }
+
+    @Override
+    public int size() {
+        return tableSize + (hasZero ? 1 : 0);
+    }
+
+    @Override
+    public void put(Long key, V value) {
+        put(key.longValue(), value);
+    }
+
+    @Override
+    public Set<Long> keySet() {
+        Set<Long> set = new HashSet<>();
+        for (Long key : this) {
+            set.add(key);
+        }
+        return set;
+    }
+
+    @Override
+    public V remove(Long key) {
+        return remove(key.longValue());
+    }
+
+    @Override
+    public V remove(Long key, V value) {
+        V current = get(key.longValue());
+        if (current == null || !current.equals(value)) {
+            return null;
+        }
+        return remove(key.longValue());
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return new Iterator<Long>() {
+            private int next = hasZero ? -1 : advance(0);
+
+            private int advance(int from) {
+                while (from < keys.length && keys[from] == FREE) {
+                    from += 1;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < keys.length;
+            }
+
+            @Override
+            public Long next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long key = next < 0 ? FREE : keys[next];
+                next = advance(next + 1);
+                return key;
+            }
+        };
+    }
+}
@@ -1,5 +1,8 @@
 package hashmap;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 /**
  * Your implementation hashmap.MyHashMap should implement this interface. To do so,
@@ -45,5 +48,32 @@ public interface Map61B<K, V> extends Iterable<K> {
      * throw an UnsupportedOperationException.
      */
     V remove(K key, V value);
+
+    /**
+     * Associates each of KEYS with the value at the same index of VALUES,
+     * in order, so a key given twice keeps its later value. Maps may
+     * override this to make room for all of them at once.
+     */
+    default void putAll(List<? extends K> keys, List<? extends V> values) {
+        if (keys.size() != values.size()) {
+            throw new IllegalArgumentException("need one value per key");
+        }
+        Iterator<? extends V> value = values.iterator();
+        for (K key : keys) {
+            put(key, value.next());
+        }
+    }
+
+    /**
+     * Returns the value of each of KEYS, in order, with null for a key that
+     * has no mapping.
+     */
+    default List<V> getAll(List<? extends K> keys) {
+        List<V> values = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            values.add(get(key));
+        }
+        return values;
+    }
 }
 
@@ -0,0 +1,374 @@
+package hashmap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ *  A thread-safe hash table-backed Map61B, for tables shared between
+ *  threads.
+ *
+ *  Buckets come from createBucket() as in MyHashMap, but are copy-on-write:
+ *  a writer builds a new bucket and publishes it with a volatile store, so
+ *  get() and containsKey() take no lock and always see a whole bucket.
+ *  Writers lock one of a fixed set of stripes. The stripe is chosen by the
+ *  low bits of the hash, which every key of a bucket shares at any table
+ *  size, so one lock guards a bucket through resizes.
+ *
+ *  Resizing is incremental. The writer that crosses the load factor only
+ *  allocates the doubled table; every put() and remove() then moves a
+ *  chunk of buckets into it before doing its own work, leaving a MOVED
+ *  marker behind that sends readers and writers on to the new table. No
+ *  single writer rehashes the whole map, and readers never wait.
+ *
+ *  keySet() and iterator() are weakly consistent: they see every key
+ *  present for the whole traversal, and may or may not see concurrent
+ *  changes. Assumes null keys and values will never be inserted.
+ *  @author Shuyuan Wang
+ */
+public class MyConcurrentHashMap<K, V> implements Map61B<K, V> {
+
+    /**
+     * Protected helper class to store key/value pairs. Nodes are never
+     * changed once published; put() replaces a node instead.
+     */
+    protected class Node {
+        final K key;
+        final V value;
+        final int hash;
+
+        Node(K k, V v, int h) {
+            key = k;
+            value = v;
+            hash = h;
+        }
+    }
+
+    /** A table of buckets, and the state of its move into the next one. */
+    private class Table {
+        final AtomicReferenceArray<Collection<Node>> buckets;
+        /** The doubled table being filled, or null when not resizing. */
+        volatile Table next;
+        /** The first bucket no mover has claimed yet. */
+        final AtomicInteger claimed = new AtomicInteger();
+        /** The number of buckets moved so far. */
+        final AtomicInteger moved = new AtomicInteger();
+
+        Table(int length) {
+            buckets = new AtomicReferenceArray<>(length);
+        }
+
+        int length() {
+            return buckets.length();
+        }
+    }
+
+    private static final int DEFAULT_SIZE = 16;
+    private static final double DEFAULT_MAX_LOAD = 0.75;
+    private static final int DEFAULT_CONCURRENCY = 16;
+    /** The number of buckets a writer moves each time it helps a resize. */
+    private static final int TRANSFER_CHUNK = 16;
+
+    /** Marks a bucket that has been moved to the next table. */
+    private final Collection<Node> moved = new ArrayList<>(0);
+
+    /* Instance Variables */
+    private final AtomicReference<Table> table = new AtomicReference<>();
+    private final ReentrantLock[] locks;
+    private final AtomicInteger size = new AtomicInteger();
+    private final double maxLoad;
+
+    /** Constructors */
+    public MyConcurrentHashMap() {
+        this(DEFAULT_SIZE, DEFAULT_MAX_LOAD, DEFAULT_CONCURRENCY);
+    }
+
+    public MyConcurrentHashMap(int initialSize) {
+        this(initialSize, DEFAULT_MAX_LOAD, DEFAULT_CONCURRENCY);
+    }
+
+    public MyConcurrentHashMap(int initialSize, double maxLoad) {
+        this(initialSize, maxLoad, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * @param initialSize initial number of buckets, rounded up to a power
+     *                    of two no smaller than the number of stripes
+     * @param maxLoad maximum load factor
+     * @param concurrency the number of writers expected to run at once;
+     *                    rounded up to a power of two, this is the number
+     *                    of lock stripes
+     */
+    public MyConcurrentHashMap(int initialSize, double maxLoad, int concurrency) {
+        if (initialSize < 1 || maxLoad <= 0 || concurrency < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.maxLoad = maxLoad;
+        locks = new ReentrantLock[powerOfTwo(concurrency)];
+        for (int i = 0; i < locks.length; i += 1) {
+            locks[i] = new ReentrantLock();
+        }
+        table.set(createTable(powerOfTwo(Math.max(initialSize, locks.length))));
+    }
+
+    private static int powerOfTwo(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    /**
+     * Returns a data structure to be a hash table bucket. Override this
+     * method to use different data structures as the underlying bucket
+     * type, as with MyHashMap.createBucket().
+     */
+    protected Collection<Node> createBucket() {
+        return new LinkedList<>();
+    }
+
+    private Table createTable(int tableSize) {
+        Table t = new Table(tableSize);
+        for (int i = 0; i < tableSize; i += 1) {
+            t.buckets.set(i, createBucket());
+        }
+        return t;
+    }
+
+    private static int spread(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private ReentrantLock lockFor(int hash) {
+        return locks[hash & (locks.length - 1)];
+    }
+
+    /**
+     * Returns the table whose bucket for HASH holds its keys now, starting
+     * from T and following MOVED markers. Only stable under HASH's lock.
+     */
+    private Table current(Table t, int hash) {
+        while (t.buckets.get(hash & (t.length() - 1)) == moved) {
+            t = t.next;
+        }
+        return t;
+    }
+
+    /** Returns the node holding KEY, or null if there is none. Takes no lock. */
+    private Node getNode(Object key) {
+        int hash = spread(key);
+        Table t = table.get();
+        Collection<Node> bucket = t.buckets.get(hash & (t.length() - 1));
+        /* Read each bucket once: it may be moved between two reads. */
+        while (bucket == moved) {
+            t = t.next;
+            bucket = t.buckets.get(hash & (t.length() - 1));
+        }
+        for (Node node : bucket) {
+            if (node.hash == hash && node.key.equals(key)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Replaces KEY's node with one mapping it to VALUE, or removes it if
+     * VALUE is null. If EXPECTED is not null, only does so when KEY maps
+     * to EXPECTED. Returns the replaced node, or null.
+     */
+    private Node update(K key, V value, V expected) {
+        helpResize();
+        int hash = spread(key);
+        Node old = null;
+        int newSize;
+        ReentrantLock lock = lockFor(hash);
+        lock.lock();
+        try {
+            Table t = current(table.get(), hash);
+            int index = hash & (t.length() - 1);
+            Collection<Node> bucket = t.buckets.get(index);
+            for (Node node : bucket) {
+                if (node.hash == hash && node.key.equals(key)) {
+                    old = node;
+                    break;
+                }
+            }
+            if (expected != null && (old == null || !old.value.equals(expected))) {
+                return null;
+            }
+            if (old == null && value == null) {
+                return null;
+            }
+            Collection<Node> copy = createBucket();
+            for (Node node : bucket) {
+                if (node != old) {
+                    copy.add(node);
+                }
+            }
+            if (value != null) {
+                copy.add(new Node(key, value, hash));
+            }
+            t.buckets.set(index, copy);
+            /* Counted under the lock, so clear() cannot interleave. */
+            if (old == null) {
+                newSize = size.incrementAndGet();
+            } else if (value == null) {
+                newSize = size.decrementAndGet();
+            } else {
+                return old;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (newSize > maxLoad * table.get().length()) {
+            startResize();
+        }
+        return old;
+    }
+
+    /** Allocates the next table, unless a resize is already under way. */
+    private void startResize() {
+        Table t = table.get();
+        if (t.next != null) {
+            return;
+        }
+        synchronized (t) {
+            if (t.next == null && table.get() == t) {
+                t.next = new Table(t.length() * 2);
+            }
+        }
+        helpResize();
+    }
+
+    /** Moves one chunk of buckets into the next table, if one is being filled. */
+    private void helpResize() {
+        Table t = table.get();
+        Table next = t.next;
+        if (next == null) {
+            return;
+        }
+        int start = t.claimed.getAndAdd(TRANSFER_CHUNK);
+        if (start >= t.length()) {
+            return;
+        }
+        int end = Math.min(start + TRANSFER_CHUNK, t.length());
+        for (int i = start; i < end; i += 1) {
+            transfer(t, next, i);
+        }
+        if (t.moved.addAndGet(end - start) == t.length()) {
+            table.compareAndSet(t, next);
+        }
+    }
+
+    /** Splits bucket I of T between buckets I and I + T.length() of NEXT. */
+    private void transfer(Table t, Table next, int i) {
+        ReentrantLock lock = locks[i & (locks.length - 1)];
+        lock.lock();
+        try {
+            Collection<Node> low = createBucket();
+            Collection<Node> high = createBucket();
+            for (Node node : t.buckets.get(i)) {
+                if ((node.hash & t.length()) == 0) {
+                    low.add(node);
+                } else {
+                    high.add(node);
+                }
+            }
+            next.buckets.set(i, low);
+            next.buckets.set(i + t.length(), high);
+            t.buckets.set(i, moved);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Adds the keys of bucket I of T, or of the buckets it moved to, to KEYS. */
+    private void collectKeys(Table t, int i, Set<K> keys) {
+        Collection<Node> bucket = t.buckets.get(i);
+        if (bucket == moved) {
+            collectKeys(t.next, i, keys);
+            collectKeys(t.next, i + t.length(), keys);
+            return;
+        }
+        for (Node node : bucket) {
+            keys.add(node.key);
+        }
+    }
+
+    /** Returns the number of buckets in the table readers start from. */
+    public int capacity() {
+        return table.get().length();
+    }
+
+    @Override
+    public void clear() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try {
+            table.set(createTable(powerOfTwo(Math.max(DEFAULT_SIZE, locks.length))));
+            size.set(0);
+        } finally {
+            for (ReentrantLock lock : locks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return getNode(key) != null;
+    }
+
+    @Override
+    public V get(K key) {
+        Node node = getNode(key);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public void put(K key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("null value");
+        }
+        update(key, value, null);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> keys = new HashSet<>();
+        Table t = table.get();
+        for (int i = 0; i < t.length(); i += 1) {
+            collectKeys(t, i, keys);
+        }
+        return keys;
+    }
+
+    @Override
+    public V remove(K key) {
+        Node node = update(key, null, null);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public V remove(K key, V value) {
+        Node node = update(key, null, value);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return keySet().iterator();
+    }
+}
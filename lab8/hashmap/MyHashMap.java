@@ -1,15 +1,40 @@
 package hashmap;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 /**
  *  A hash table-backed Map implementation. Provides amortized constant time
  *  access to elements via get(), remove(), and put() in the best case.
  *
+ *  By default a resize rehashes every entry at once. Given a migrateStep,
+ *  the map instead resizes incrementally, as Redis does: it keeps the old
+ *  table beside the new one and moves migrateStep old buckets on each
+ *  get(), put(), containsKey() and remove(), so no single call pays for
+ *  rehashing the whole map. A key lives in the old table until its bucket
+ *  has been moved.
+ *
+ *  putAll() makes room for every new key with at most one resize, and
+ *  putAllParallel() then fills the buckets from several threads. The
+ *  spliterator splits the table by bucket ranges, so the keys can be
+ *  streamed in parallel with StreamSupport.stream(map.spliterator(), true).
+ *
  *  Assumes null keys will never be inserted, and does not resize down upon remove().
- *  @author YOUR NAME HERE
+ *  @author Shuyuan Wang
  */
-public class MyHashMap<K, V> implements Map61B<K, V> {
+public class MyHashMap<K, V> implements Map61B<K, V>, HashTableStats {
 
     /**
      * Protected helper class to store key/value pairs
@@ -25,14 +50,34 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
         }
     }
 
+    private static final int DEFAULT_SIZE = 16;
+    private static final double DEFAULT_MAX_LOAD = 0.75;
+    /** Batches smaller than this are put by putAllParallel() in one thread. */
+    private static final int PARALLEL_THRESHOLD = 1 << 12;
+    /** Partitions of the table per thread of a parallel bulk put, to even out the work. */
+    private static final int PARTITIONS_PER_THREAD = 4;
+
     /* Instance Variables */
     private Collection<Node>[] buckets;
-    // You should probably define some more!
+    private int size;
+    private final double maxLoad;
+    /** Old buckets moved per call while resizing, or 0 to resize at once. */
+    private final int migrateStep;
+    /** The table being migrated into buckets, or null when not resizing. */
+    private Collection<Node>[] oldBuckets;
+    /** The number of oldBuckets already moved. */
+    private int migrated;
+    /** The number of resizes started so far. */
+    private int resizes;
 
     /** Constructors */
-    public MyHashMap() { }
+    public MyHashMap() {
+        this(DEFAULT_SIZE, DEFAULT_MAX_LOAD);
+    }
 
-    public MyHashMap(int initialSize) { }
+    public MyHashMap(int initialSize) {
+        this(initialSize, DEFAULT_MAX_LOAD);
+    }
 
     /**
      * MyHashMap constructor that creates a backing array of initialSize.
@@ -41,13 +86,32 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
      * @param initialSize initial size of backing array
      * @param maxLoad maximum load factor
      */
-    public MyHashMap(int initialSize, double maxLoad) { }
+    public MyHashMap(int initialSize, double maxLoad) {
+        this(initialSize, maxLoad, 0);
+    }
+
+    /**
+     * MyHashMap constructor that resizes incrementally, moving migrateStep
+     * buckets of the old table per call, or all at once if migrateStep is 0.
+     *
+     * @param initialSize initial size of backing array
+     * @param maxLoad maximum load factor
+     * @param migrateStep old buckets to move per call while resizing
+     */
+    public MyHashMap(int initialSize, double maxLoad, int migrateStep) {
+        if (initialSize < 1 || maxLoad <= 0 || migrateStep < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.maxLoad = maxLoad;
+        this.migrateStep = migrateStep;
+        buckets = createTable(initialSize);
+    }
 
     /**
      * Returns a new node to be placed in a hash table bucket
      */
     private Node createNode(K key, V value) {
-        return null;
+        return new Node(key, value);
     }
 
     /**
@@ -69,7 +133,7 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
      * OWN BUCKET DATA STRUCTURES WITH THE NEW OPERATOR!
      */
     protected Collection<Node> createBucket() {
-        return null;
+        return new LinkedList<>();
     }
 
     /**
@@ -82,10 +146,455 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
      * @param tableSize the size of the table to create
      */
     private Collection<Node>[] createTable(int tableSize) {
+        Collection<Node>[] table = createEmptyTable(tableSize);
+        for (int i = 0; i < tableSize; i += 1) {
+            table[i] = createBucket();
+        }
+        return table;
+    }
+
+    /**
+     * Returns a table of tableSize null buckets. An incremental resize fills
+     * it from createBucket() as it moves the old buckets, so that starting
+     * a resize allocates no buckets.
+     */
+    private Collection<Node>[] createEmptyTable(int tableSize) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Collection<Node>[] table = new Collection[tableSize];
+        return table;
+    }
+
+    /** Returns the bucket KEY belongs in. */
+    private Collection<Node> bucket(K key) {
+        if (oldBuckets != null) {
+            int old = Math.floorMod(key.hashCode(), oldBuckets.length);
+            if (old >= migrated) {
+                return oldBuckets[old];
+            }
+        }
+        return buckets[Math.floorMod(key.hashCode(), buckets.length)];
+    }
+
+    /**
+     * Returns the node holding KEY in BUCKET, or null if there is none.
+     * Override this method for bucket types that can search faster than
+     * a scan.
+     */
+    protected Node findNode(Collection<Node> bucket, K key) {
+        for (Node node : bucket) {
+            if (node.key.equals(key)) {
+                return node;
+            }
+        }
         return null;
     }
 
-    // TODO: Implement the methods of the Map61B Interface below
-    // Your code won't compile until you do so!
+    /** Returns the node holding KEY, or null if there is none. */
+    private Node getNode(K key) {
+        return findNode(bucket(key), key);
+    }
+
+    /** Moves every node into a table of NEWSIZE buckets. */
+    private void resize(int newSize) {
+        resizes += 1;
+        Collection<Node>[] old = buckets;
+        buckets = createTable(newSize);
+        for (Collection<Node> bucket : old) {
+            for (Node node : bucket) {
+                bucket(node.key).add(node);
+            }
+        }
+    }
+
+    /** Starts an incremental resize into a table twice the size. */
+    private void startMigration() {
+        resizes += 1;
+        oldBuckets = buckets;
+        buckets = createEmptyTable(buckets.length * 2);
+        migrated = 0;
+    }
+
+    /**
+     * Moves up to STEPS buckets of an incremental resize. Old bucket i
+     * splits between buckets i and i + oldBuckets.length, which are
+     * created here.
+     */
+    private void migrate(int steps) {
+        for (; oldBuckets != null && steps > 0; steps -= 1) {
+            int n = oldBuckets.length;
+            buckets[migrated] = createBucket();
+            buckets[migrated + n] = createBucket();
+            for (Node node : oldBuckets[migrated]) {
+                buckets[Math.floorMod(node.key.hashCode(), buckets.length)].add(node);
+            }
+            oldBuckets[migrated] = null;
+            migrated += 1;
+            if (migrated == n) {
+                oldBuckets = null;
+            }
+        }
+    }
+
+    /** Finishes any incremental resize under way. */
+    private void finishMigration() {
+        if (oldBuckets != null) {
+            migrate(oldBuckets.length - migrated);
+        }
+    }
+
+    /**
+     * Resizes at once, if need be, to a table with room for ENTRIES under
+     * the maximum load factor. Finishes any incremental resize first.
+     */
+    private void ensureCapacity(int entries) {
+        finishMigration();
+        int newSize = buckets.length;
+        while ((double) entries / newSize > maxLoad) {
+            newSize *= 2;
+        }
+        if (newSize != buckets.length) {
+            resize(newSize);
+        }
+    }
+
+    /** Makes room for every key of KEYS first, then puts them in order. */
+    @Override
+    public void putAll(List<? extends K> keys, List<? extends V> values) {
+        if (keys.size() != values.size()) {
+            throw new IllegalArgumentException("need one value per key");
+        }
+        ensureCapacity(size + keys.size());
+        Map61B.super.putAll(keys, values);
+    }
+
+    /**
+     * Does what putAll() does, with the work split over the common
+     * fork-join pool. After making room for every key, it hashes the keys
+     * in parallel, sorts them into partitions of adjacent buckets, and
+     * fills the partitions in parallel; no two threads touch the same
+     * bucket, so no locks are needed. Keys in one bucket are put in their
+     * order in KEYS, so a key given twice keeps its later value.
+     */
+    public void putAllParallel(List<? extends K> keys, List<? extends V> values) {
+        if (keys.size() != values.size()) {
+            throw new IllegalArgumentException("need one value per key");
+        }
+        int n = keys.size();
+        if (n < PARALLEL_THRESHOLD) {
+            putAll(keys, values);
+            return;
+        }
+        ensureCapacity(size + n);
+        Object[] keyArray = keys.toArray();
+        Object[] valueArray = values.toArray();
+        int tableSize = buckets.length;
+        int[] bucketOf = new int[n];
+        IntStream.range(0, n).parallel().forEach(i ->
+                bucketOf[i] = Math.floorMod(keyArray[i].hashCode(), tableSize));
+
+        /* A stable counting sort of the keys by partition. */
+        int partitions = Math.min(tableSize,
+                PARTITIONS_PER_THREAD * ForkJoinPool.getCommonPoolParallelism());
+        int[] start = new int[partitions + 1];
+        for (int i = 0; i < n; i += 1) {
+            start[partition(bucketOf[i], partitions, tableSize) + 1] += 1;
+        }
+        for (int p = 0; p < partitions; p += 1) {
+            start[p + 1] += start[p];
+        }
+        int[] order = new int[n];
+        int[] next = Arrays.copyOf(start, partitions);
+        for (int i = 0; i < n; i += 1) {
+            order[next[partition(bucketOf[i], partitions, tableSize)]++] = i;
+        }
+
+        size += ForkJoinPool.commonPool().invoke(
+                new BulkPut(keyArray, valueArray, bucketOf, order, start, 0, partitions));
+    }
+
+    /** Returns the partition of bucket B, when TABLESIZE buckets are cut into PARTITIONS. */
+    private static int partition(int b, int partitions, int tableSize) {
+        return (int) ((long) b * partitions / tableSize);
+    }
+
+    /**
+     * Fills partitions LO to HI - 1 of a parallel bulk put, splitting them
+     * in half until one is left, and returns the number of new keys.
+     * Partition p is keys ORDER[START[p]] to ORDER[START[p + 1] - 1].
+     */
+    private class BulkPut extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
 
+        private final Object[] keys;
+        private final Object[] values;
+        private final int[] bucketOf;
+        private final int[] order;
+        private final int[] start;
+        private final int lo;
+        private final int hi;
+
+        BulkPut(Object[] keys, Object[] values, int[] bucketOf, int[] order, int[] start,
+                int lo, int hi) {
+            this.keys = keys;
+            this.values = values;
+            this.bucketOf = bucketOf;
+            this.order = order;
+            this.start = start;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                BulkPut left = new BulkPut(keys, values, bucketOf, order, start, lo, mid);
+                left.fork();
+                int right = new BulkPut(keys, values, bucketOf, order, start, mid, hi).compute();
+                return left.join() + right;
+            }
+            int added = 0;
+            for (int j = start[lo]; j < start[lo + 1]; j += 1) {
+                int i = order[j];
+                @SuppressWarnings("unchecked")
+                K key = (K) keys[i];
+                @SuppressWarnings("unchecked")
+                V value = (V) values[i];
+                Collection<Node> bucket = buckets[bucketOf[i]];
+                Node node = findNode(bucket, key);
+                if (node != null) {
+                    node.value = value;
+                } else {
+                    bucket.add(createNode(key, value));
+                    added += 1;
+                }
+            }
+            return added;
+        }
+    }
+
+    /** Looks every key up with any incremental resize finished first. */
+    @Override
+    public List<V> getAll(List<? extends K> keys) {
+        finishMigration();
+        List<V> values = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            Node node = getNode(key);
+            values.add(node == null ? null : node.value);
+        }
+        return values;
+    }
+
+    @Override
+    public int capacity() {
+        return buckets.length;
+    }
+
+    @Override
+    public int resizeCount() {
+        return resizes;
+    }
+
+    /**
+     * Element d counts the buckets holding d entries. While an incremental
+     * resize is under way, the old buckets not yet moved are counted too.
+     */
+    @Override
+    public int[] occupancyHistogram() {
+        int[] histogram = new int[1];
+        histogram = addBucketSizes(histogram, buckets, 0);
+        if (oldBuckets != null) {
+            histogram = addBucketSizes(histogram, oldBuckets, migrated);
+        }
+        return histogram;
+    }
+
+    /** Adds the sizes of the non-null buckets of TABLE from FROM on to HISTOGRAM. */
+    private static int[] addBucketSizes(int[] histogram, Collection<?>[] table, int from) {
+        for (int i = from; i < table.length; i += 1) {
+            if (table[i] == null) {
+                continue;
+            }
+            int n = table[i].size();
+            if (n >= histogram.length) {
+                histogram = Arrays.copyOf(histogram, n + 1);
+            }
+            histogram[n] += 1;
+        }
+        return histogram;
+    }
+
+    @Override
+    public void clear() {
+        buckets = createTable(DEFAULT_SIZE);
+        oldBuckets = null;
+        size = 0;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        migrate(migrateStep);
+        return getNode(key) != null;
+    }
+
+    @Override
+    public V get(K key) {
+        migrate(migrateStep);
+        Node node = getNode(key);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        migrate(migrateStep);
+        Node node = getNode(key);
+        if (node != null) {
+            node.value = value;
+            return;
+        }
+        bucket(key).add(createNode(key, value));
+        size += 1;
+        if ((double) size / buckets.length > maxLoad) {
+            if (migrateStep == 0) {
+                resize(buckets.length * 2);
+            } else {
+                /* A resize still under way here means migrateStep is too
+                 * small to keep up with puts, so finish it first. */
+                finishMigration();
+                startMigration();
+            }
+        }
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> keys = new HashSet<>();
+        for (K key : this) {
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    @Override
+    public V remove(K key) {
+        migrate(migrateStep);
+        Node node = getNode(key);
+        if (node == null) {
+            return null;
+        }
+        bucket(key).remove(node);
+        size -= 1;
+        return node.value;
+    }
+
+    @Override
+    public V remove(K key, V value) {
+        migrate(migrateStep);
+        Node node = getNode(key);
+        if (node == null || !node.value.equals(value)) {
+            return null;
+        }
+        bucket(key).remove(node);
+        size -= 1;
+        return node.value;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        finishMigration();
+        return new KeyIterator();
+    }
+
+    /**
+     * Returns a spliterator over the keys that splits by halving its range
+     * of buckets. Like iterator(), it finishes any incremental resize first.
+     */
+    @Override
+    public Spliterator<K> spliterator() {
+        finishMigration();
+        return new KeySpliterator(0, buckets.length, size);
+    }
+
+    /** Goes over the keys of buckets NEXT to END - 1, bucket by bucket. */
+    private class KeySpliterator implements Spliterator<K> {
+        private int next;
+        private final int end;
+        private long estimate;
+        /** The rest of the bucket being gone over, or null. */
+        private Iterator<Node> current;
+
+        KeySpliterator(int next, int end, long estimate) {
+            this.next = next;
+            this.end = end;
+            this.estimate = estimate;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super K> action) {
+            while (current == null || !current.hasNext()) {
+                if (next >= end) {
+                    return false;
+                }
+                current = buckets[next].iterator();
+                next += 1;
+            }
+            action.accept(current.next().key);
+            return true;
+        }
+
+        @Override
+        public Spliterator<K> trySplit() {
+            int mid = (next + end) >>> 1;
+            if (mid <= next) {
+                return null;
+            }
+            /* Keys are spread evenly over buckets, so halve the estimate. */
+            KeySpliterator prefix = new KeySpliterator(next, mid, estimate / 2);
+            next = mid;
+            estimate -= estimate / 2;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+
+    /** Iterates over the keys bucket by bucket. */
+    private class KeyIterator implements Iterator<K> {
+        private int bucketIndex;
+        private Iterator<Node> current;
+
+        KeyIterator() {
+            current = buckets[0].iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && bucketIndex < buckets.length - 1) {
+                bucketIndex += 1;
+                current = buckets[bucketIndex].iterator();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next().key;
+        }
+    }
 }
@@ -0,0 +1,125 @@
+package hashmap;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.TreeMap;
+
+/**
+ * Hash Table with buckets that start as array lists and turn into
+ * red-black trees (TreeMaps ordered by key) once they hold more than
+ * TREEIFY_THRESHOLD nodes, as java.util.HashMap does. Many colliding keys
+ * then cost O(log n) per lookup instead of O(n). A tree bucket that
+ * shrinks below UNTREEIFY_THRESHOLD nodes turns back into a list.
+ * @author Shuyuan Wang
+ */
+public class MyHashMapTreeBuckets<K extends Comparable<K>, V> extends MyHashMap<K, V> {
+
+    private static final int TREEIFY_THRESHOLD = 8;
+    private static final int UNTREEIFY_THRESHOLD = 6;
+
+    /**
+     * Constructor that creates a backing array with default
+     * initial size and load factor
+     */
+    public MyHashMapTreeBuckets() {
+        super();
+    }
+
+    /**
+     * Constructor that creates a backing array of initialSize
+     * and default load factor
+     *
+     * @param initialSize initial size of backing array
+     */
+    public MyHashMapTreeBuckets(int initialSize) {
+        super(initialSize);
+    }
+
+    /**
+     * Constructor that creates a backing array of initialSize.
+     * The load factor (# items / # buckets) should always be <= loadFactor
+     *
+     * @param initialSize initial size of backing array
+     * @param maxLoad maximum load factor
+     */
+    public MyHashMapTreeBuckets(int initialSize, double maxLoad) {
+        super(initialSize, maxLoad);
+    }
+
+    @Override
+    protected Collection<Node> createBucket() {
+        return new TreeifyingBucket();
+    }
+
+    @Override
+    protected Node findNode(Collection<Node> bucket, K key) {
+        return ((TreeifyingBucket) bucket).find(key);
+    }
+
+    /** A bucket that is either a list or a tree of its nodes. */
+    private class TreeifyingBucket extends AbstractCollection<Node> {
+        /** The nodes while there are few, else null. */
+        private ArrayList<Node> list = new ArrayList<>(2);
+        /** The nodes by key once there are many, else null. */
+        private TreeMap<K, Node> tree;
+
+        Node find(K key) {
+            if (tree != null) {
+                return tree.get(key);
+            }
+            for (Node node : list) {
+                if (node.key.equals(key)) {
+                    return node;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean add(Node node) {
+            if (tree != null) {
+                tree.put(node.key, node);
+                return true;
+            }
+            list.add(node);
+            if (list.size() > TREEIFY_THRESHOLD) {
+                tree = new TreeMap<>();
+                for (Node n : list) {
+                    tree.put(n.key, n);
+                }
+                list = null;
+            }
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean remove(Object o) {
+            if (tree == null) {
+                return list.remove(o);
+            }
+            Node node = (Node) o;
+            if (tree.get(node.key) != node) {
+                return false;
+            }
+            tree.remove(node.key);
+            if (tree.size() < UNTREEIFY_THRESHOLD) {
+                list = new ArrayList<>(tree.values());
+                tree = null;
+            }
+            return true;
+        }
+
+        @Override
+        public Iterator<Node> iterator() {
+            return tree != null ? tree.values().iterator() : list.iterator();
+        }
+
+        @Override
+        public int size() {
+            return tree != null ? tree.size() : list.size();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package hashmap;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ *  An open-addressing hash map from objects to int: an Object[] of keys
+ *  beside an int[] of values, probed the same way as IntIntMap. A null key
+ *  marks a free slot, which Map61B allows since null keys are never
+ *  inserted.
+ *
+ *  The Map61B methods box the value; getOrDefault and put(K, int) do not.
+ *  @author Shuyuan Wang
+ */
+public class ObjectIntMap<K> implements Map61B<K, Integer> {
+
+    private static final int DEFAULT_SIZE = 16;
+    private static final double DEFAULT_MAX_LOAD = 0.75;
+
+    private Object[] keys;
+    private int[] values;
+    /** log2 of the table length. */
+    private int bits;
+    private int size;
+    private final double maxLoad;
+
+    public ObjectIntMap() {
+        this(DEFAULT_SIZE, DEFAULT_MAX_LOAD);
+    }
+
+    public ObjectIntMap(int initialSize) {
+        this(initialSize, DEFAULT_MAX_LOAD);
+    }
+
+    /**
+     * @param initialSize the number of slots, rounded up to a power of two
+     * @param maxLoad maximum load factor, below 1
+     */
+    public ObjectIntMap(int initialSize, double maxLoad) {
+        if (initialSize < 1 || maxLoad <= 0 || maxLoad >= 1) {
+            throw new IllegalArgumentException();
+        }
+        this.maxLoad = maxLoad;
+        allocate(Math.max(1, 32 - Integer.numberOfLeadingZeros(initialSize - 1)));
+    }
+
+    private void allocate(int newBits) {
+        bits = newBits;
+        keys = new Object[1 << bits];
+        values = new int[1 << bits];
+    }
+
+    /** Returns the home slot of KEY. */
+    private int slot(Object key) {
+        return (key.hashCode() * 0x9E3779B9) >>> (32 - bits);
+    }
+
+    /** Returns the slot holding KEY, or -1. */
+    private int find(Object key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            if (keys[i] == null) {
+                return -1;
+            }
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+    }
+
+    /** Returns the value for KEY, or DEFAULTVALUE if there is none. */
+    public int getOrDefault(K key, int defaultValue) {
+        int i = find(key);
+        return i < 0 ? defaultValue : values[i];
+    }
+
+    public void put(K key, int value) {
+        int mask = keys.length - 1;
+        int i = slot(key);
+        while (keys[i] != null) {
+            if (keys[i].equals(key)) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size += 1;
+        if (size > maxLoad * keys.length) {
+            rehash(bits + 1);
+        }
+    }
+
+    /** Empties slot I, moving back any later entries of the same probe run
+     *  that may not stay behind a gap. */
+    private void deleteAt(int i) {
+        int mask = keys.length - 1;
+        for (int j = (i + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = null;
+        size -= 1;
+    }
+
+    private void rehash(int newBits) {
+        Object[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newBits);
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j += 1) {
+            if (oldKeys[j] != null) {
+                int i = slot(oldKeys[j]);
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        allocate(Math.max(1, 32 - Integer.numberOfLeadingZeros(DEFAULT_SIZE - 1)));
+        size = 0;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public Integer get(K key) {
+        int i = find(key);
+        return i < 0 ? null : values[i];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void put(K key, Integer value) {
+        put(key, value.intValue());
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> set = new HashSet<>();
+        for (K key : this) {
+            set.add(key);
+        }
+        return set;
+    }
+
+    @Override
+    public Integer remove(K key) {
+        int i = find(key);
+        if (i < 0) {
+            return null;
+        }
+        int old = values[i];
+        deleteAt(i);
+        return old;
+    }
+
+    @Override
+    public Integer remove(K key, Integer value) {
+        int i = find(key);
+        if (i < 0 || values[i] != value) {
+            return null;
+        }
+        deleteAt(i);
+        return value;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new Iterator<K>() {
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < keys.length && keys[from] == null) {
+                    from += 1;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < keys.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public K next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                K key = (K) keys[next];
+                next = advance(next + 1);
+                return key;
+            }
+        };
+    }
+}
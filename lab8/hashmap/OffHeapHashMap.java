@@ -0,0 +1,535 @@
+package hashmap;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ *  A hash map from byte[] keys to byte[] values kept off the heap, in a
+ *  memory-mapped file, so it can hold more than the heap and outlives
+ *  the JVM. Every key has the same length and every value has the same
+ *  length, both fixed when the file is made, so each slot of the table
+ *  is a fixed-size record: the key's hash, the key, then the value.
+ *  Slots are probed linearly, and remove() shifts the rest of the run
+ *  back, so there are no tombstones. A hash of 0 marks a free slot.
+ *
+ *  The constructors open the map already in the file, mapping it as it
+ *  is with no rebuild, or make an empty one if there is no file. The
+ *  table doubles into a new file when the load factor would exceed
+ *  maxLoad, so give a large table its initialSize up front. flush()
+ *  writes the map through to disk; a map that was not flushed or closed
+ *  before a crash may be lost.
+ *
+ *  get() copies the value onto the heap. get(key, view) instead points a
+ *  reusable ValueView at the value in the file, allocating nothing; the
+ *  view is good until the next put(), remove() or clear().
+ *
+ *  Keys compare by their bytes, not by identity. Not thread-safe.
+ *  @author Shuyuan Wang
+ */
+public class OffHeapHashMap implements Map61B<byte[], byte[]>, Closeable {
+
+    private static final int DEFAULT_SIZE = 16;
+    private static final double DEFAULT_MAX_LOAD = 0.75;
+    /** Marks a map file: "HMAP". */
+    private static final int MAGIC = 0x484D4150;
+    private static final int VERSION = 1;
+    /** Bytes before the first slot. */
+    private static final int HEADER = 64;
+    private static final int MAGIC_AT = 0;
+    private static final int VERSION_AT = 4;
+    private static final int KEY_LENGTH_AT = 8;
+    private static final int VALUE_LENGTH_AT = 12;
+    private static final int BITS_AT = 16;
+    private static final int SIZE_AT = 20;
+    /** log2 of the most slots a table may have. */
+    private static final int MAX_BITS = 30;
+    /** log2 of the most bytes mapped by one buffer, which an int must index. */
+    private static final int SEGMENT_BYTES_BITS = 30;
+    private static final int FREE = 0;
+
+    private final File file;
+    private final int keyLength;
+    private final int valueLength;
+    /** Bytes per slot: the key's hash, the key, then the value. */
+    private final int slotBytes;
+    /** log2 of the slots per segment, so no slot straddles two segments. */
+    private final int segmentBits;
+    private final double maxLoad;
+    /** Holds one slot while it is moved. */
+    private final byte[] scratch;
+
+    private MappedByteBuffer header;
+    /** The table, 1 << segmentBits slots to a buffer. */
+    private MappedByteBuffer[] segments;
+    /** log2 of the table length. */
+    private int bits;
+    private int size;
+
+    public OffHeapHashMap(File file, int keyLength, int valueLength) throws IOException {
+        this(file, keyLength, valueLength, DEFAULT_SIZE, DEFAULT_MAX_LOAD);
+    }
+
+    public OffHeapHashMap(File file, int keyLength, int valueLength, int initialSize)
+            throws IOException {
+        this(file, keyLength, valueLength, initialSize, DEFAULT_MAX_LOAD);
+    }
+
+    /**
+     * Opens the map in FILE, or makes an empty one there if FILE does not
+     * exist.
+     * @param keyLength the length of every key
+     * @param valueLength the length of every value
+     * @param initialSize the number of slots of a new map, rounded up to a
+     *                    power of two; ignored when FILE already holds a map
+     * @param maxLoad maximum load factor, below 1
+     * @throws IllegalArgumentException if FILE holds a map with keys or
+     *                                  values of other lengths
+     * @throws IOException if FILE cannot be mapped or does not hold a map
+     */
+    public OffHeapHashMap(File file, int keyLength, int valueLength, int initialSize,
+                          double maxLoad) throws IOException {
+        if (keyLength < 1 || valueLength < 0 || initialSize < 1
+                || initialSize > 1 << MAX_BITS || maxLoad <= 0 || maxLoad >= 1) {
+            throw new IllegalArgumentException();
+        }
+        this.file = file;
+        this.keyLength = keyLength;
+        this.valueLength = valueLength;
+        this.maxLoad = maxLoad;
+        slotBytes = 4 + keyLength + valueLength;
+        segmentBits = SEGMENT_BYTES_BITS - (32 - Integer.numberOfLeadingZeros(slotBytes - 1));
+        scratch = new byte[slotBytes];
+        if (!file.exists()) {
+            writeEmpty(file, Math.max(1, 32 - Integer.numberOfLeadingZeros(initialSize - 1)));
+        }
+        map();
+    }
+
+    /** Makes FILE an empty map with 1 << NEWBITS slots. */
+    private void writeEmpty(File target, int newBits) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(target, "rw")) {
+            /* Truncate first, so that every slot reads back as free. */
+            raf.setLength(0);
+            raf.setLength(HEADER + ((long) slotBytes << newBits));
+            raf.seek(MAGIC_AT);
+            raf.writeInt(MAGIC);
+            raf.writeInt(VERSION);
+            raf.writeInt(keyLength);
+            raf.writeInt(valueLength);
+            raf.writeInt(newBits);
+            raf.writeInt(0);
+        }
+    }
+
+    /** Maps the header and table of the map in FILE. */
+    private void map() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            if (raf.length() < HEADER) {
+                throw new IOException(file + " does not hold a map");
+            }
+            /* A mapping stays valid after its channel is closed. */
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+            if (header.getInt(MAGIC_AT) != MAGIC || header.getInt(VERSION_AT) != VERSION) {
+                throw new IOException(file + " does not hold a map");
+            }
+            if (header.getInt(KEY_LENGTH_AT) != keyLength
+                    || header.getInt(VALUE_LENGTH_AT) != valueLength) {
+                throw new IllegalArgumentException(file + " holds a map of "
+                        + header.getInt(KEY_LENGTH_AT) + "-byte keys and "
+                        + header.getInt(VALUE_LENGTH_AT) + "-byte values");
+            }
+            bits = header.getInt(BITS_AT);
+            size = header.getInt(SIZE_AT);
+            if (bits < 1 || bits > MAX_BITS || raf.length() != HEADER + ((long) slotBytes << bits)) {
+                throw new IOException(file + " is not the length its header says");
+            }
+            int perSegment = 1 << Math.min(bits, segmentBits);
+            segments = new MappedByteBuffer[(1 << bits) / perSegment];
+            for (int s = 0; s < segments.length; s += 1) {
+                long start = HEADER + (long) s * perSegment * slotBytes;
+                segments[s] = channel.map(FileChannel.MapMode.READ_WRITE, start,
+                        (long) perSegment * slotBytes);
+            }
+        }
+    }
+
+    private static int hash(byte[] key) {
+        /* FNV-1a, then spread into the high bits, which pick the home slot. */
+        int h = 0x811C9DC5;
+        for (byte b : key) {
+            h = (h ^ b) * 0x01000193;
+        }
+        h *= 0x9E3779B9;
+        return h == FREE ? 1 : h;
+    }
+
+    private int home(int hash) {
+        return hash >>> (32 - bits);
+    }
+
+    private ByteBuffer segment(int i) {
+        return segments[i >>> segmentBits];
+    }
+
+    /** Returns the offset of slot I in its segment. */
+    private int offset(int i) {
+        return (i & ((1 << segmentBits) - 1)) * slotBytes;
+    }
+
+    private int hashAt(int i) {
+        return segment(i).getInt(offset(i));
+    }
+
+    private boolean keyAt(int i, byte[] key) {
+        ByteBuffer segment = segment(i);
+        int at = offset(i) + 4;
+        for (int j = 0; j < keyLength; j += 1) {
+            if (segment.get(at + j) != key[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void checkKey(byte[] key) {
+        if (key.length != keyLength) {
+            throw new IllegalArgumentException("keys are " + keyLength + " bytes");
+        }
+    }
+
+    /**
+     * Returns the slot holding KEY, whose hash is HASH, or -1 - the free
+     * slot where it would go.
+     */
+    private int probe(byte[] key, int hash) {
+        int mask = (1 << bits) - 1;
+        for (int i = home(hash); ; i = (i + 1) & mask) {
+            int h = hashAt(i);
+            if (h == FREE) {
+                return -1 - i;
+            }
+            if (h == hash && keyAt(i, key)) {
+                return i;
+            }
+        }
+    }
+
+    private int find(byte[] key) {
+        checkKey(key);
+        return probe(key, hash(key));
+    }
+
+    private void resize(int newBits) {
+        File bigger = new File(file.getPath() + ".resize");
+        try {
+            writeEmpty(bigger, newBits);
+            try (RandomAccessFile raf = new RandomAccessFile(bigger, "rw");
+                 FileChannel channel = raf.getChannel()) {
+                /* Mapped in one piece while it is filled, so it is written once. */
+                copyInto(channel, newBits);
+            }
+            Files.move(bigger.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            map();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Inserts every entry into the empty table of 1 << NEWBITS slots in CHANNEL. */
+    private void copyInto(FileChannel channel, int newBits) throws IOException {
+        int perSegment = 1 << Math.min(newBits, segmentBits);
+        MappedByteBuffer[] target = new MappedByteBuffer[(1 << newBits) / perSegment];
+        for (int s = 0; s < target.length; s += 1) {
+            target[s] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER + (long) s * perSegment * slotBytes, (long) perSegment * slotBytes);
+        }
+        int mask = (1 << newBits) - 1;
+        for (int i = 0; i < 1 << bits; i += 1) {
+            int hash = hashAt(i);
+            if (hash == FREE) {
+                continue;
+            }
+            segment(i).get(offset(i), scratch);
+            int j = hash >>> (32 - newBits);
+            while (target[j >>> segmentBits].getInt(offset(j)) != FREE) {
+                j = (j + 1) & mask;
+            }
+            target[j >>> segmentBits].put(offset(j), scratch);
+        }
+        MappedByteBuffer newHeader = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+        newHeader.putInt(SIZE_AT, size);
+        for (MappedByteBuffer segment : target) {
+            segment.force();
+        }
+        newHeader.force();
+    }
+
+    /** Empties slot I, shifting the rest of its run back. */
+    private void deleteAt(int i) {
+        int mask = (1 << bits) - 1;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            int hash = hashAt(j);
+            if (hash == FREE) {
+                break;
+            }
+            /* Move the entry at J back to I unless its home lies cyclically in (I, J]. */
+            int k = home(hash);
+            if (i <= j ? (k <= i || k > j) : (k <= i && k > j)) {
+                segment(j).get(offset(j), scratch);
+                segment(i).put(offset(i), scratch);
+                i = j;
+            }
+        }
+        segment(i).putInt(offset(i), FREE);
+        setSize(size - 1);
+    }
+
+    private void setSize(int newSize) {
+        size = newSize;
+        header.putInt(SIZE_AT, size);
+    }
+
+    /** Returns the length of every key. */
+    public int keyLength() {
+        return keyLength;
+    }
+
+    /** Returns the length of every value. */
+    public int valueLength() {
+        return valueLength;
+    }
+
+    /** Returns the number of slots in the table. */
+    public int capacity() {
+        return 1 << bits;
+    }
+
+    /**
+     * Points VIEW at the value of KEY and returns true, or returns false if
+     * there is no mapping for KEY. Allocates nothing.
+     */
+    public boolean get(byte[] key, ValueView view) {
+        int i = find(key);
+        if (i < 0) {
+            return false;
+        }
+        view.segment = segment(i);
+        view.offset = offset(i) + 4 + keyLength;
+        view.length = valueLength;
+        return true;
+    }
+
+    /** Writes every change to the file out to disk. */
+    public void flush() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.force();
+    }
+
+    /** Flushes the map. It may not be used afterwards. */
+    @Override
+    public void close() {
+        flush();
+        header = null;
+        segments = null;
+    }
+
+    @Override
+    public void clear() {
+        byte[] zeros = new byte[1 << 16];
+        for (MappedByteBuffer segment : segments) {
+            for (int at = 0; at < segment.capacity(); at += zeros.length) {
+                segment.put(at, zeros, 0, Math.min(zeros.length, segment.capacity() - at));
+            }
+        }
+        setSize(0);
+    }
+
+    @Override
+    public boolean containsKey(byte[] key) {
+        return find(key) >= 0;
+    }
+
+    /** Returns a copy of the value of KEY, or null. */
+    @Override
+    public byte[] get(byte[] key) {
+        int i = find(key);
+        if (i < 0) {
+            return null;
+        }
+        byte[] value = new byte[valueLength];
+        segment(i).get(offset(i) + 4 + keyLength, value);
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void put(byte[] key, byte[] value) {
+        if (value.length != valueLength) {
+            throw new IllegalArgumentException("values are " + valueLength + " bytes");
+        }
+        checkKey(key);
+        int hash = hash(key);
+        int i = probe(key, hash);
+        if (i < 0) {
+            if (size + 1 > maxLoad * capacity()) {
+                if (bits == MAX_BITS) {
+                    throw new IllegalStateException("map is full");
+                }
+                resize(bits + 1);
+                i = probe(key, hash);
+            }
+            i = -1 - i;
+            ByteBuffer segment = segment(i);
+            segment.putInt(offset(i), hash);
+            segment.put(offset(i) + 4, key);
+            setSize(size + 1);
+        }
+        segment(i).put(offset(i) + 4 + keyLength, value);
+    }
+
+    /** Returns a view of the keys, whose contains() compares bytes. */
+    @Override
+    public Set<byte[]> keySet() {
+        return new AbstractSet<byte[]>() {
+            @Override
+            public Iterator<byte[]> iterator() {
+                return OffHeapHashMap.this.iterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof byte[] && ((byte[]) o).length == keyLength
+                        && containsKey((byte[]) o);
+            }
+        };
+    }
+
+    @Override
+    public byte[] remove(byte[] key) {
+        int i = find(key);
+        if (i < 0) {
+            return null;
+        }
+        byte[] old = new byte[valueLength];
+        segment(i).get(offset(i) + 4 + keyLength, old);
+        deleteAt(i);
+        return old;
+    }
+
+    @Override
+    public byte[] remove(byte[] key, byte[] value) {
+        int i = find(key);
+        if (i < 0) {
+            return null;
+        }
+        byte[] old = new byte[valueLength];
+        segment(i).get(offset(i) + 4 + keyLength, old);
+        if (!Arrays.equals(old, value)) {
+            return null;
+        }
+        deleteAt(i);
+        return old;
+    }
+
+    /** Returns the keys, each as a new array. */
+    @Override
+    public Iterator<byte[]> iterator() {
+        return new Iterator<byte[]>() {
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < capacity() && hashAt(from) == FREE) {
+                    from += 1;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < capacity();
+            }
+
+            @Override
+            public byte[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                byte[] key = new byte[keyLength];
+                segment(next).get(offset(next) + 4, key);
+                next = advance(next + 1);
+                return key;
+            }
+        };
+    }
+
+    /**
+     * A reusable window onto one value in the file, pointed at it by
+     * get(key, view). Reads go straight to the mapping; multi-byte reads
+     * are big-endian.
+     */
+    public static final class ValueView {
+        private ByteBuffer segment;
+        private int offset;
+        private int length;
+
+        /** Returns the length of the value. */
+        public int length() {
+            return length;
+        }
+
+        private int at(int i, int bytes) {
+            if (segment == null || i < 0 || i + bytes > length) {
+                throw new IndexOutOfBoundsException("byte " + i + " of " + length);
+            }
+            return offset + i;
+        }
+
+        /** Returns byte I of the value. */
+        public byte get(int i) {
+            return segment.get(at(i, 1));
+        }
+
+        /** Returns the int at byte I of the value. */
+        public int getInt(int i) {
+            return segment.getInt(at(i, 4));
+        }
+
+        /** Returns the long at byte I of the value. */
+        public long getLong(int i) {
+            return segment.getLong(at(i, 8));
+        }
+
+        /** Copies the value into DST, starting at DST[FROM]. */
+        public void copyTo(byte[] dst, int from) {
+            segment.get(at(0, length), dst, from, length);
+        }
+    }
+}
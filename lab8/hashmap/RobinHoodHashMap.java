@@ -0,0 +1,306 @@
+package hashmap;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ *  An open-addressing Map61B using Robin Hood hashing. Each slot records
+ *  how far its entry sits from its home slot (its probe length); an
+ *  insertion that meets an entry closer to home than itself takes that
+ *  slot and carries the displaced entry on. This keeps probe lengths
+ *  short and even, so the table stays fast at load factors where
+ *  separate chaining or plain linear probing degrade, and a lookup can
+ *  stop as soon as it meets an entry closer to home than the key would be.
+ *
+ *  remove() shifts the rest of the run back one slot, so there are no
+ *  tombstones. The table doubles when the load factor would exceed
+ *  maxLoad, or when an insertion probes further than maxProbe slots and
+ *  the table is at least an eighth full. probeHistogram() shows how
+ *  maxLoad and maxProbe trade memory for probe length.
+ *
+ *  Assumes null keys will never be inserted.
+ *  @author Shuyuan Wang
+ */
+public class RobinHoodHashMap<K, V> implements Map61B<K, V>, HashTableStats {
+
+    private static final int DEFAULT_SIZE = 16;
+    private static final double DEFAULT_MAX_LOAD = 0.9;
+    private static final int DEFAULT_MAX_PROBE = 32;
+
+    private Object[] keys;
+    private Object[] values;
+    /** The spread hash of each key, to skip most equals() calls. */
+    private int[] hashes;
+    /** The probe length of each slot's entry plus one; 0 for a free slot. */
+    private int[] probes;
+    /** log2 of the table length. */
+    private int bits;
+    private int size;
+    /** The number of resizes so far. */
+    private int resizes;
+    private final double maxLoad;
+    private final int maxProbe;
+
+    public RobinHoodHashMap() {
+        this(DEFAULT_SIZE, DEFAULT_MAX_LOAD, DEFAULT_MAX_PROBE);
+    }
+
+    public RobinHoodHashMap(int initialSize) {
+        this(initialSize, DEFAULT_MAX_LOAD, DEFAULT_MAX_PROBE);
+    }
+
+    public RobinHoodHashMap(int initialSize, double maxLoad) {
+        this(initialSize, maxLoad, DEFAULT_MAX_PROBE);
+    }
+
+    /**
+     * @param initialSize the number of slots, rounded up to a power of two
+     * @param maxLoad maximum load factor, at most 1
+     * @param maxProbe the longest probe an insertion may take before the
+     *                 table is doubled
+     */
+    public RobinHoodHashMap(int initialSize, double maxLoad, int maxProbe) {
+        if (initialSize < 1 || maxLoad <= 0 || maxLoad > 1 || maxProbe < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.maxLoad = maxLoad;
+        this.maxProbe = maxProbe;
+        allocate(Math.max(1, 32 - Integer.numberOfLeadingZeros(initialSize - 1)));
+    }
+
+    private void allocate(int newBits) {
+        bits = newBits;
+        keys = new Object[1 << bits];
+        values = new Object[1 << bits];
+        hashes = new int[1 << bits];
+        probes = new int[1 << bits];
+    }
+
+    private static int spread(Object key) {
+        return key.hashCode() * 0x9E3779B9;
+    }
+
+    /** Returns the slot holding KEY, or -1. */
+    private int find(Object key) {
+        int hash = spread(key);
+        int mask = keys.length - 1;
+        int i = hash >>> (32 - bits);
+        for (int probe = 1; probes[i] >= probe; probe += 1) {
+            if (hashes[i] == hash && keys[i].equals(key)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Places KEY, known to be absent, with VALUE and HASH. Returns the
+     * longest probe length the insertion needed.
+     */
+    private int insert(Object key, Object value, int hash) {
+        int mask = keys.length - 1;
+        int i = hash >>> (32 - bits);
+        int probe = 1;
+        int longest = 1;
+        while (probes[i] != 0) {
+            if (probes[i] < probe) {
+                /* Take from the rich: swap in, carry the displaced entry on. */
+                Object k = keys[i];
+                Object v = values[i];
+                int h = hashes[i];
+                int p = probes[i];
+                keys[i] = key;
+                values[i] = value;
+                hashes[i] = hash;
+                probes[i] = probe;
+                key = k;
+                value = v;
+                hash = h;
+                probe = p;
+            }
+            i = (i + 1) & mask;
+            probe += 1;
+            longest = Math.max(longest, probe);
+        }
+        keys[i] = key;
+        values[i] = value;
+        hashes[i] = hash;
+        probes[i] = probe;
+        return longest;
+    }
+
+    private void resize(int newBits) {
+        resizes += 1;
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        int[] oldProbes = probes;
+        allocate(newBits);
+        for (int j = 0; j < oldKeys.length; j += 1) {
+            if (oldProbes[j] != 0) {
+                insert(oldKeys[j], oldValues[j], oldHashes[j]);
+            }
+        }
+    }
+
+    /** Empties slot I, shifting the rest of its run back one slot. */
+    private void deleteAt(int i) {
+        int mask = keys.length - 1;
+        int j = (i + 1) & mask;
+        while (probes[j] > 1) {
+            keys[i] = keys[j];
+            values[i] = values[j];
+            hashes[i] = hashes[j];
+            probes[i] = probes[j] - 1;
+            i = j;
+            j = (j + 1) & mask;
+        }
+        keys[i] = null;
+        values[i] = null;
+        probes[i] = 0;
+        size -= 1;
+    }
+
+    /**
+     * Returns the number of entries at each probe length: element d counts
+     * the entries d slots past their home slot.
+     */
+    public int[] probeHistogram() {
+        int longest = 0;
+        for (int probe : probes) {
+            longest = Math.max(longest, probe);
+        }
+        int[] histogram = new int[Math.max(longest, 1)];
+        for (int probe : probes) {
+            if (probe != 0) {
+                histogram[probe - 1] += 1;
+            }
+        }
+        return histogram;
+    }
+
+    /** Returns the number of slots in the table. */
+    @Override
+    public int capacity() {
+        return keys.length;
+    }
+
+    @Override
+    public int resizeCount() {
+        return resizes;
+    }
+
+    /** Returns probeHistogram(). */
+    @Override
+    public int[] occupancyHistogram() {
+        return probeHistogram();
+    }
+
+    @Override
+    public void clear() {
+        allocate(Math.max(1, 32 - Integer.numberOfLeadingZeros(DEFAULT_SIZE - 1)));
+        size = 0;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        int i = find(key);
+        return i < 0 ? null : (V) values[i];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        int i = find(key);
+        if (i >= 0) {
+            values[i] = value;
+            return;
+        }
+        if (size + 1 > maxLoad * keys.length) {
+            resize(bits + 1);
+        }
+        int longest = insert(key, value, spread(key));
+        size += 1;
+        /* A long probe in a sparse table means equal hashCodes, which
+         * doubling cannot spread out. */
+        if (longest > maxProbe && size > keys.length / 8) {
+            resize(bits + 1);
+        }
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> set = new HashSet<>();
+        for (K key : this) {
+            set.add(key);
+        }
+        return set;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int i = find(key);
+        if (i < 0) {
+            return null;
+        }
+        V old = (V) values[i];
+        deleteAt(i);
+        return old;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key, V value) {
+        int i = find(key);
+        if (i < 0 || !values[i].equals(value)) {
+            return null;
+        }
+        V old = (V) values[i];
+        deleteAt(i);
+        return old;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new Iterator<K>() {
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < probes.length && probes[from] == 0) {
+                    from += 1;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < probes.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public K next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                K key = (K) keys[next];
+                next = advance(next + 1);
+                return key;
+            }
+        };
+    }
+}
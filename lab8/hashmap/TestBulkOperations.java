@@ -0,0 +1,114 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/** Tests of putAll, getAll, putAllParallel and the key spliterator. */
+public class TestBulkOperations {
+
+    /** Returns N keys drawn from a range of N / 2, so about a third repeat. */
+    private static List<String> keys(int n, long seed) {
+        Random r = new Random(seed);
+        List<String> keys = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            keys.add("k" + r.nextInt(n / 2));
+        }
+        return keys;
+    }
+
+    private static List<Integer> values(int n) {
+        List<Integer> values = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            values.add(i);
+        }
+        return values;
+    }
+
+    /** Returns what putting KEYS with VALUES one at a time would make. */
+    private static HashMap<String, Integer> expected(List<String> keys, List<Integer> values) {
+        HashMap<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            expected.put(keys.get(i), values.get(i));
+        }
+        return expected;
+    }
+
+    private static void assertSameMapping(HashMap<String, Integer> expected,
+                                          Map61B<String, Integer> map) {
+        assertEquals(expected.size(), map.size());
+        List<String> keys = new ArrayList<>(expected.keySet());
+        List<Integer> values = map.getAll(keys);
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(expected.get(keys.get(i)), values.get(i));
+        }
+    }
+
+    @Test
+    public void putAllResizesOnceAndLaterDuplicatesWin() {
+        List<String> keys = keys(10000, 50);
+        List<Integer> values = values(keys.size());
+        MyHashMap<String, Integer> m = new MyHashMapALBuckets<>();
+        m.putAll(keys, values);
+        assertEquals(1, m.resizeCount());
+        assertTrue((double) m.size() / m.capacity() <= 0.75);
+        assertSameMapping(expected(keys, values), m);
+        assertEquals(Arrays.asList(null, null), m.getAll(Arrays.asList("absent", "k-1")));
+    }
+
+    @Test
+    public void defaultPutAllOnOtherMaps() {
+        List<String> keys = keys(2000, 51);
+        List<Integer> values = values(keys.size());
+        Map61B<String, Integer> m = new RobinHoodHashMap<>();
+        m.putAll(keys, values);
+        assertSameMapping(expected(keys, values), m);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putAllNeedsOneValuePerKey() {
+        new MyHashMap<String, Integer>().putAll(Arrays.asList("a", "b"), Arrays.asList(1));
+    }
+
+    @Test
+    public void putAllParallelMatchesSequentialForEveryBucketType() {
+        List<String> keys = keys(50000, 52);
+        List<Integer> values = values(keys.size());
+        List<MyHashMap<String, Integer>> maps = Arrays.asList(new MyHashMap<>(),
+                new MyHashMapALBuckets<>(), new MyHashMapLLBuckets<>(),
+                new MyHashMapTSBuckets<>(), new MyHashMapPQBuckets<>(),
+                new MyHashMapHSBuckets<>(), new MyHashMapTreeBuckets<>(),
+                new MyHashMap<>(16, 0.75, 4));
+        for (MyHashMap<String, Integer> m : maps) {
+            /* Some keys are there already, some repeat within the batch. */
+            List<String> first = keys.subList(0, 1000);
+            m.putAll(first, values.subList(0, 1000));
+            m.putAllParallel(keys, values);
+            assertSameMapping(expected(keys, values), m);
+        }
+    }
+
+    @Test
+    public void parallelKeyStreamSeesEveryKeyOnce() {
+        List<String> keys = keys(100000, 53);
+        MyHashMap<String, Integer> m = new MyHashMap<>(16, 0.75, 8);
+        for (int i = 0; i < keys.size(); i++) {
+            m.put(keys.get(i), i);
+        }
+        List<String> streamed = StreamSupport.stream(m.spliterator(), true)
+                .collect(Collectors.toList());
+        Set<String> distinct = new HashSet<>(streamed);
+        assertEquals(m.size(), streamed.size());
+        assertEquals(new HashSet<>(keys), distinct);
+        assertEquals(m.size(), StreamSupport.stream(m.spliterator(), false).count());
+    }
+}
@@ -0,0 +1,91 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/** Tests of CuckooHashMap against java.util.HashMap. */
+public class TestCuckooHashMap {
+
+    /** A key whose hashCode is chosen by the test. */
+    private static class Collider {
+        private final int id;
+        private final int hash;
+
+        Collider(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Collider && ((Collider) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Test
+    public void randomizedAtHighLoad() {
+        Random r = new Random(48);
+        CuckooHashMap<String, Integer> m = new CuckooHashMap<>(2, 0.95);
+        HashMap<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            String key = "k" + r.nextInt(5000);
+            int op = r.nextInt(3);
+            if (op == 0) {
+                m.put(key, i);
+                expected.put(key, i);
+            } else if (op == 1) {
+                assertEquals(expected.remove(key), m.remove(key));
+            } else {
+                assertEquals(expected.get(key), m.get(key));
+                assertEquals(expected.containsKey(key), m.containsKey(key));
+            }
+            assertEquals(expected.size(), m.size());
+        }
+        assertEquals(expected.keySet(), m.keySet());
+    }
+
+    @Test
+    public void fillsPresizedTableWithoutGrowing() {
+        CuckooHashMap<Integer, Integer> m = new CuckooHashMap<>(1 << 16, 0.95);
+        int n = (int) (0.95 * (1 << 16));
+        for (int i = 0; i < n; i++) {
+            m.put(i * 31, i);
+        }
+        assertEquals(1 << 16, m.capacity());
+        assertTrue(m.stashSize() <= 4);
+        for (int i = 0; i < n; i++) {
+            assertEquals(Integer.valueOf(i), m.get(i * 31));
+        }
+    }
+
+    @Test
+    public void equalHashCodesGoToTheStash() {
+        CuckooHashMap<Collider, Integer> m = new CuckooHashMap<>(64);
+        Collider[] keys = new Collider[20];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new Collider(i, 7);
+            m.put(keys[i], i);
+        }
+        /* Two buckets of four hold eight; the rest must be stashed. */
+        assertEquals(12, m.stashSize());
+        assertTrue(m.capacity() <= 1024);
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(Integer.valueOf(i), m.get(keys[i]));
+        }
+        for (int i = 0; i < 12; i++) {
+            assertEquals(Integer.valueOf(i), m.remove(keys[i]));
+        }
+        /* Removals free slots, which stashed entries move into. */
+        assertEquals(0, m.stashSize());
+        assertEquals(8, m.size());
+        assertEquals(Integer.valueOf(19), m.get(keys[19]));
+    }
+}
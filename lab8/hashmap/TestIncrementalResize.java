@@ -0,0 +1,47 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/** Tests of MyHashMap resizing incrementally. */
+public class TestIncrementalResize {
+
+    @Test
+    public void sanityTests() {
+        TestMyHashMap.sanityClearTest(new MyHashMap<>(1, 0.75, 1));
+        TestMyHashMap.sanityContainsKeyTest(new MyHashMap<>(1, 0.75, 1));
+        TestMyHashMap.sanityGetTest(new MyHashMap<>(1, 0.75, 1));
+        TestMyHashMap.sanitySizeTest(new MyHashMap<>(1, 0.75, 1));
+        TestMyHashMap.sanityPutTest(new MyHashMap<>(1, 0.75, 1));
+        TestMyHashMap.sanityKeySetTest(new MyHashMap<>(1, 0.75, 1));
+        TestMyHashMap.functionalityTest(new MyHashMap<>(1, 0.75, 1), new MyHashMap<>(1, 0.75, 1));
+    }
+
+    @Test
+    public void randomizedWhileMigrating() {
+        Random r = new Random(66);
+        MyHashMap<String, Integer> m = new MyHashMap<>(1, 0.75, 1);
+        HashMap<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            String key = "k" + r.nextInt(20000);
+            int op = r.nextInt(4);
+            if (op <= 1) {
+                m.put(key, i);
+                expected.put(key, i);
+            } else if (op == 2) {
+                assertEquals(expected.remove(key), m.remove(key));
+            } else {
+                assertEquals(expected.get(key), m.get(key));
+                assertEquals(expected.containsKey(key), m.containsKey(key));
+            }
+            assertEquals(expected.size(), m.size());
+            if (i % 50000 == 0) {
+                assertEquals(expected.keySet(), m.keySet());
+            }
+        }
+        assertEquals(expected.keySet(), m.keySet());
+    }
+}
@@ -0,0 +1,112 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/** Tests of InstrumentedMap61B, LatencyHistogram and HashTableStats. */
+public class TestInstrumentedMap61B {
+
+    @Test
+    public void histogramPercentilesWithinThreePercent() {
+        LatencyHistogram h = new LatencyHistogram();
+        long[] values = new long[100000];
+        Random r = new Random(49);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(r.nextDouble() * 20);
+            h.record(values[i]);
+        }
+        Arrays.sort(values);
+        assertEquals(values.length, h.count());
+        assertEquals(values[values.length - 1], h.max());
+        for (double p : new double[] {1, 50, 90, 99, 99.9, 100}) {
+            long exact = values[(int) Math.ceil(p / 100 * values.length) - 1];
+            long approx = h.percentile(p);
+            assertTrue(p + ": " + approx + " vs " + exact,
+                    approx >= exact && approx <= exact + exact / 32 + 1);
+        }
+        h.reset();
+        assertEquals(0, h.count());
+        assertEquals(0, h.percentile(50));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 0; i < 64; i++) {
+            h.record(i);
+        }
+        assertEquals(31, h.percentile(50));
+        assertEquals(63, h.percentile(100));
+        assertEquals(31.5, h.mean(), 1e-9);
+    }
+
+    @Test
+    public void countsOperationsAndResizes() {
+        InstrumentedMap61B<String, Integer> m =
+                new InstrumentedMap61B<>(new MyHashMapALBuckets<>(16, 0.75));
+        for (int i = 0; i < 100; i++) {
+            m.put("k" + i, i);
+        }
+        for (int i = 0; i < 50; i++) {
+            assertEquals(Integer.valueOf(i), m.get("k" + i));
+        }
+        assertTrue(m.containsKey("k7"));
+        assertEquals(Integer.valueOf(8), m.remove("k8"));
+        assertEquals(100, m.count(InstrumentedMap61B.Op.PUT));
+        assertEquals(50, m.count(InstrumentedMap61B.Op.GET));
+        assertEquals(1, m.count(InstrumentedMap61B.Op.CONTAINS_KEY));
+        assertEquals(1, m.count(InstrumentedMap61B.Op.REMOVE));
+
+        /* 16 -> 32 -> 64 -> 128 -> 256 buckets, the last when 97 > 0.75 * 128. */
+        assertEquals(4, m.resizes().size());
+        assertEquals(16, m.resizes().get(0).from);
+        assertEquals(256, m.resizes().get(3).to);
+        assertEquals(97, m.resizes().get(3).size);
+        assertTrue(m.report().contains("resizes 4"));
+    }
+
+    @Test
+    public void disabledRecordsNothing() {
+        InstrumentedMap61B<String, Integer> m =
+                new InstrumentedMap61B<>(new MyHashMapLLBuckets<>(), false);
+        for (int i = 0; i < 100; i++) {
+            m.put("k" + i, i);
+            m.get("k" + i);
+        }
+        assertEquals(0, m.count(InstrumentedMap61B.Op.PUT));
+        assertEquals(0, m.count(InstrumentedMap61B.Op.GET));
+        assertTrue(m.resizes().isEmpty());
+        assertEquals(100, m.size());
+        m.setEnabled(true);
+        m.get("k1");
+        assertEquals(1, m.count(InstrumentedMap61B.Op.GET));
+    }
+
+    @Test
+    public void occupancyHistogramCoversTheTable() {
+        MyHashMap<Integer, Integer> chained = new MyHashMapHSBuckets<>(64, 100);
+        for (int i = 0; i < 640; i++) {
+            chained.put(i, i);
+        }
+        int[] histogram = chained.occupancyHistogram();
+        int buckets = 0;
+        int entries = 0;
+        for (int d = 0; d < histogram.length; d++) {
+            buckets += histogram[d];
+            entries += d * histogram[d];
+        }
+        assertEquals(64, buckets);
+        assertEquals(640, entries);
+        assertEquals(0, chained.resizeCount());
+
+        RobinHoodHashMap<Integer, Integer> robinHood = new RobinHoodHashMap<>(2);
+        for (int i = 0; i < 100; i++) {
+            robinHood.put(i, i);
+        }
+        assertEquals(100, Arrays.stream(robinHood.occupancyHistogram()).sum());
+        assertTrue(robinHood.resizeCount() > 0);
+    }
+}
@@ -0,0 +1,119 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** Tests of MyConcurrentHashMap, alone and from several threads. */
+public class TestMyConcurrentHashMap {
+
+    @Test
+    public void randomizedSingleThread() {
+        Random r = new Random(65);
+        MyConcurrentHashMap<String, Integer> m = new MyConcurrentHashMap<>(1, 0.75, 4);
+        HashMap<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            String key = "k" + r.nextInt(5000);
+            int op = r.nextInt(4);
+            if (op == 0) {
+                m.put(key, i);
+                expected.put(key, i);
+            } else if (op == 1) {
+                assertEquals(expected.remove(key), m.remove(key));
+            } else if (op == 2) {
+                Integer value = r.nextBoolean() ? expected.get(key) : Integer.valueOf(-1);
+                Integer removed = value != null && value.equals(expected.get(key))
+                        ? expected.remove(key) : null;
+                assertEquals(removed, m.remove(key, value == null ? -1 : value));
+            } else {
+                assertEquals(expected.get(key), m.get(key));
+                assertEquals(expected.containsKey(key), m.containsKey(key));
+            }
+            assertEquals(expected.size(), m.size());
+        }
+        assertEquals(expected.keySet(), m.keySet());
+        m.clear();
+        assertEquals(0, m.size());
+        assertFalse(m.iterator().hasNext());
+    }
+
+    /** Each thread puts and removes its own keys while the table grows. */
+    @Test
+    public void disjointWritersWithReaders() throws InterruptedException {
+        MyConcurrentHashMap<String, Integer> m = new MyConcurrentHashMap<>(1, 0.75, 2);
+        int threads = 4;
+        int perThread = 20000;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < perThread; i++) {
+                        m.put(id + ":" + i, i);
+                        /* Another thread's keys are either absent or right. */
+                        Integer other = m.get(((id + 1) % threads) + ":" + i);
+                        assertTrue(other == null || other == i);
+                        assertEquals(Integer.valueOf(i), m.get(id + ":" + i));
+                    }
+                    for (int i = 0; i < perThread; i += 2) {
+                        assertEquals(Integer.valueOf(i), m.remove(id + ":" + i));
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        Set<String> expected = new HashSet<>();
+        for (int t = 0; t < threads; t++) {
+            for (int i = 1; i < perThread; i += 2) {
+                expected.add(t + ":" + i);
+            }
+        }
+        assertEquals(expected.size(), m.size());
+        assertEquals(expected, m.keySet());
+        for (String key : expected) {
+            assertTrue(m.containsKey(key));
+        }
+    }
+
+    /** Threads race to put and remove the same few keys. */
+    @Test
+    public void contendedKeysKeepSizeConsistent() throws InterruptedException {
+        MyConcurrentHashMap<Integer, Integer> m = new MyConcurrentHashMap<>(1, 0.75, 1);
+        Thread[] workers = new Thread[4];
+        for (int t = 0; t < workers.length; t++) {
+            Random r = new Random(t);
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < 50000; i++) {
+                    int key = r.nextInt(200);
+                    if (r.nextBoolean()) {
+                        m.put(key, key);
+                    } else {
+                        m.remove(key);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(m.keySet().size(), m.size());
+        for (int key : m) {
+            assertEquals(Integer.valueOf(key), m.get(key));
+        }
+    }
+}
@@ -36,6 +36,11 @@ public class TestMyHashMapBuckets {
         b = new MyHashMapPQBuckets<>();
         c = new MyHashMapPQBuckets<>();
         d = new MyHashMapPQBuckets<>();
+
+        a = new MyHashMapTreeBuckets<>();
+        b = new MyHashMapTreeBuckets<>();
+        c = new MyHashMapTreeBuckets<>();
+        d = new MyHashMapTreeBuckets<>();
     }
 
     //assumes put/size/containsKey/get work
@@ -46,6 +51,7 @@ public class TestMyHashMapBuckets {
         TestMyHashMap.sanityClearTest(new MyHashMapTSBuckets<>());
         TestMyHashMap.sanityClearTest(new MyHashMapHSBuckets<>());
         TestMyHashMap.sanityClearTest(new MyHashMapPQBuckets<>());
+        TestMyHashMap.sanityClearTest(new MyHashMapTreeBuckets<>());
     }
 
     // assumes put works
@@ -56,6 +62,7 @@ public class TestMyHashMapBuckets {
         TestMyHashMap.sanityContainsKeyTest(new MyHashMapTSBuckets<>());
         TestMyHashMap.sanityContainsKeyTest(new MyHashMapHSBuckets<>());
         TestMyHashMap.sanityContainsKeyTest(new MyHashMapPQBuckets<>());
+        TestMyHashMap.sanityContainsKeyTest(new MyHashMapTreeBuckets<>());
     }
 
     // assumes put works
@@ -66,6 +73,7 @@ public class TestMyHashMapBuckets {
         TestMyHashMap.sanityGetTest(new MyHashMapTSBuckets<>());
         TestMyHashMap.sanityGetTest(new MyHashMapHSBuckets<>());
         TestMyHashMap.sanityGetTest(new MyHashMapPQBuckets<>());
+        TestMyHashMap.sanityGetTest(new MyHashMapTreeBuckets<>());
     }
 
     // assumes put works
@@ -76,6 +84,7 @@ public class TestMyHashMapBuckets {
         TestMyHashMap.sanitySizeTest(new MyHashMapTSBuckets<>());
         TestMyHashMap.sanitySizeTest(new MyHashMapHSBuckets<>());
         TestMyHashMap.sanitySizeTest(new MyHashMapPQBuckets<>());
+        TestMyHashMap.sanitySizeTest(new MyHashMapTreeBuckets<>());
     }
 
     //assumes get/containskey work
@@ -86,6 +95,7 @@ public class TestMyHashMapBuckets {
         TestMyHashMap.sanityPutTest(new MyHashMapTSBuckets<>());
         TestMyHashMap.sanityPutTest(new MyHashMapHSBuckets<>());
         TestMyHashMap.sanityPutTest(new MyHashMapPQBuckets<>());
+        TestMyHashMap.sanityPutTest(new MyHashMapTreeBuckets<>());
     }
 
     @Test
@@ -95,6 +105,7 @@ public class TestMyHashMapBuckets {
         TestMyHashMap.sanityKeySetTest(new MyHashMapTSBuckets<>());
         TestMyHashMap.sanityKeySetTest(new MyHashMapHSBuckets<>());
         TestMyHashMap.sanityKeySetTest(new MyHashMapPQBuckets<>());
+        TestMyHashMap.sanityKeySetTest(new MyHashMapTreeBuckets<>());
     }
 
     // Test for general functionality and that the properties of Maps hold.
@@ -105,5 +116,41 @@ public class TestMyHashMapBuckets {
         TestMyHashMap.functionalityTest(new MyHashMapTSBuckets<>(), new MyHashMapTSBuckets<>());
         TestMyHashMap.functionalityTest(new MyHashMapHSBuckets<>(), new MyHashMapHSBuckets<>());
         TestMyHashMap.functionalityTest(new MyHashMapPQBuckets<>(), new MyHashMapPQBuckets<>());
+        TestMyHashMap.functionalityTest(new MyHashMapTreeBuckets<>(), new MyHashMapTreeBuckets<>());
+    }
+
+    // Keys that all share one hashCode, so one bucket turns into a tree and back.
+    @Test
+    public void treeBucketsCollidingKeysTest() {
+        MyHashMapTreeBuckets<String, Integer> m = new MyHashMapTreeBuckets<>();
+        for (int i = 0; i < 1024; i++) {
+            m.put(collidingString(i, 10), i);
+        }
+        assertEquals(1024, m.size());
+        for (int i = 0; i < 1024; i++) {
+            assertEquals(Integer.valueOf(i), m.get(collidingString(i, 10)));
+        }
+        for (int i = 0; i < 1024; i += 1) {
+            if (i % 100 != 0) {
+                assertEquals(Integer.valueOf(i), m.remove(collidingString(i, 10)));
+            }
+        }
+        assertEquals(11, m.size());
+        for (int i = 0; i < 1024; i += 100) {
+            assertTrue(m.containsKey(collidingString(i, 10)));
+        }
+        assertEquals(11, m.keySet().size());
+    }
+
+    /**
+     * Returns the Ith of 2^BITS strings with the same hashCode, made of the
+     * blocks "Aa" and "BB", which hash alike.
+     */
+    private static String collidingString(int i, int bits) {
+        StringBuilder s = new StringBuilder();
+        for (int b = bits - 1; b >= 0; b--) {
+            s.append(((i >> b) & 1) == 0 ? "Aa" : "BB");
+        }
+        return s.toString();
     }
 }
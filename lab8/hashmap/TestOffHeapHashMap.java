@@ -0,0 +1,113 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+/** Tests of OffHeapHashMap against java.util.HashMap. */
+public class TestOffHeapHashMap {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** Returns the low LENGTH bytes of N, big-endian. */
+    private static byte[] bytes(long n, int length) {
+        byte[] b = new byte[length];
+        for (int j = 0; j < length && j < 8; j++) {
+            b[length - 1 - j] = (byte) (n >>> (8 * j));
+        }
+        return b;
+    }
+
+    @Test
+    public void randomizedWithResizes() throws IOException {
+        Random r = new Random(47);
+        OffHeapHashMap m = new OffHeapHashMap(new File(folder.getRoot(), "map"), 8, 8);
+        HashMap<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            long key = r.nextInt(5000);
+            int op = r.nextInt(3);
+            if (op == 0) {
+                m.put(bytes(key, 8), bytes(i, 8));
+                expected.put(key, (long) i);
+            } else if (op == 1) {
+                byte[] old = m.remove(bytes(key, 8));
+                Long value = expected.remove(key);
+                assertEquals(value, old == null ? null : ByteBuffer.wrap(old).getLong());
+            } else {
+                byte[] value = m.get(bytes(key, 8));
+                assertEquals(expected.get(key), value == null ? null : ByteBuffer.wrap(value).getLong());
+                assertEquals(expected.containsKey(key), m.containsKey(bytes(key, 8)));
+            }
+            assertEquals(expected.size(), m.size());
+        }
+        int count = 0;
+        for (byte[] key : m) {
+            assertTrue(expected.containsKey(ByteBuffer.wrap(key).getLong()));
+            count += 1;
+        }
+        assertEquals(expected.size(), count);
+        assertTrue(m.keySet().contains(bytes(expected.keySet().iterator().next(), 8)));
+        m.clear();
+        assertEquals(0, m.size());
+        assertFalse(m.iterator().hasNext());
+        m.close();
+    }
+
+    @Test
+    public void reopensWithoutRebuilding() throws IOException {
+        File file = new File(folder.getRoot(), "map");
+        OffHeapHashMap m = new OffHeapHashMap(file, 4, 12, 1 << 12);
+        for (int i = 0; i < 3000; i++) {
+            m.put(bytes(i, 4), bytes(i * 7, 12));
+        }
+        m.remove(bytes(5, 4));
+        m.close();
+        int capacity = m.capacity();
+
+        OffHeapHashMap reopened = new OffHeapHashMap(file, 4, 12);
+        assertEquals(2999, reopened.size());
+        assertEquals(capacity, reopened.capacity());
+        assertNull(reopened.get(bytes(5, 4)));
+        assertArrayEquals(bytes(7 * 2999, 12), reopened.get(bytes(2999, 4)));
+        reopened.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reopenWithOtherLengths() throws IOException {
+        File file = new File(folder.getRoot(), "map");
+        new OffHeapHashMap(file, 4, 12).close();
+        new OffHeapHashMap(file, 8, 12);
+    }
+
+    @Test
+    public void viewReadsValueInPlace() throws IOException {
+        OffHeapHashMap m = new OffHeapHashMap(new File(folder.getRoot(), "map"), 8, 16);
+        byte[] value = ByteBuffer.allocate(16).putLong(61).putInt(8).array();
+        m.put(bytes(1, 8), value);
+        OffHeapHashMap.ValueView view = new OffHeapHashMap.ValueView();
+        assertFalse(m.get(bytes(2, 8), view));
+        assertTrue(m.get(bytes(1, 8), view));
+        assertEquals(16, view.length());
+        assertEquals(61, view.getLong(0));
+        assertEquals(8, view.getInt(8));
+        byte[] copy = new byte[20];
+        view.copyTo(copy, 4);
+        assertArrayEquals(value, Arrays.copyOfRange(copy, 4, 20));
+        try {
+            view.getLong(12);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            /* Past the end of the value. */
+        }
+        m.close();
+    }
+}
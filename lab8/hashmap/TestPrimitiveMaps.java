@@ -0,0 +1,104 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/** Tests of IntIntMap, LongObjectMap and ObjectIntMap against java.util.HashMap. */
+public class TestPrimitiveMaps {
+
+    @Test
+    public void intIntZeroKey() {
+        IntIntMap m = new IntIntMap();
+        assertFalse(m.containsKey(0));
+        assertEquals(-1, m.getOrDefault(0, -1));
+        m.put(0, 7);
+        assertTrue(m.containsKey(0));
+        assertEquals(Integer.valueOf(7), m.get(Integer.valueOf(0)));
+        assertEquals(1, m.size());
+        assertTrue(m.keySet().contains(0));
+        assertEquals(7, m.removeOrDefault(0, -1));
+        assertEquals(0, m.size());
+        assertNull(m.get(Integer.valueOf(0)));
+    }
+
+    @Test
+    public void intIntRandomized() {
+        Random r = new Random(61);
+        IntIntMap m = new IntIntMap(2);
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            int key = r.nextInt(5000) - 2500;  // Lots of collisions, removals and the zero key.
+            int op = r.nextInt(3);
+            if (op == 0) {
+                m.put(key, i);
+                expected.put(key, i);
+            } else if (op == 1) {
+                Integer old = expected.remove(key);
+                assertEquals(old == null ? -1 : old, m.removeOrDefault(key, -1));
+            } else {
+                assertEquals(expected.get(key), m.get(Integer.valueOf(key)));
+            }
+            assertEquals(expected.size(), m.size());
+        }
+        assertEquals(expected.keySet(), m.keySet());
+    }
+
+    @Test
+    public void longObjectRandomized() {
+        Random r = new Random(62);
+        LongObjectMap<String> m = new LongObjectMap<>();
+        HashMap<Long, String> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            long key = (r.nextInt(5000) - 2500) * 0x100000000L;  // Differ only in the high bits.
+            int op = r.nextInt(3);
+            if (op == 0) {
+                m.put(key, "v" + i);
+                expected.put(key, "v" + i);
+            } else if (op == 1) {
+                assertEquals(expected.remove(key), m.remove(key));
+            } else {
+                assertEquals(expected.get(key), m.get(key));
+                assertEquals(expected.containsKey(key), m.containsKey(key));
+            }
+            assertEquals(expected.size(), m.size());
+        }
+        assertEquals(expected.keySet(), m.keySet());
+    }
+
+    @Test
+    public void objectIntRandomized() {
+        Random r = new Random(63);
+        ObjectIntMap<String> m = new ObjectIntMap<>();
+        HashMap<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            String key = "k" + r.nextInt(5000);
+            int op = r.nextInt(3);
+            if (op == 0) {
+                m.put(key, i);
+                expected.put(key, i);
+            } else if (op == 1) {
+                assertEquals(expected.remove(key), m.remove(key));
+            } else {
+                assertEquals(expected.get(key), m.get(key));
+                assertEquals(expected.getOrDefault(key, -1).intValue(), m.getOrDefault(key, -1));
+            }
+            assertEquals(expected.size(), m.size());
+        }
+        assertEquals(expected.keySet(), m.keySet());
+        m.clear();
+        assertEquals(0, m.size());
+        assertFalse(m.iterator().hasNext());
+    }
+
+    @Test
+    public void removeWithValue() {
+        ObjectIntMap<String> m = new ObjectIntMap<>();
+        m.put("a", 1);
+        assertNull(m.remove("a", 2));
+        assertEquals(Integer.valueOf(1), m.remove("a", 1));
+        assertFalse(m.containsKey("a"));
+    }
+}
@@ -0,0 +1,106 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/** Tests of RobinHoodHashMap against java.util.HashMap. */
+public class TestRobinHoodHashMap {
+
+    /** A key whose hashCode is chosen by the test. */
+    private static class Collider {
+        private final int id;
+        private final int hash;
+
+        Collider(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Collider && ((Collider) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Test
+    public void randomizedAtFullLoad() {
+        Random r = new Random(64);
+        RobinHoodHashMap<String, Integer> m = new RobinHoodHashMap<>(2, 1.0, 4);
+        HashMap<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            String key = "k" + r.nextInt(5000);
+            int op = r.nextInt(3);
+            if (op == 0) {
+                m.put(key, i);
+                expected.put(key, i);
+            } else if (op == 1) {
+                assertEquals(expected.remove(key), m.remove(key));
+            } else {
+                assertEquals(expected.get(key), m.get(key));
+                assertEquals(expected.containsKey(key), m.containsKey(key));
+            }
+            assertEquals(expected.size(), m.size());
+        }
+        assertEquals(expected.keySet(), m.keySet());
+    }
+
+    @Test
+    public void backwardShiftKeepsCollidingKeysReachable() {
+        RobinHoodHashMap<Collider, Integer> m = new RobinHoodHashMap<>(64, 0.9, 1000);
+        Collider[] keys = new Collider[40];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new Collider(i, i % 4);
+            m.put(keys[i], i);
+        }
+        for (int i = 0; i < keys.length; i += 3) {
+            assertEquals(Integer.valueOf(i), m.remove(keys[i]));
+        }
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(i % 3 == 0 ? null : Integer.valueOf(i), m.get(keys[i]));
+        }
+        assertEquals(keys.length - 14, m.size());
+    }
+
+    @Test
+    public void equalHashCodesDoNotGrowTheTable() {
+        RobinHoodHashMap<Collider, Integer> m = new RobinHoodHashMap<>(16, 0.9, 2);
+        for (int i = 0; i < 200; i++) {
+            m.put(new Collider(i, 7), i);
+        }
+        assertEquals(200, m.size());
+        assertTrue(m.capacity() <= 8 * 2 * 200);
+    }
+
+    @Test
+    public void histogramCountsEveryEntry() {
+        RobinHoodHashMap<Integer, Integer> m = new RobinHoodHashMap<>(16, 0.95, 8);
+        for (int i = 0; i < 10000; i++) {
+            m.put(i * 31, i);
+        }
+        int[] histogram = m.probeHistogram();
+        int total = 0;
+        for (int count : histogram) {
+            total += count;
+        }
+        assertEquals(10000, total);
+        assertTrue(histogram.length <= 8);
+    }
+
+    @Test
+    public void removeWithValue() {
+        RobinHoodHashMap<String, String> m = new RobinHoodHashMap<>();
+        m.put("a", "x");
+        assertNull(m.remove("a", "y"));
+        assertEquals("x", m.remove("a", "x"));
+        assertFalse(m.containsKey("a"));
+        assertNull(m.remove("a", "x"));
+    }
+}
@@ -0,0 +1,36 @@
+package hashmap.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/** Runs the hashmap benchmarks unattended, replacing the prompts of the
+ *  Scanner-driven speed tests with JMH options.
+ *
+ *  Usage: java -jar target/benchmarks.jar [JMH OPTIONS] [REGEX]
+ *  REGEX selects benchmarks (default: everything in hashmap.bench), and
+ *  -p sets parameters, e.g. -p impl=MyHashMapALBuckets,RobinHoodHashMap -p n=100000.
+ *  Results are written as JSON to jmh-result.json unless -rf/-rff say
+ *  otherwise, so runs at different commits can be compared.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        ChainedOptionsBuilder opts = new OptionsBuilder().parent(cmd);
+        if (cmd.getIncludes().isEmpty()) {
+            opts.include("hashmap\\.bench\\..*");
+        }
+        if (!cmd.getResultFormat().hasValue()) {
+            opts.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cmd.getResult().hasValue()) {
+            opts.result("jmh-result.json");
+        }
+        new Runner(opts.build()).run();
+    }
+}
@@ -0,0 +1,124 @@
+package hashmap.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hashmap.Map61B;
+import hashmap.MyHashMap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
+
+/** The bulk operations of MyHashMap against the one-key-at-a-time path
+ *  they replace: filling an empty map with put(), putAll() and
+ *  putAllParallel(); looking every key up with get() and getAll(); and
+ *  going over every key sequentially and with a parallel stream. The
+ *  parallel ones use the common fork-join pool, so run them on a machine
+ *  with several cores, or set its parallelism with
+ *  -jvmArgsAppend -Djava.util.concurrent.ForkJoinPool.common.parallelism=N.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BulkBenchmark {
+
+    /** The MyHashMap variant, by class name. */
+    @Param({"MyHashMap", "MyHashMapALBuckets", "MyHashMapHSBuckets"})
+    public String impl;
+
+    /** Number of keys. */
+    @Param({"100000", "1000000"})
+    public int n;
+
+    /** Key length. */
+    @Param({"10"})
+    public int length;
+
+    private String[] keyArray;
+    private Integer[] values;
+    private List<String> keyList;
+    private List<Integer> valueList;
+    /** A map already holding every key, for the lookups and iteration. */
+    private MyHashMap<String, Integer> full;
+
+    @Setup
+    public void generate() {
+        keyArray = Keys.generate("random", n, length);
+        values = Keys.values(n);
+        keyList = Arrays.asList(keyArray);
+        valueList = Arrays.asList(values);
+        full = create();
+        full.putAll(keyList, valueList);
+    }
+
+    private MyHashMap<String, Integer> create() {
+        Map61B<String, Integer> map = Maps.create(impl);
+        if (!(map instanceof MyHashMap)) {
+            throw new IllegalStateException(impl + " has no parallel bulk put");
+        }
+        return (MyHashMap<String, Integer>) map;
+    }
+
+    @Benchmark
+    public Map61B<String, Integer> putEach() {
+        MyHashMap<String, Integer> map = create();
+        for (int i = 0; i < keyArray.length; i += 1) {
+            map.put(keyArray[i], values[i]);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Map61B<String, Integer> putAll() {
+        MyHashMap<String, Integer> map = create();
+        map.putAll(keyList, valueList);
+        return map;
+    }
+
+    @Benchmark
+    public Map61B<String, Integer> putAllParallel() {
+        MyHashMap<String, Integer> map = create();
+        map.putAllParallel(keyList, valueList);
+        return map;
+    }
+
+    @Benchmark
+    public int getEach() {
+        int found = 0;
+        for (String key : keyArray) {
+            if (full.get(key) != null) {
+                found += 1;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public List<Integer> getAll() {
+        return full.getAll(keyList);
+    }
+
+    @Benchmark
+    public int keysSequential() {
+        return StreamSupport.stream(full.spliterator(), false).mapToInt(String::hashCode).sum();
+    }
+
+    @Benchmark
+    public int keysParallel() {
+        return StreamSupport.stream(full.spliterator(), true).mapToInt(String::hashCode).sum();
+    }
+}
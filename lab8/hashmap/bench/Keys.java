@@ -0,0 +1,56 @@
+package hashmap.bench;
+
+import speed.KeyCorpus;
+
+/** Deterministic String keys for the map benchmarks, made before timing
+ *  starts so that no benchmark measures key generation.
+ */
+final class Keys {
+
+    private static final int ALPHABET_SIZE = 26;
+    /** The seed of the random keys, the one the speed tests use. */
+    private static final long SEED = 61;
+
+    private Keys() {
+    }
+
+    /** Returns N keys of LENGTH lower-case letters, for DISTRIBUTION:
+     *  "random" takes them from a KeyCorpus with a fixed seed, and
+     *  "inorder" counts up from "aa...a", as InsertInOrderSpeedTest does. */
+    static String[] generate(String distribution, int n, int length) {
+        String[] keys = new String[n];
+        switch (distribution) {
+            case "random":
+                KeyCorpus corpus = KeyCorpus.random(n, length, SEED);
+                for (int i = 0; i < n; i += 1) {
+                    keys[i] = corpus.key(i);
+                }
+                return keys;
+            case "inorder":
+                if (Math.pow(ALPHABET_SIZE, length) < n) {
+                    throw new IllegalArgumentException(n + " keys do not fit in length " + length);
+                }
+                for (int i = 0; i < n; i += 1) {
+                    char[] chars = new char[length];
+                    int rest = i;
+                    for (int j = length - 1; j >= 0; j -= 1) {
+                        chars[j] = (char) ('a' + rest % ALPHABET_SIZE);
+                        rest /= ALPHABET_SIZE;
+                    }
+                    keys[i] = new String(chars);
+                }
+                return keys;
+            default:
+                throw new IllegalArgumentException("unknown key distribution " + distribution);
+        }
+    }
+
+    /** Returns the values to put with N keys, boxed ahead of time. */
+    static Integer[] values(int n) {
+        Integer[] values = new Integer[n];
+        for (int i = 0; i < n; i += 1) {
+            values[i] = i;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,49 @@
+package hashmap.bench;
+
+import hashmap.Map61B;
+import hashmap.MyConcurrentHashMap;
+import hashmap.MyHashMap;
+import hashmap.MyHashMapALBuckets;
+import hashmap.MyHashMapHSBuckets;
+import hashmap.MyHashMapLLBuckets;
+import hashmap.MyHashMapPQBuckets;
+import hashmap.MyHashMapTSBuckets;
+import hashmap.MyHashMapTreeBuckets;
+import hashmap.RobinHoodHashMap;
+import hashmap.ULLMap;
+
+/** Makes an empty map of each Map61B implementation, by class name, for
+ *  the impl parameter of the benchmarks.
+ */
+final class Maps {
+
+    private Maps() {
+    }
+
+    static Map61B<String, Integer> create(String impl) {
+        switch (impl) {
+            case "ULLMap":
+                return new ULLMap<>();
+            case "MyHashMap":
+                return new MyHashMap<>();
+            case "MyHashMapALBuckets":
+                return new MyHashMapALBuckets<>();
+            case "MyHashMapLLBuckets":
+                return new MyHashMapLLBuckets<>();
+            case "MyHashMapTSBuckets":
+                return new MyHashMapTSBuckets<>();
+            case "MyHashMapPQBuckets":
+                return new MyHashMapPQBuckets<>();
+            case "MyHashMapHSBuckets":
+                return new MyHashMapHSBuckets<>();
+            case "MyHashMapTreeBuckets":
+                return new MyHashMapTreeBuckets<>();
+            case "RobinHoodHashMap":
+                return new RobinHoodHashMap<>();
+            case "MyConcurrentHashMap":
+                return new MyConcurrentHashMap<>();
+            default:
+                throw new IllegalArgumentException("unknown map " + impl);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package hashmap.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hashmap.Map61B;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Time per operation on a map holding N keys, for a mix of get, put and
+ *  remove on keys drawn at random from those N. The operations are drawn
+ *  ahead of time from a fixed seed, so every map sees the same sequence.
+ *  Maps that do not support remove only run the mixes without it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OperationBenchmark {
+
+    /** The number of operations drawn; they repeat after this many. */
+    private static final int OPS = 1 << 16;
+    private static final byte GET = 0;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    /** The Map61B implementation, by class name. */
+    @Param({"ULLMap", "MyHashMap", "MyHashMapALBuckets", "MyHashMapLLBuckets",
+            "MyHashMapTSBuckets", "MyHashMapPQBuckets", "MyHashMapHSBuckets",
+            "MyHashMapTreeBuckets", "RobinHoodHashMap", "MyConcurrentHashMap"})
+    public String impl;
+
+    /** Number of keys. */
+    @Param({"1000", "10000"})
+    public int n;
+
+    /** Key length. */
+    @Param({"10"})
+    public int length;
+
+    /** How keys are chosen: "random" or "inorder". */
+    @Param({"random", "inorder"})
+    public String keys;
+
+    /** "get-heavy" is 90% get and 10% put, "put-heavy" 10% get and 90% put,
+     *  and "remove" 50% remove and 50% put. */
+    @Param({"get-heavy", "put-heavy", "remove"})
+    public String mix;
+
+    private Map61B<String, Integer> map;
+    private String[] keyArray;
+    private Integer[] values;
+    private final int[] keyIndex = new int[OPS];
+    private final byte[] kind = new byte[OPS];
+    private int next;
+
+    @Setup
+    public void generate() {
+        int getPercent;
+        int putPercent;
+        switch (mix) {
+            case "get-heavy":
+                getPercent = 90;
+                putPercent = 10;
+                break;
+            case "put-heavy":
+                getPercent = 10;
+                putPercent = 90;
+                break;
+            case "remove":
+                getPercent = 0;
+                putPercent = 50;
+                break;
+            default:
+                throw new IllegalArgumentException("unknown operation mix " + mix);
+        }
+        keyArray = Keys.generate(keys, n, length);
+        values = Keys.values(n);
+        map = Maps.create(impl);
+        for (int i = 0; i < n; i += 1) {
+            map.put(keyArray[i], values[i]);
+        }
+        if (getPercent + putPercent < 100) {
+            /* Fails the trial with a clear message, and JMH goes on to the next. */
+            try {
+                map.remove(keyArray[0]);
+                map.put(keyArray[0], values[0]);
+            } catch (UnsupportedOperationException e) {
+                throw new IllegalStateException(impl + " does not support remove", e);
+            }
+        }
+        Random random = new Random(61);
+        for (int i = 0; i < OPS; i += 1) {
+            keyIndex[i] = random.nextInt(n);
+            int op = random.nextInt(100);
+            kind[i] = op < getPercent ? GET : op < getPercent + putPercent ? PUT : REMOVE;
+        }
+    }
+
+    @Benchmark
+    public Integer operation() {
+        int i = next;
+        next = (i + 1) & (OPS - 1);
+        int k = keyIndex[i];
+        switch (kind[i]) {
+            case GET:
+                return map.get(keyArray[k]);
+            case PUT:
+                map.put(keyArray[k], values[k]);
+                return null;
+            default:
+                return map.remove(keyArray[k]);
+        }
+    }
+}
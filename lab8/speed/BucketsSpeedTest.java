@@ -3,16 +3,21 @@ package speed;
 import edu.princeton.cs.algs4.Stopwatch;
 
 import java.io.IOException;
+import java.util.Random;
 import java.util.Scanner;
 
+import hashmap.IntIntMap;
+import hashmap.LongObjectMap;
 import hashmap.Map61B;
 import hashmap.MyHashMapALBuckets;
 import hashmap.MyHashMapLLBuckets;
 import hashmap.MyHashMapTSBuckets;
 import hashmap.MyHashMapHSBuckets;
 import hashmap.MyHashMapPQBuckets;
+import hashmap.ObjectIntMap;
 
-/** Performs a timing test on three different set implementations.
+/** Performs a timing test on the bucket variants of MyHashMap and the
+ *  open-addressing primitive maps.
  *  @author Neil Kulkarni adapted from Josh Hug, Brendan Hu
  */
 public class BucketsSpeedTest {
@@ -42,6 +47,20 @@ public class BucketsSpeedTest {
             timeRandomMap61B(new MyHashMapTSBuckets<>(), N, L);
             timeRandomMap61B(new MyHashMapHSBuckets<>(), N, L);
             timeRandomMap61B(new MyHashMapPQBuckets<>(), N, L);
+            timeRandomMap61B(new ObjectIntMap<>(), N, L);
+            timeRandomObjectIntMap(N, L);
+
+            // The same with int keys, where boxing is most of the cost.
+            System.out.println("\n Random ints as <Integer, Integer> pairs:");
+            int[] keys = randomInts(N);
+            timeRandomIntMap61B(new MyHashMapALBuckets<>(), keys);
+            timeRandomIntMap61B(new MyHashMapLLBuckets<>(), keys);
+            timeRandomIntMap61B(new MyHashMapTSBuckets<>(), keys);
+            timeRandomIntMap61B(new MyHashMapHSBuckets<>(), keys);
+            timeRandomIntMap61B(new MyHashMapPQBuckets<>(), keys);
+            timeRandomIntMap61B(new IntIntMap(), keys);
+            timeRandomIntIntMap(keys);
+            timeRandomLongObjectMap(keys);
 
             System.out.print("\nWould you like to try more timed-tests? (y/n)");
             repeat = input.nextLine();
@@ -54,11 +73,10 @@ public class BucketsSpeedTest {
      * hashmap.Map61B 61bMap.
      */
     public static double insertRandom(Map61B<String, Integer> map61B, int N, int L) {
+        KeyStream keys = InsertRandomSpeedTest.randomKeys(N, L);
         Stopwatch sw = new Stopwatch();
-        String s = "cat";
         for (int i = 0; i < N; i++) {
-            s = StringUtils.randomString(L);
-            map61B.put(s, new Integer(i));
+            map61B.put(keys.next(), keys.value());
         }
         return sw.elapsedTime();
     }
@@ -79,6 +97,77 @@ public class BucketsSpeedTest {
         }
     }
 
+    /**
+     * Puts N random strings of length L into an ObjectIntMap through its
+     * int overload, so the values are never boxed, and prints the time.
+     */
+    public static void timeRandomObjectIntMap(int N, int L) {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        KeyStream keys = InsertRandomSpeedTest.randomKeys(N, L);
+        Stopwatch sw = new Stopwatch();
+        for (int i = 0; i < N; i++) {
+            map.put(keys.next(), i);
+        }
+        System.out.printf(map.getClass() + " (unboxed put): %.2f sec\n", sw.elapsedTime());
+    }
+
+    /** Returns N random ints, generated before any timing starts. */
+    public static int[] randomInts(int N) {
+        Random random = new Random(61);
+        int[] keys = new int[N];
+        for (int i = 0; i < N; i++) {
+            keys[i] = random.nextInt();
+        }
+        return keys;
+    }
+
+    /**
+     * Puts every key of KEYS into the hashmap.Map61B map (boxed), then
+     * looks every key up again, and prints the time.
+     */
+    public static void timeRandomIntMap61B(Map61B<Integer, Integer> map, int[] keys) {
+        try {
+            Stopwatch sw = new Stopwatch();
+            for (int i = 0; i < keys.length; i++) {
+                map.put(keys[i], i);
+            }
+            for (int key : keys) {
+                map.get(key);
+            }
+            System.out.printf(map.getClass() + ": %.2f sec\n", sw.elapsedTime());
+        } catch (StackOverflowError e) {
+            printInfoOnStackOverflow(keys.length, 0);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** timeRandomIntMap61B through IntIntMap's int overloads. */
+    public static void timeRandomIntIntMap(int[] keys) {
+        IntIntMap map = new IntIntMap();
+        Stopwatch sw = new Stopwatch();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        for (int key : keys) {
+            map.getOrDefault(key, -1);
+        }
+        System.out.printf(map.getClass() + " (unboxed): %.2f sec\n", sw.elapsedTime());
+    }
+
+    /** timeRandomIntMap61B through LongObjectMap's long overloads. */
+    public static void timeRandomLongObjectMap(int[] keys) {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        Stopwatch sw = new Stopwatch();
+        for (int key : keys) {
+            map.put((long) key, "");
+        }
+        for (int key : keys) {
+            map.get((long) key);
+        }
+        System.out.printf(map.getClass() + " (unboxed keys): %.2f sec\n", sw.elapsedTime());
+    }
+
     /**
      * Waits for the user on other side of Scanner
      * to enter a positive int,
@@ -0,0 +1,61 @@
+package speed;
+
+import edu.princeton.cs.algs4.Stopwatch;
+
+import java.io.IOException;
+import java.util.Scanner;
+
+import hashmap.Map61B;
+import hashmap.MyHashMapALBuckets;
+import hashmap.MyHashMapHSBuckets;
+import hashmap.MyHashMapLLBuckets;
+import hashmap.MyHashMapTreeBuckets;
+
+/** Performs a timing test of the bucket variants of MyHashMap on keys that
+ *  all share one hashCode, so every key lands in the same bucket.
+ *  @author Shuyuan Wang
+ */
+public class CollisionSpeedTest {
+    /**
+     * Requests user input and times each bucket type on 2^B colliding
+     * keys. ARGS is unused.
+     */
+    public static void main(String[] args) throws IOException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("\n This program puts and gets 2^B distinct "
+                + "Strings that all have the same hashCode\n"
+                + " in maps with different types of buckets.\n");
+
+        String repeat = "y";
+        do {
+            System.out.print("\nWhat would you like B to be?: ");
+            int B = BucketsSpeedTest.waitForPositiveInt(input);
+            String[] keys = new String[1 << B];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = StringUtils.collidingString(i, B);
+            }
+
+            timeCollidingMap61B(new MyHashMapLLBuckets<>(), keys);
+            timeCollidingMap61B(new MyHashMapALBuckets<>(), keys);
+            timeCollidingMap61B(new MyHashMapHSBuckets<>(), keys);
+            timeCollidingMap61B(new MyHashMapTreeBuckets<>(), keys);
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /** Puts every key of KEYS into map, gets each one back, and prints the time. */
+    public static void timeCollidingMap61B(Map61B<String, Integer> map, String[] keys) {
+        Stopwatch sw = new Stopwatch();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        for (String key : keys) {
+            map.get(key);
+        }
+        System.out.printf(map.getClass() + ": %.2f sec\n", sw.elapsedTime());
+    }
+}
@@ -0,0 +1,153 @@
+package speed;
+
+import edu.princeton.cs.algs4.Stopwatch;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.Iterator;
+
+import hashmap.Map61B;
+import hashmap.MyConcurrentHashMap;
+import hashmap.MyHashMapLLBuckets;
+
+/** Performs a multi-threaded throughput test of MyConcurrentHashMap
+ *  against a MyHashMap behind a single lock, from 1 thread up to T.
+ *  @author Shuyuan Wang
+ */
+public class ConcurrentSpeedTest {
+    /** Percentage of operations that are put() or remove() rather than get(). */
+    private static final int WRITE_PERCENT = 10;
+
+    /**
+     * Requests user input and times both maps with 1, 2, 4, ... T threads.
+     * ARGS is unused.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("\n This program runs a mix of "
+                + (100 - WRITE_PERCENT) + "% gets and " + WRITE_PERCENT + "% puts/removes\n"
+                + " of random Strings of length L from several threads at once.\n");
+        System.out.print("What would you like L to be?: ");
+        int L = BucketsSpeedTest.waitForPositiveInt(input);
+        System.out.print("What is the most threads to run, T?: ");
+        int T = BucketsSpeedTest.waitForPositiveInt(input);
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # distinct keys N (each thread runs 10N operations): ");
+            int N = BucketsSpeedTest.waitForPositiveInt(input);
+            String[] keys = new String[N];
+            for (int i = 0; i < N; i++) {
+                keys[i] = StringUtils.randomString(L);
+            }
+
+            for (int threads = 1; threads <= T; threads = threads < T ? Math.min(threads * 2, T) : T + 1) {
+                System.out.println("\n " + threads + " thread(s):");
+                timeThreads(new LockedMap<>(new MyHashMapLLBuckets<>()), keys, threads);
+                timeThreads(new MyConcurrentHashMap<>(), keys, threads);
+            }
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /**
+     * Fills map with KEYS, then runs 10 * KEYS.length random operations on
+     * each of THREADS threads at once, and prints the total throughput.
+     */
+    public static void timeThreads(Map61B<String, Integer> map, String[] keys, int threads)
+            throws InterruptedException {
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        int ops = 10 * keys.length;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(t);
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < ops; i++) {
+                    String key = keys[random.nextInt(keys.length)];
+                    int op = random.nextInt(100);
+                    if (op >= WRITE_PERCENT) {
+                        map.get(key);
+                    } else if (op % 2 == 0) {
+                        map.put(key, i);
+                    } else {
+                        map.remove(key);
+                    }
+                }
+            });
+        }
+        Stopwatch sw = new Stopwatch();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double time = sw.elapsedTime();
+        String name = map instanceof LockedMap ? "locked " + ((LockedMap<?, ?>) map).map.getClass()
+                                               : map.getClass().toString();
+        System.out.printf(name + ": %.2f sec, %.0f ops/sec\n", time,
+                (double) ops * threads / Math.max(time, 0.001));
+    }
+
+    /** A Map61B that runs every call of MAP under one lock. */
+    private static class LockedMap<K, V> implements Map61B<K, V> {
+        private final Map61B<K, V> map;
+
+        LockedMap(Map61B<K, V> map) {
+            this.map = map;
+        }
+
+        @Override
+        public synchronized void clear() {
+            map.clear();
+        }
+
+        @Override
+        public synchronized boolean containsKey(K key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public synchronized V get(K key) {
+            return map.get(key);
+        }
+
+        @Override
+        public synchronized int size() {
+            return map.size();
+        }
+
+        @Override
+        public synchronized void put(K key, V value) {
+            map.put(key, value);
+        }
+
+        @Override
+        public synchronized Set<K> keySet() {
+            return map.keySet();
+        }
+
+        @Override
+        public synchronized V remove(K key) {
+            return map.remove(key);
+        }
+
+        @Override
+        public synchronized V remove(K key, V value) {
+            return map.remove(key, value);
+        }
+
+        @Override
+        public synchronized Iterator<K> iterator() {
+            return keySet().iterator();
+        }
+    }
+}
@@ -52,14 +52,13 @@ public class InsertInOrderSpeedTest {
 
     /**
      * Returns time needed to put N strings into a hashmap.Map61B in increasing order.
-     * makes use of speed.StringUtils.nextString(String s)
+     * makes use of inOrderKeys(int N)
      */
     public static double insertInOrder(Map61B<String, Integer> map61B, int N) {
+        KeyStream keys = inOrderKeys(N);
         Stopwatch sw = new Stopwatch();
-        String s = "cat";
         for (int i = 0; i < N; i++) {
-            s = StringUtils.nextString(s);
-            map61B.put(s, new Integer(i));
+            map61B.put(keys.next(), keys.value());
         }
         return sw.elapsedTime();
     }
@@ -68,13 +67,28 @@ public class InsertInOrderSpeedTest {
      * Returns time needed to put N strings into HashMap in increasing order.
      */
     public static double insertInOrder(HashMap<String, Integer> ts, int N) {
+        KeyStream keys = inOrderKeys(N);
         Stopwatch sw = new Stopwatch();
+        for (int i = 0; i < N; i++) {
+            ts.put(keys.next(), keys.value());
+        }
+        return sw.elapsedTime();
+    }
+
+    /**
+     * Returns the N strings after "cat" in increasing order, made with
+     * speed.StringUtils.nextString before any timing starts.
+     */
+    public static KeyStream inOrderKeys(int N) {
+        String[] keys = new String[N];
+        Integer[] values = new Integer[N];
         String s = "cat";
         for (int i = 0; i < N; i++) {
             s = StringUtils.nextString(s);
-            ts.put(s, new Integer(i));
+            keys[i] = s;
+            values[i] = i;
         }
-        return sw.elapsedTime();
+        return new KeyStream(keys, values);
     }
 
     /**
@@ -14,6 +14,9 @@ import hashmap.MyHashMap;
  *  @author Brendan Hu
  */
 public class InsertRandomSpeedTest {
+    /** Seeds the keys, so every map gets the same ones. */
+    private static final long SEED = 61;
+
     /**
      * Requests user input and performs tests of three different set
      * implementations. ARGS is unused. 
@@ -54,11 +57,10 @@ public class InsertRandomSpeedTest {
      * hashmap.Map61B 61bMap.
      */
     public static double insertRandom(Map61B<String, Integer> map61B, int N, int L) {
+        KeyStream keys = randomKeys(N, L);
         Stopwatch sw = new Stopwatch();
-        String s = "cat";
         for (int i = 0; i < N; i++) {
-            s = StringUtils.randomString(L);
-            map61B.put(s, new Integer(i));
+            map61B.put(keys.next(), keys.value());
         }
         return sw.elapsedTime();
     }
@@ -68,15 +70,22 @@ public class InsertRandomSpeedTest {
      * HashMap hashMap.
      */
     public static double insertRandom(HashMap<String, Integer> hashMap, int N, int L) {
+        KeyStream keys = randomKeys(N, L);
         Stopwatch sw = new Stopwatch();
-        String s = "cat";
         for (int i = 0; i < N; i++) {
-            s = StringUtils.randomString(L);
-            hashMap.put(s, new Integer(i));
+            hashMap.put(keys.next(), keys.value());
         }
         return sw.elapsedTime();
     }
 
+    /**
+     * Returns N random strings of length L, the same for every map, made
+     * before any timing starts.
+     */
+    public static KeyStream randomKeys(int N, int L) {
+        return KeyCorpus.random(N, L, SEED).stream();
+    }
+
     /**
      * Attempts to insert N random strings of length L into map,
      * Prints time of the N insert calls, otherwise
@@ -0,0 +1,83 @@
+package speed;
+
+import edu.princeton.cs.algs4.Stopwatch;
+
+import java.io.IOException;
+import java.util.Scanner;
+import java.util.function.Supplier;
+
+import hashmap.InstrumentedMap61B;
+import hashmap.Map61B;
+import hashmap.MyHashMapALBuckets;
+import hashmap.MyHashMapHSBuckets;
+import hashmap.MyHashMapLLBuckets;
+
+/** Times the bucket variants of MyHashMap bare, wrapped in an
+ *  InstrumentedMap61B that is switched off, and wrapped in one that is
+ *  recording, to show what instrumentation costs, then prints what it
+ *  recorded.
+ *  @author Shuyuan Wang
+ */
+public class InstrumentationSpeedTest {
+
+    /**
+     * Requests user input and times each map three ways. ARGS is unused.
+     */
+    public static void main(String[] args) throws IOException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("\n This program puts and gets random "
+                + "Strings of length L\n"
+                + " in maps with and without instrumentation.\n");
+        System.out.print("What would you like L to be?: ");
+        int L = BucketsSpeedTest.waitForPositiveInt(input);
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # strings to insert into each map: ");
+            int N = BucketsSpeedTest.waitForPositiveInt(input);
+            KeyStream keys = InsertRandomSpeedTest.randomKeys(N, L);
+
+            /* Run each twice, so the second run is measured after JIT warm-up. */
+            for (int run = 0; run < 2; run++) {
+                timeThreeWays(MyHashMapALBuckets::new, keys, run == 1);
+                timeThreeWays(MyHashMapLLBuckets::new, keys, run == 1);
+                timeThreeWays(MyHashMapHSBuckets::new, keys, run == 1);
+            }
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /**
+     * Times maps from MAPS bare, instrumented but switched off, and
+     * instrumented, and prints the times and the recording if PRINT.
+     */
+    public static void timeThreeWays(Supplier<Map61B<String, Integer>> maps,
+                                     KeyStream keys, boolean print) {
+        double bare = putAndGet(maps.get(), keys);
+        double off = putAndGet(new InstrumentedMap61B<>(maps.get(), false), keys);
+        InstrumentedMap61B<String, Integer> on = new InstrumentedMap61B<>(maps.get());
+        double recording = putAndGet(on, keys);
+        if (print) {
+            System.out.printf("%s: bare %.2f sec, switched off %.2f sec, recording %.2f sec\n",
+                    on.delegate().getClass(), bare, off, recording);
+            System.out.print(on.report());
+        }
+    }
+
+    /** Puts every key of KEYS into map, gets each one back, and returns the time. */
+    private static double putAndGet(Map61B<String, Integer> map, KeyStream keys) {
+        keys.reset();
+        Stopwatch sw = new Stopwatch();
+        for (int i = 0; i < keys.size(); i++) {
+            map.put(keys.next(), keys.value());
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            map.get(keys.next());
+        }
+        return sw.elapsedTime();
+    }
+}
@@ -0,0 +1,170 @@
+package speed;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/** N random keys of L lower-case letters, made once from a seed so that
+ *  every map in a speed test, and every run, sees the same keys. Keys are
+ *  kept as L bytes each, and only become Strings through stream(), which
+ *  makes them all before any timing starts.
+ *
+ *  random() keeps the corpus on the heap. mapped() keeps it in a file,
+ *  mapped into memory rather than read, for corpora larger than the heap;
+ *  the file is written the first time and reused by later runs with the
+ *  same N, L and seed. Both give the same keys for the same seed.
+ *  @author Shuyuan Wang
+ */
+public class KeyCorpus {
+
+    private static final int ALPHABET_SIZE = 26;
+    /** Marks a corpus file: "KEYS". */
+    private static final int MAGIC = 0x4B455953;
+    /** Bytes before the first key in a corpus file: magic, N, L and seed. */
+    private static final int HEADER = 4 + 4 + 4 + 8;
+    /** The most bytes mapped by one buffer, which an int must index. */
+    private static final int SEGMENT_BYTES = 1 << 30;
+
+    private final int n;
+    private final int length;
+    /** The keys in order, each in LENGTH bytes; KEYS_PER_SEGMENT to a buffer. */
+    private final ByteBuffer[] segments;
+    private final int keysPerSegment;
+
+    private KeyCorpus(int n, int length, ByteBuffer[] segments, int keysPerSegment) {
+        this.n = n;
+        this.length = length;
+        this.segments = segments;
+        this.keysPerSegment = keysPerSegment;
+    }
+
+    /** Returns a corpus of N random keys of LENGTH letters from SEED, on the heap. */
+    public static KeyCorpus random(int n, int length, long seed) {
+        checkSize(n, length);
+        int keysPerSegment = SEGMENT_BYTES / length;
+        int count = (n + keysPerSegment - 1) / keysPerSegment;
+        ByteBuffer[] segments = new ByteBuffer[Math.max(count, 1)];
+        Random random = new Random(seed);
+        for (int s = 0; s < segments.length; s += 1) {
+            int keys = Math.min(keysPerSegment, n - s * keysPerSegment);
+            byte[] bytes = new byte[keys * length];
+            for (int i = 0; i < bytes.length; i += 1) {
+                bytes[i] = letter(random);
+            }
+            segments[s] = ByteBuffer.wrap(bytes);
+        }
+        return new KeyCorpus(n, length, segments, keysPerSegment);
+    }
+
+    /**
+     * Returns a corpus of N random keys of LENGTH letters from SEED, mapped
+     * from FILE. Writes FILE first unless it already holds that corpus.
+     */
+    public static KeyCorpus mapped(File file, int n, int length, long seed) throws IOException {
+        checkSize(n, length);
+        if (!holds(file, n, length, seed)) {
+            write(file, n, length, seed);
+        }
+        int keysPerSegment = SEGMENT_BYTES / length;
+        int count = (n + keysPerSegment - 1) / keysPerSegment;
+        ByteBuffer[] segments = new ByteBuffer[Math.max(count, 1)];
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            for (int s = 0; s < segments.length; s += 1) {
+                long start = HEADER + (long) s * keysPerSegment * length;
+                long size = (long) Math.min(keysPerSegment, n - s * keysPerSegment) * length;
+                /* A mapping stays valid after its channel is closed. */
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+                segments[s] = segment;
+            }
+        }
+        return new KeyCorpus(n, length, segments, keysPerSegment);
+    }
+
+    private static void checkSize(int n, int length) {
+        if (n < 0 || length < 1) {
+            throw new IllegalArgumentException("need N >= 0 keys of length L >= 1");
+        }
+    }
+
+    private static byte letter(Random random) {
+        return (byte) ('a' + random.nextInt(ALPHABET_SIZE));
+    }
+
+    /** Returns whether FILE holds the corpus of N keys of LENGTH from SEED. */
+    private static boolean holds(File file, int n, int length, long seed) throws IOException {
+        if (!file.isFile() || file.length() != HEADER + (long) n * length) {
+            return false;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            return raf.readInt() == MAGIC && raf.readInt() == n
+                    && raf.readInt() == length && raf.readLong() == seed;
+        }
+    }
+
+    private static void write(File file, int n, int length, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(n);
+            out.writeInt(length);
+            out.writeLong(seed);
+            for (long i = (long) n * length; i > 0; i -= 1) {
+                out.write(letter(random));
+            }
+        }
+    }
+
+    /** Returns the number of keys. */
+    public int size() {
+        return n;
+    }
+
+    /** Returns the length of every key. */
+    public int keyLength() {
+        return length;
+    }
+
+    /** Returns key I as a new String. */
+    public String key(int i) {
+        if (i < 0 || i >= n) {
+            throw new IndexOutOfBoundsException("key " + i + " of " + n);
+        }
+        ByteBuffer segment = segments[i / keysPerSegment];
+        byte[] bytes = new byte[length];
+        int offset = (i % keysPerSegment) * length;
+        for (int j = 0; j < length; j += 1) {
+            bytes[j] = segment.get(offset + j);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Returns a stream of keys FROM to FROM + COUNT - 1, with the values
+     * FROM to FROM + COUNT - 1, all made now so that reading the stream
+     * allocates nothing.
+     */
+    public KeyStream stream(int from, int count) {
+        String[] keys = new String[count];
+        Integer[] values = new Integer[count];
+        for (int i = 0; i < count; i += 1) {
+            keys[i] = key(from + i);
+            values[i] = from + i;
+        }
+        return new KeyStream(keys, values);
+    }
+
+    /** Returns a stream of every key, with the values 0 to N - 1. */
+    public KeyStream stream() {
+        return stream(0, n);
+    }
+}
@@ -0,0 +1,49 @@
+package speed;
+
+/** Keys and their values, all made ahead of time, for a speed test to put
+ *  or look up in turn. Reading the stream allocates nothing, so a timed
+ *  loop over it measures only the map: next() hands out the keys in order,
+ *  starting over after the last, and value() the value paired with the
+ *  key next() last returned.
+ *  @author Shuyuan Wang
+ */
+public class KeyStream {
+
+    private final String[] keys;
+    private final Integer[] values;
+    /** The index of the key next() returns next. */
+    private int next;
+    /** The index of the key next() returned last. */
+    private int current;
+
+    /** Makes a stream of KEYS, paired with VALUES. */
+    public KeyStream(String[] keys, Integer[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("need one value per key");
+        }
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /** Returns the number of keys before the stream starts over. */
+    public int size() {
+        return keys.length;
+    }
+
+    /** Returns the next key. */
+    public String next() {
+        current = next;
+        next = next + 1 == keys.length ? 0 : next + 1;
+        return keys[current];
+    }
+
+    /** Returns the value paired with the key next() last returned. */
+    public Integer value() {
+        return values[current];
+    }
+
+    /** Starts the stream over from its first key. */
+    public void reset() {
+        next = 0;
+    }
+}
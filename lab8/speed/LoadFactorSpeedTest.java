@@ -0,0 +1,100 @@
+package speed;
+
+import edu.princeton.cs.algs4.Stopwatch;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Scanner;
+
+import hashmap.Map61B;
+import hashmap.MyHashMapLLBuckets;
+import hashmap.RobinHoodHashMap;
+
+/** Performs a timing test of RobinHoodHashMap against MyHashMapLLBuckets
+ *  at high load factors, and prints the Robin Hood probe-length histogram.
+ *  @author Shuyuan Wang
+ */
+public class LoadFactorSpeedTest {
+    private static final double[] LOAD_FACTORS = {0.75, 0.85, 0.9, 0.95, 0.99};
+
+    /**
+     * Requests user input and times both maps at each load factor.
+     * ARGS is unused.
+     */
+    public static void main(String[] args) throws IOException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("\n This program puts, gets and removes random "
+                + "Strings of length L\n"
+                + " in a chaining and a Robin Hood map "
+                + "at several maximum load factors.\n");
+        System.out.print("What would you like L to be?: ");
+        int L = BucketsSpeedTest.waitForPositiveInt(input);
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # strings to insert into each map: ");
+            int N = BucketsSpeedTest.waitForPositiveInt(input);
+            String[] keys = new String[N];
+            for (int i = 0; i < N; i++) {
+                keys[i] = StringUtils.randomString(L);
+            }
+
+            /* Fill a table of fixed size to each load, so neither map resizes
+             * and the load factor really is the one being measured. */
+            int capacity = Integer.highestOneBit(N);
+            for (double load : LOAD_FACTORS) {
+                String[] loadKeys = Arrays.copyOf(keys, (int) (load * capacity));
+                System.out.printf("\n %d keys in %d slots (load %.2f):\n",
+                        loadKeys.length, capacity, load);
+                timeMap61B(new MyHashMapLLBuckets<>(capacity, 1.0), loadKeys);
+                RobinHoodHashMap<String, Integer> robinHood =
+                        new RobinHoodHashMap<>(capacity, 1.0, capacity);
+                timeMap61B(robinHood, loadKeys);
+                printHistogram(robinHood, loadKeys);
+            }
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /**
+     * Puts every key of KEYS into map, gets each one back, removes every
+     * other one and gets each one again, and prints the time.
+     */
+    public static void timeMap61B(Map61B<String, Integer> map, String[] keys) {
+        Stopwatch sw = new Stopwatch();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        for (String key : keys) {
+            map.get(key);
+        }
+        for (int i = 0; i < keys.length; i += 2) {
+            map.remove(keys[i]);
+        }
+        for (String key : keys) {
+            map.get(key);
+        }
+        System.out.printf(map.getClass() + ": %.2f sec\n", sw.elapsedTime());
+    }
+
+    /** Refills map with KEYS and prints its probe-length histogram. */
+    private static void printHistogram(RobinHoodHashMap<String, Integer> map, String[] keys) {
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        int[] histogram = map.probeHistogram();
+        long total = 0;
+        StringBuilder counts = new StringBuilder();
+        for (int d = 0; d < histogram.length; d++) {
+            total += (long) d * histogram[d];
+            counts.append(' ').append(histogram[d]);
+        }
+        System.out.printf("  mean probe %.2f, max probe %d, histogram:%s\n",
+                map.size() == 0 ? 0.0 : (double) total / map.size(),
+                histogram.length - 1, counts);
+    }
+}
@@ -0,0 +1,117 @@
+package speed;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Scanner;
+
+import hashmap.CuckooHashMap;
+import hashmap.Map61B;
+import hashmap.MyHashMapALBuckets;
+import hashmap.MyHashMapHSBuckets;
+
+/** Times each get() from CuckooHashMap, MyHashMapALBuckets and
+ *  MyHashMapHSBuckets, for keys present and absent, and prints latency
+ *  percentiles: the tail is where a worst-case O(1) lookup should show.
+ *  Each get is timed on its own with System.nanoTime(), whose cost of
+ *  a few tens of nanoseconds is in every figure.
+ *  @author Shuyuan Wang
+ */
+public class LookupLatencySpeedTest {
+    /** Seeds the absent keys, apart from InsertRandomSpeedTest's. */
+    private static final long MISS_SEED = 62;
+
+    /**
+     * Requests user input and prints get() latency percentiles of each
+     * map. ARGS is unused.
+     */
+    public static void main(String[] args) throws IOException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("\n This program puts random Strings of length L "
+                + "into different types of maps,\n"
+                + " then times every get of a key in the map, "
+                + "and of a key not in it.\n");
+        System.out.print("What would you like L to be?: ");
+        int L = BucketsSpeedTest.waitForPositiveInt(input);
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # strings to insert into each map: ");
+            int N = BucketsSpeedTest.waitForPositiveInt(input);
+            String[] hits = toArray(InsertRandomSpeedTest.randomKeys(N, L));
+            String[] misses = toArray(KeyCorpus.random(N, L, MISS_SEED).stream());
+            shuffle(hits);
+
+            /* Run each twice, so the second run is measured after JIT warm-up. */
+            for (int run = 0; run < 2; run++) {
+                timeGets(new CuckooHashMap<>(), hits, misses, run == 1);
+                timeGets(new MyHashMapALBuckets<>(), hits, misses, run == 1);
+                timeGets(new MyHashMapHSBuckets<>(), hits, misses, run == 1);
+            }
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    private static String[] toArray(KeyStream stream) {
+        String[] keys = new String[stream.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = stream.next();
+        }
+        return keys;
+    }
+
+    /** Shuffles KEYS, so lookups do not follow the order of insertion. */
+    private static void shuffle(String[] keys) {
+        Random random = new Random(MISS_SEED);
+        for (int i = keys.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            String key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+        }
+    }
+
+    /**
+     * Puts every key of HITS into map, then times the get of every key of
+     * HITS and of MISSES, and prints the percentiles of each if PRINT.
+     */
+    public static void timeGets(Map61B<String, Integer> map, String[] hits,
+                                String[] misses, boolean print) {
+        for (int i = 0; i < hits.length; i++) {
+            map.put(hits[i], i);
+        }
+        long[] hitLatencies = timeGets(map, hits);
+        long[] missLatencies = timeGets(map, misses);
+        if (print) {
+            System.out.println(map.getClass() + ":");
+            printPercentiles("  hit ", hitLatencies);
+            printPercentiles("  miss", missLatencies);
+        }
+    }
+
+    private static long[] timeGets(Map61B<String, Integer> map, String[] keys) {
+        long[] latencies = new long[keys.length];
+        System.gc();
+        for (int i = 0; i < keys.length; i++) {
+            long before = System.nanoTime();
+            map.get(keys[i]);
+            latencies[i] = System.nanoTime() - before;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static void printPercentiles(String name, long[] sorted) {
+        System.out.printf("%s get latency p50 %dns, p99 %dns, p99.9 %dns, "
+                        + "p99.99 %dns, max %dns\n", name,
+                ResizeLatencySpeedTest.percentile(sorted, 50),
+                ResizeLatencySpeedTest.percentile(sorted, 99),
+                ResizeLatencySpeedTest.percentile(sorted, 99.9),
+                ResizeLatencySpeedTest.percentile(sorted, 99.99),
+                sorted[sorted.length - 1]);
+    }
+}
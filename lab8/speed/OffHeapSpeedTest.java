@@ -0,0 +1,163 @@
+package speed;
+
+import edu.princeton.cs.algs4.Stopwatch;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.util.Scanner;
+
+import hashmap.MyHashMap;
+import hashmap.OffHeapHashMap;
+
+/** Performs a timing test of OffHeapHashMap against MyHashMap with N
+ *  8-byte keys and values: put, get, and for OffHeapHashMap reopening
+ *  the file and getting every key again. MyHashMap boxes each key and
+ *  value as a Long on the heap, so run it with a heap big enough for N
+ *  (about 160 bytes an entry) or watch it run out; OffHeapHashMap needs
+ *  only disk, 20 bytes a slot, or 27 to 54 bytes an entry at load 0.75.
+ *  At N = 10^8 that is a 5 GB file, so give it room in ARGS[0].
+ *  @author Shuyuan Wang
+ */
+public class OffHeapSpeedTest {
+    private static final double MAX_LOAD = 0.75;
+
+    /**
+     * Requests user input and times both maps. ARGS[0], if given, is the
+     * file for OffHeapHashMap; it defaults to one in java.io.tmpdir.
+     */
+    public static void main(String[] args) throws IOException {
+        Scanner input = new Scanner(System.in);
+        File file = args.length > 0 ? new File(args[0])
+                : new File(System.getProperty("java.io.tmpdir"), "offheap-speed.map");
+
+        System.out.println("\n This program puts and gets N random 8-byte keys "
+                + "with 8-byte values\n"
+                + " in a MyHashMap on the heap and an OffHeapHashMap in "
+                + file + ".\n");
+
+        String repeat = "y";
+        do {
+            System.out.print("Enter # keys to insert into each map: ");
+            int N = BucketsSpeedTest.waitForPositiveInt(input);
+            timeOffHeap(file, N);
+            timeMyHashMap(N);
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+        file.delete();
+    }
+
+    /** Returns key I: a bijection of I, so keys are distinct but scattered. */
+    private static long key(int i) {
+        return i * 0x9E3779B97F4A7C15L;
+    }
+
+    /** Writes N into B[0] to B[7], big-endian. */
+    private static void putLong(byte[] b, long n) {
+        for (int j = 7; j >= 0; j--) {
+            b[j] = (byte) n;
+            n >>>= 8;
+        }
+    }
+
+    /**
+     * Puts N keys into a new OffHeapHashMap in FILE, presized so it never
+     * resizes, gets them all through a ValueView, then closes the map,
+     * reopens it and gets them all again, printing the time of each step.
+     */
+    public static void timeOffHeap(File file, int N) throws IOException {
+        file.delete();
+        int slots = (int) Math.min(1 << 30, (long) (N / MAX_LOAD) + 1);
+        byte[] key = new byte[8];
+        byte[] value = new byte[8];
+        OffHeapHashMap.ValueView view = new OffHeapHashMap.ValueView();
+
+        Stopwatch sw = new Stopwatch();
+        OffHeapHashMap map = new OffHeapHashMap(file, 8, 8, slots, MAX_LOAD);
+        for (int i = 0; i < N; i++) {
+            putLong(key, key(i));
+            putLong(value, i);
+            map.put(key, value);
+        }
+        double putTime = sw.elapsedTime();
+        sw = new Stopwatch();
+        long sum = getAll(map, key, view, N);
+        double getTime = sw.elapsedTime();
+        map.close();
+
+        sw = new Stopwatch();
+        map = new OffHeapHashMap(file, 8, 8);
+        double openTime = sw.elapsedTime();
+        sw = new Stopwatch();
+        long reopenSum = getAll(map, key, view, N);
+        double reopenGetTime = sw.elapsedTime();
+        map.close();
+        if (reopenSum != sum) {
+            System.out.println("--Reopened map lost entries--");
+        }
+
+        System.out.printf("%s: put %.2f sec, get %.2f sec; reopen %.2f sec, "
+                        + "then get %.2f sec; file %.1f bytes/entry (checksum %d)\n",
+                OffHeapHashMap.class, putTime, getTime, openTime, reopenGetTime,
+                (double) file.length() / N, sum);
+    }
+
+    /** Gets the first N keys from MAP through VIEW, and returns the sum of their values. */
+    private static long getAll(OffHeapHashMap map, byte[] key,
+                               OffHeapHashMap.ValueView view, int N) {
+        long sum = 0;
+        for (int i = 0; i < N; i++) {
+            putLong(key, key(i));
+            if (map.get(key, view)) {
+                sum += view.getLong(0);
+            }
+        }
+        return sum;
+    }
+
+    /** Puts and gets the same N keys as Longs in a MyHashMap, printing the times. */
+    public static void timeMyHashMap(int N) {
+        try {
+            long before = usedMemory();
+            Stopwatch sw = new Stopwatch();
+            MyHashMap<Long, Long> map = new MyHashMap<>(16, MAX_LOAD);
+            for (int i = 0; i < N; i++) {
+                map.put(key(i), (long) i);
+            }
+            double putTime = sw.elapsedTime();
+            sw = new Stopwatch();
+            long sum = 0;
+            for (int i = 0; i < N; i++) {
+                sum += map.get(key(i));
+            }
+            double getTime = sw.elapsedTime();
+            System.out.printf("%s: put %.2f sec, get %.2f sec; "
+                            + "heap %d bytes/entry (checksum %d)\n", MyHashMap.class,
+                    putTime, getTime, heapPerEntry(before, map, N), sum);
+        } catch (OutOfMemoryError e) {
+            System.out.println("--Out of Memory -- couldn't put " + N
+                    + " keys in a MyHashMap; try a larger -Xmx.");
+        }
+    }
+
+    /** Returns the heap in use after full collections, the least of a few. */
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    /** Returns the heap MAP has taken up since BEFORE, divided among its ENTRIES. */
+    private static long heapPerEntry(long before, Object map, int entries) {
+        long after = usedMemory();
+        Reference.reachabilityFence(map);
+        return (after - before) / Math.max(entries, 1);
+    }
+}
@@ -0,0 +1,91 @@
+package speed;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Scanner;
+
+import hashmap.Map61B;
+import hashmap.MyHashMap;
+
+/** Times each put() into MyHashMap, resizing all at once and incrementally,
+ *  and prints latency percentiles to show the resize spikes. Give the JVM
+ *  a young generation big enough for one run (e.g. -Xmn2g) so that GC
+ *  pauses do not hide them.
+ *  @author Shuyuan Wang
+ */
+public class ResizeLatencySpeedTest {
+    /** Old buckets moved per call by the incremental map. */
+    private static final int MIGRATE_STEP = 8;
+
+    /**
+     * Requests user input and prints put() latency percentiles of both
+     * resize modes. ARGS is unused.
+     */
+    public static void main(String[] args) throws IOException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("\n This program times every put of random "
+                + "Strings of length L\n"
+                + " into a MyHashMap that resizes at once, and one that "
+                + "resizes incrementally.\n");
+        System.out.print("What would you like L to be?: ");
+        int L = BucketsSpeedTest.waitForPositiveInt(input);
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # strings to insert into each map: ");
+            int N = BucketsSpeedTest.waitForPositiveInt(input);
+            String[] keys = new String[N];
+            for (int i = 0; i < N; i++) {
+                keys[i] = StringUtils.randomString(L);
+            }
+
+            /* Run each twice, so the second run is measured after JIT warm-up. */
+            for (int run = 0; run < 2; run++) {
+                timePuts("all at once", new MyHashMap<>(), keys, run == 1);
+                timePuts("incremental, " + MIGRATE_STEP + " buckets per call",
+                        new MyHashMap<>(16, 0.75, MIGRATE_STEP), keys, run == 1);
+            }
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /**
+     * Puts every key of KEYS into map, timing each put, and prints the
+     * total time and latency percentiles if PRINT.
+     */
+    public static void timePuts(String name, Map61B<String, Integer> map,
+                                String[] keys, boolean print) {
+        long[] latencies = new long[keys.length];
+        System.gc();
+        long start = System.nanoTime();
+        for (int i = 0; i < keys.length; i++) {
+            long before = System.nanoTime();
+            map.put(keys[i], i);
+            latencies[i] = System.nanoTime() - before;
+        }
+        long total = System.nanoTime() - start;
+        if (!print) {
+            return;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%s: %.2f sec; put latency p50 %s, p99 %s, p99.9 %s, "
+                        + "p99.99 %s, max %s\n", name, total / 1e9,
+                micros(percentile(latencies, 50)), micros(percentile(latencies, 99)),
+                micros(percentile(latencies, 99.9)), micros(percentile(latencies, 99.99)),
+                micros(latencies[latencies.length - 1]));
+    }
+
+    /** Returns the Pth percentile of the sorted SORTED. */
+    static long percentile(long[] sorted, double p) {
+        int i = (int) Math.ceil(p / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(i, sorted.length - 1))];
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1fus", nanos / 1e3);
+    }
+}
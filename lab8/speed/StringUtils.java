@@ -82,5 +82,17 @@ public class StringUtils {
         return Pattern.matches("[z]+", s);
     }
 
+    /**
+     * Returns the Ith of 2^BITS distinct strings that all have the same
+     * hashCode. Each is BITS blocks of "Aa" or "BB", which hash alike.
+     */
+    public static String collidingString(int i, int bits) {
+        StringBuilder sb = new StringBuilder();
+        for (int b = bits - 1; b >= 0; b--) {
+            sb.append(((i >> b) & 1) == 0 ? "Aa" : "BB");
+        }
+        return sb.toString();
+    }
+
 }
 
@@ -0,0 +1,200 @@
+package gitlet;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import static gitlet.Utils.*;
+
+/** Finds the commit that introduced each line of a file.
+ *
+ *  The walk starts with every line pending at the given commit.  At each
+ *  commit, the pending lines that a parent already had (per LineDiff, or
+ *  all of them if the parent has the same blob) are handed on to that
+ *  parent, first parent first, and the rest were introduced here.  Commits
+ *  are visited newest first, so a commit reached through several children
+ *  is diffed once with all of their lines, and the walk ends as soon as no
+ *  line is pending rather than at the initial commit.
+ *
+ *  Historical versions are read through a small LRU cache, with each
+ *  distinct line interned to an int so diffs compare ints.  A finished
+ *  result is saved under BLAME_CACHE by (commit, path); later walks that
+ *  reach that commit take its lines from there instead of walking on.
+ *
+ *  @author Shuyuan Wang
+ */
+class Blame {
+
+    /** How many versions of the file are kept in memory. */
+    private static final int BLOB_CACHE_SIZE = 64;
+
+    /** The repository being searched. */
+    private final Repository repo;
+    /** Distinct lines seen so far, numbered from 0. */
+    private final HashMap<String, Integer> interned = new HashMap<>();
+    /** Recently read versions of the file, as interned lines, by blob ID. */
+    private final Map<String, int[]> versions =
+        new LinkedHashMap<String, int[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, int[]> e) {
+                return size() > BLOB_CACHE_SIZE;
+            }
+        };
+
+    Blame(Repository repo) {
+        this.repo = repo;
+    }
+
+    /** A commit waiting in the walk, with the lines pending there as
+     *  {line in this commit's version, line in the blamed version}. */
+    private static class Visit {
+        final String id;
+        final Commit commit;
+        final List<int[]> pending = new ArrayList<>();
+
+        Visit(String id, Commit commit) {
+            this.id = id;
+            this.commit = commit;
+        }
+    }
+
+    /** Return the ID of the commit that introduced each line of PATH as it
+     *  is in the commit ID, which must track it. */
+    String[] origins(String ID, String path) {
+        String[] cached = readCache(ID, path);
+        if (cached != null) {
+            return cached;
+        }
+        Commit start = repo.getCommitBySHA(ID);
+        int lineCount = version(start.fileVersion(path)).length;
+        String[] origins = new String[lineCount];
+        Set<String> shallow = repo.readShallow();
+
+        HashMap<String, Visit> queued = new HashMap<>();
+        PriorityQueue<Visit> queue = new PriorityQueue<>((x, y) -> {
+            int byDate = y.commit.getDate().compareTo(x.commit.getDate());
+            return byDate != 0 ? byDate : x.id.compareTo(y.id);
+        });
+        Visit first = new Visit(ID, start);
+        for (int i = 0; i < lineCount; i += 1) {
+            first.pending.add(new int[] {i, i});
+        }
+        queued.put(ID, first);
+        queue.add(first);
+        int remaining = lineCount;
+
+        while (remaining > 0 && !queue.isEmpty()) {
+            Visit visit = queue.poll();
+            queued.remove(visit.id);
+            List<int[]> pending = visit.pending;
+
+            String[] known = visit == first ? null : readCache(visit.id, path);
+            if (known != null) {
+                for (int[] line : pending) {
+                    origins[line[1]] = known[line[0]];
+                }
+                remaining -= pending.size();
+                continue;
+            }
+
+            String blobID = visit.commit.fileVersion(path);
+            if (!shallow.contains(visit.id)) {
+                for (String parentID : visit.commit.getParents()) {
+                    if (parentID == null || pending.isEmpty()) {
+                        continue;
+                    }
+                    Visit parent = queued.get(parentID);
+                    Commit parentCommit = parent != null ? parent.commit : repo.getCommitBySHA(parentID);
+                    if (!parentCommit.tracks(path)) {
+                        continue;
+                    }
+                    List<int[]> passed;
+                    if (parentCommit.fileVersion(path).equals(blobID)) {
+                        passed = pending;
+                        pending = new ArrayList<>();
+                    } else {
+                        int[] match = LineDiff.match(version(parentCommit.fileVersion(path)), version(blobID));
+                        passed = new ArrayList<>();
+                        List<int[]> kept = new ArrayList<>();
+                        for (int[] line : pending) {
+                            if (match[line[0]] >= 0) {
+                                passed.add(new int[] {match[line[0]], line[1]});
+                            } else {
+                                kept.add(line);
+                            }
+                        }
+                        pending = kept;
+                    }
+                    if (passed.isEmpty()) {
+                        continue;
+                    }
+                    if (parent == null) {
+                        parent = new Visit(parentID, parentCommit);
+                        queued.put(parentID, parent);
+                        queue.add(parent);
+                    }
+                    parent.pending.addAll(passed);
+                }
+            }
+            for (int[] line : pending) {
+                origins[line[1]] = visit.id;
+            }
+            remaining -= pending.size();
+        }
+
+        writeCache(ID, path, origins);
+        return origins;
+    }
+
+    /** Return the lines of CONTENT, without their newlines. */
+    static String[] lines(byte[] content) {
+        if (content.length == 0) {
+            return new String[0];
+        }
+        String[] lines = new String(content, StandardCharsets.UTF_8).split("\n", -1);
+        if (lines[lines.length - 1].isEmpty()) {
+            return Arrays.copyOf(lines, lines.length - 1);
+        }
+        return lines;
+    }
+
+    /** Return the blob BLOBID as interned lines. */
+    private int[] version(String blobID) {
+        int[] version = versions.get(blobID);
+        if (version == null) {
+            String[] lines = lines(repo.getBlobContent(blobID));
+            version = new int[lines.length];
+            for (int i = 0; i < lines.length; i += 1) {
+                Integer number = interned.get(lines[i]);
+                if (number == null) {
+                    number = interned.size();
+                    interned.put(lines[i], number);
+                }
+                version[i] = number;
+            }
+            versions.put(blobID, version);
+        }
+        return version;
+    }
+
+    private String[] readCache(String ID, String path) {
+        File entry = join(repo.BLAME_CACHE, repo.hash(ID, "\0", path));
+        if (!entry.exists()) {
+            return null;
+        }
+        String contents = readContentsAsString(entry);
+        return contents.isEmpty() ? new String[0] : contents.split("\n");
+    }
+
+    private void writeCache(String ID, String path, String[] origins) {
+        repo.BLAME_CACHE.mkdir();
+        writeContents(join(repo.BLAME_CACHE, repo.hash(ID, "\0", path)), String.join("\n", origins));
+    }
+}
@@ -0,0 +1,30 @@
+package gitlet;
+
+/** One line of a file as listed by blame: the line and the commit that
+ *  introduced it.
+ *
+ *  @author Shuyuan Wang
+ */
+public class BlameLine {
+    /** The SHA1 ID of the commit that introduced the line. */
+    public final String id;
+    /** That commit's timestamp, formatted as log prints it. */
+    public final String time;
+    /** The line number, counting from 1. */
+    public final int number;
+    /** The line itself, without its newline. */
+    public final String text;
+
+    BlameLine(String id, Commit commit, int number, String text) {
+        this.id = id;
+        this.time = commit.getFormattedTime();
+        this.number = number;
+        this.text = text;
+    }
+
+    /** The line exactly as blame prints it. */
+    @Override
+    public String toString() {
+        return id.substring(0, 8) + " (" + time + " " + number + ") " + text;
+    }
+}
@@ -10,7 +10,6 @@ import java.util.Date; // TODO: You'll likely use this in this class
 import java.util.HashMap;
 import java.util.Locale;
 
-import static gitlet.Repository.COMMITS_DIR;
 import static gitlet.Utils.join;
 import static gitlet.Utils.writeObject;
 
@@ -21,6 +20,8 @@ import static gitlet.Utils.writeObject;
  *  @author Shuyuan Wang
  */
 public class Commit implements Serializable {
+    /** Pinned so that objects written by earlier versions stay readable. */
+    private static final long serialVersionUID = -925088217564640638L;
     /** The timestamp of this Commit. */
     private Date date;
     /** The message of this Commit. */
@@ -72,6 +73,10 @@ public class Commit implements Serializable {
         return parents[1];
     }
 
+    public Date getDate() {
+        return date;
+    }
+
     public String getMessage() {
         return message;
     }
@@ -81,9 +86,9 @@ public class Commit implements Serializable {
         return df.format(date);
     }
 
-    /** Save the commit Obj to a persistent file named ID (which should be its SHA1). */
-    public void save(String ID) {
-        File commitPrefix = join(COMMITS_DIR, ID.substring(0, 2));  // To accelerate the abbreviation search.
+    /** Save the commit Obj under COMMITSDIR to a persistent file named ID (which should be its SHA1). */
+    public void save(File commitsDir, String ID) {
+        File commitPrefix = join(commitsDir, ID.substring(0, 2));  // To accelerate the abbreviation search.
         if (!commitPrefix.exists()) {
             commitPrefix.mkdir();
         }
@@ -0,0 +1,160 @@
+package gitlet;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static gitlet.Utils.*;
+
+/** Writes the history of every branch of a repository as a stream that
+ *  FastImport reads back (see there for the format).  Parents always come
+ *  before their children, each blob is written once, the first time a
+ *  commit refers to it, and each commit lists only what changed against
+ *  its first parent.  The initial commit is not written; it is :0.
+ *
+ *  @author Shuyuan Wang
+ */
+class FastExport {
+
+    /** The repository being exported. */
+    private final Repository repo;
+    /** The stream being written. */
+    private final OutputStream out;
+    /** Marks written so far, keyed by object ID. */
+    private final HashMap<String, Integer> marks = new HashMap<>();
+    /** The last mark handed out. */
+    private int lastMark;
+    /** Commits already placed in the export order. */
+    private final HashSet<String> sorted = new HashSet<>();
+
+    FastExport(Repository repo, OutputStream out) {
+        this.repo = repo;
+        this.out = new BufferedOutputStream(out, 1 << 16);
+    }
+
+    /** Export every branch. */
+    void run() throws IOException {
+        TreeMap<String, String> heads = new TreeMap<>();
+        for (String branch : plainFilenamesIn(repo.BRANCHES_DIR)) {
+            heads.put(branch, repo.getHeadCommitID(branch));
+        }
+
+        HashMap<String, Commit> commits = new HashMap<>();
+        List<String> order = new ArrayList<>();
+        HashMap<String, String> labels = new HashMap<>();
+        for (Map.Entry<String, String> head : heads.entrySet()) {
+            sort(head.getValue(), head.getKey(), commits, order, labels);
+        }
+
+        for (String ID : order) {
+            Commit commit = commits.get(ID);
+            if (commit.getParent() == null) {
+                marks.put(ID, 0);
+                continue;
+            }
+            writeCommit(ID, commit, commits.get(commit.getParent()), labels.get(ID));
+        }
+        for (Map.Entry<String, String> head : heads.entrySet()) {
+            write("reset " + head.getKey() + "\n");
+            write("from :" + marks.get(head.getValue()) + "\n\n");
+        }
+        write("done\n");
+        out.flush();
+    }
+
+    /** Append the commits reachable from HEAD that are not yet in ORDER to
+     *  ORDER, parents first, loading them into COMMITS and labeling the new
+     *  ones with BRANCH in LABELS. */
+    private void sort(String head, String branch, HashMap<String, Commit> commits,
+                      List<String> order, HashMap<String, String> labels) {
+        Deque<String> stack = new ArrayDeque<>();
+        stack.push(head);
+        while (!stack.isEmpty()) {
+            String ID = stack.peek();
+            if (sorted.contains(ID)) {
+                stack.pop();
+                continue;
+            }
+            if (!commits.containsKey(ID)) {
+                commits.put(ID, repo.getCommitBySHA(ID));
+                labels.put(ID, branch);
+            }
+            boolean ready = true;
+            for (String parentID : commits.get(ID).getParents()) {
+                if (parentID != null && !sorted.contains(parentID)) {
+                    stack.push(parentID);
+                    ready = false;
+                }
+            }
+            if (ready) {
+                stack.pop();
+                sorted.add(ID);
+                order.add(ID);
+            }
+        }
+    }
+
+    /** Write COMMIT, whose ID is ID and whose first parent is PARENT, on
+     *  BRANCH, preceded by any blobs it is the first to use. */
+    private void writeCommit(String ID, Commit commit, Commit parent, String branch)
+        throws IOException {
+        TreeMap<String, String> modified = new TreeMap<>();
+        for (Map.Entry<String, String> entry : commit.getBlobs().entrySet()) {
+            if (!entry.getValue().equals(parent.fileVersion(entry.getKey()))) {
+                modified.put(entry.getKey(), entry.getValue());
+            }
+        }
+        List<String> deleted = new ArrayList<>();
+        for (String fileName : parent.getBlobs().keySet()) {
+            if (!commit.tracks(fileName)) {
+                deleted.add(fileName);
+            }
+        }
+        deleted.sort(null);
+
+        for (String blobID : modified.values()) {
+            if (!marks.containsKey(blobID)) {
+                marks.put(blobID, ++lastMark);
+                write("blob\nmark :" + lastMark + "\n");
+                writeData(repo.getBlobContent(blobID));
+            }
+        }
+
+        marks.put(ID, ++lastMark);
+        write("commit " + branch + "\n");
+        write("mark :" + lastMark + "\n");
+        write("date " + commit.getDate().getTime() + "\n");
+        writeData(commit.getMessage().getBytes(StandardCharsets.UTF_8));
+        write("from :" + marks.get(commit.getParent()) + "\n");
+        if (commit.isMergeCommit()) {
+            write("merge :" + marks.get(commit.getMergeParent()) + "\n");
+        }
+        for (Map.Entry<String, String> entry : modified.entrySet()) {
+            write("M :" + marks.get(entry.getValue()) + " " + entry.getKey() + "\n");
+        }
+        for (String fileName : deleted) {
+            write("D " + fileName + "\n");
+        }
+        write("\n");
+    }
+
+    /** Write a data block holding DATA. */
+    private void writeData(byte[] data) throws IOException {
+        write("data " + data.length + "\n");
+        out.write(data);
+        write("\n");
+    }
+
+    private void write(String s) throws IOException {
+        out.write(s.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,332 @@
+package gitlet;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static gitlet.Utils.*;
+
+/** Reads a fast-import stream and writes its blobs and commits straight
+ *  into the object store of a repository.  Branch heads are kept in memory
+ *  and written once at the end, and the INDEX is never touched, so a long
+ *  history costs one blob write per new file version and one commit write
+ *  per commit.
+ *
+ *  The stream is a sequence of commands, one per line, modeled on
+ *  git fast-import:
+ *
+ *      blob
+ *      mark :MARK                  (optional)
+ *      data COUNT                  followed by COUNT raw bytes
+ *
+ *      commit BRANCH
+ *      mark :MARK                  (optional)
+ *      date MILLIS                 (optional; defaults to now)
+ *      data COUNT                  followed by the message bytes
+ *      from REF                    (optional; defaults to BRANCH's head)
+ *      merge REF                   (optional second parent)
+ *      M REF PATH                  (zero or more: PATH gets blob REF;
+ *                                   REF may be "inline" followed by data)
+ *      D PATH                      (zero or more: PATH is removed)
+ *
+ *      reset BRANCH
+ *      from REF                    (optional)
+ *
+ *      done                        (optional end of stream)
+ *
+ *  A REF is either :MARK or a full object ID, and must name a blob (after M)
+ *  or a commit (elsewhere) that is already stored.  The mark :0 always
+ *  denotes the initial commit of the repository being imported into, and a
+ *  commit on a branch that does not exist yet starts from it unless it says
+ *  otherwise.  Branch names and PATHs may not contain path separators or "..".
+ *  An optional newline after each data block and blank lines between
+ *  commands are ignored.
+ *
+ *  @author Shuyuan Wang
+ */
+class FastImport {
+
+    /** How many recent commits' blob maps are kept to avoid rereading
+     *  parents from disk. */
+    private static final int TREE_CACHE_SIZE = 256;
+
+    /** The repository being imported into. */
+    private final Repository repo;
+    /** The stream being read. */
+    private final BufferedInputStream in;
+    /** The number of the last line read, for error messages. */
+    private int lineNumber;
+    /** A line read but not yet consumed, or null. */
+    private String pushedBack;
+
+    /** Marks defined so far, mapped to object IDs. */
+    private final HashMap<Integer, String> marks = new HashMap<>();
+    /** Branch heads changed by the stream, written out at the end. */
+    private final HashMap<String, String> branches = new HashMap<>();
+    /** The blob maps of recently imported or read commits. */
+    private final Map<String, HashMap<String, String>> trees =
+        new LinkedHashMap<String, HashMap<String, String>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, HashMap<String, String>> e) {
+                return size() > TREE_CACHE_SIZE;
+            }
+        };
+    /** The number of commits written. */
+    private int commits;
+    /** The ID of the initial commit, found on first use. */
+    private String initialCommitID;
+
+    FastImport(Repository repo, InputStream in) {
+        this.repo = repo;
+        this.in = new BufferedInputStream(in, 1 << 16);
+    }
+
+    /** Import the whole stream.  Returns the number of commits written. */
+    int run() throws IOException {
+        String line;
+        while ((line = readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            } else if (line.equals("blob")) {
+                readBlob();
+            } else if (line.startsWith("commit ")) {
+                readCommit(checkName(line.substring("commit ".length())));
+            } else if (line.startsWith("reset ")) {
+                readReset(checkName(line.substring("reset ".length())));
+            } else if (line.equals("done")) {
+                break;
+            } else {
+                throw malformed(line);
+            }
+        }
+        for (Map.Entry<String, String> entry : branches.entrySet()) {
+            writeContents(join(repo.BRANCHES_DIR, entry.getKey()), entry.getValue());
+        }
+        return commits;
+    }
+
+    /** blob command. */
+    private void readBlob() throws IOException {
+        int mark = readMark();
+        String ID = repo.saveBlob(readData());
+        if (mark > 0) {
+            marks.put(mark, ID);
+        }
+    }
+
+    /** commit command, for BRANCH. */
+    private void readCommit(String branch) throws IOException {
+        int mark = readMark();
+        Date date = new Date();
+        String line = readLine();
+        if (line != null && line.startsWith("date ")) {
+            try {
+                date = new Date(Long.parseLong(line.substring("date ".length())));
+            } catch (NumberFormatException excp) {
+                throw malformed(line);
+            }
+        } else {
+            pushedBack = line;
+        }
+        String message = new String(readData(), StandardCharsets.UTF_8);
+
+        String[] parents = new String[2];
+        line = readLine();
+        if (line != null && line.startsWith("from ")) {
+            parents[0] = resolve(line.substring("from ".length()), repo.COMMITS_DIR);
+            line = readLine();
+        } else {
+            parents[0] = branchHead(branch);
+        }
+        if (line != null && line.startsWith("merge ")) {
+            parents[1] = resolve(line.substring("merge ".length()), repo.COMMITS_DIR);
+            line = readLine();
+        }
+
+        HashMap<String, String> blobs = new HashMap<>(tree(parents[0]));
+        while (line != null && (line.startsWith("M ") || line.startsWith("D "))) {
+            if (line.startsWith("D ")) {
+                blobs.remove(checkName(line.substring(2)));
+            } else {
+                int space = line.indexOf(' ', 2);
+                if (space < 0) {
+                    throw malformed(line);
+                }
+                String ref = line.substring(2, space);
+                String path = checkName(line.substring(space + 1));
+                String blobID = ref.equals("inline") ? repo.saveBlob(readData()) : resolve(ref, repo.BLOBS_DIR);
+                blobs.put(path, blobID);
+            }
+            line = readLine();
+        }
+        pushedBack = line;
+
+        Commit commit = new Commit(date, message, parents, blobs);
+        String ID = repo.hash(commit.toString());
+        commit.save(repo.COMMITS_DIR, ID);
+        trees.put(ID, blobs);
+        branches.put(branch, ID);
+        if (mark > 0) {
+            marks.put(mark, ID);
+        }
+        commits += 1;
+    }
+
+    /** reset command, for BRANCH. */
+    private void readReset(String branch) throws IOException {
+        String line = readLine();
+        if (line != null && line.startsWith("from ")) {
+            branches.put(branch, resolve(line.substring("from ".length()), repo.COMMITS_DIR));
+        } else {
+            pushedBack = line;
+            branches.put(branch, initialCommitID());
+        }
+    }
+
+    /** Read an optional "mark :MARK" line.  Returns MARK, or 0 if absent. */
+    private int readMark() throws IOException {
+        String line = readLine();
+        if (line == null || !line.startsWith("mark :")) {
+            pushedBack = line;
+            return 0;
+        }
+        try {
+            int mark = Integer.parseInt(line.substring("mark :".length()));
+            if (mark <= 0) {
+                throw malformed(line);
+            }
+            return mark;
+        } catch (NumberFormatException excp) {
+            throw malformed(line);
+        }
+    }
+
+    /** Read a "data COUNT" line and the COUNT bytes after it. */
+    private byte[] readData() throws IOException {
+        String line = readLine();
+        if (line == null || !line.startsWith("data ")) {
+            throw malformed(line);
+        }
+        int count;
+        try {
+            count = Integer.parseInt(line.substring("data ".length()));
+        } catch (NumberFormatException excp) {
+            throw malformed(line);
+        }
+        byte[] data = in.readNBytes(count);
+        if (data.length != count) {
+            throw error("Malformed fast-import stream: data ends early after line %d.", lineNumber);
+        }
+        in.mark(1);
+        if (in.read() != '\n') {
+            in.reset();
+        }
+        return data;
+    }
+
+    /** Return the next line without its newline, or null at the end. */
+    private String readLine() throws IOException {
+        if (pushedBack != null) {
+            String line = pushedBack;
+            pushedBack = null;
+            return line;
+        }
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int c = in.read();
+        if (c == -1) {
+            return null;
+        }
+        while (c != -1 && c != '\n') {
+            line.write(c);
+            c = in.read();
+        }
+        lineNumber += 1;
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    /** Return the ID of the object REF (":MARK" or a full ID) refers to,
+     *  which must be in the object store STORE. */
+    private String resolve(String ref, File store) {
+        if (ref.equals(":0") && store.equals(repo.COMMITS_DIR)) {
+            return initialCommitID();
+        }
+        String ID = null;
+        if (ref.startsWith(":")) {
+            try {
+                ID = marks.get(Integer.parseInt(ref.substring(1)));
+            } catch (NumberFormatException excp) {
+                // Falls through to the error below.
+            }
+            if (ID == null) {
+                throw error("Malformed fast-import stream: unknown mark %s at line %d.", ref, lineNumber);
+            }
+        } else {
+            if (ref.length() != repo.objectHash().hexLength || !ref.matches("[0-9a-f]+")) {
+                throw error("Malformed fast-import stream: bad reference %s at line %d.", ref, lineNumber);
+            }
+            ID = ref;
+        }
+        if (!join(store, ID.substring(0, 2), ID.substring(2)).isFile()) {
+            throw error("Malformed fast-import stream: %s is not a %s in this repository, at line %d.",
+                        ref, store.equals(repo.BLOBS_DIR) ? "blob" : "commit", lineNumber);
+        }
+        return ID;
+    }
+
+    /** Return NAME, a branch or file name, unless it could name a file
+     *  outside its directory. */
+    private String checkName(String name) {
+        if (name.isEmpty() || name.contains("/") || name.contains("\\")
+            || name.contains(File.separator) || name.contains("..")) {
+            throw error("Malformed fast-import stream: bad name %s at line %d.", name, lineNumber);
+        }
+        return name;
+    }
+
+    /** Return the current head of BRANCH, or the initial commit if it
+     *  doesn't exist yet. */
+    private String branchHead(String branch) {
+        if (branches.containsKey(branch)) {
+            return branches.get(branch);
+        }
+        if (join(repo.BRANCHES_DIR, branch).exists()) {
+            return repo.getHeadCommitID(branch);
+        }
+        return initialCommitID();
+    }
+
+    /** Return the blob map of the commit ID. */
+    private HashMap<String, String> tree(String ID) {
+        HashMap<String, String> blobs = trees.get(ID);
+        if (blobs == null) {
+            blobs = repo.getCommitBySHA(ID).getBlobs();
+            trees.put(ID, blobs);
+        }
+        return blobs;
+    }
+
+    /** Return the ID of the initial commit. */
+    private String initialCommitID() {
+        if (initialCommitID == null) {
+            String ID = repo.getHeadCommitID(readContentsAsString(repo.HEAD));
+            String parentID = repo.getCommitBySHA(ID).getParent();
+            while (parentID != null) {
+                ID = parentID;
+                parentID = repo.getCommitBySHA(ID).getParent();
+            }
+            initialCommitID = ID;
+        }
+        return initialCommitID;
+    }
+
+    private GitletException malformed(String line) {
+        return error("Malformed fast-import stream at line %d: %s", lineNumber, line);
+    }
+}
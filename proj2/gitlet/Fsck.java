@@ -0,0 +1,203 @@
+package gitlet;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static gitlet.Utils.*;
+
+/** Checks the object store of a repository.
+ *
+ *  First every object is read on a pool of worker threads, one task per
+ *  two-letter prefix directory: each blob is rehashed and compared with its
+ *  name, and each commit must deserialize.  (A commit's ID cannot be
+ *  recomputed, since it hashes the commit's toString, so a commit is only
+ *  checked for being readable.)  Then the commits reachable from the
+ *  branch heads and the stash are walked, and every parent and blob they
+ *  name must exist.  Unreachable commits are reported as dangling, but only
+ *  the newest of each unreachable line of history, and so are blobs that
+ *  no commit or staging area refers to.
+ *
+ *  @author Shuyuan Wang
+ */
+class Fsck {
+
+    /** The repository being checked. */
+    private final Repository repo;
+    /** The number of worker threads. */
+    private final int threads;
+    /** The hash naming the repository's objects. */
+    private final ObjectHash hash;
+
+    /** Commits that could be read, by ID. */
+    private final Map<String, Commit> commits = new ConcurrentHashMap<>();
+    /** Blobs whose content matches their name. */
+    private final Set<String> blobs = ConcurrentHashMap.newKeySet();
+    /** Problems found so far. */
+    private final List<String> problems = Collections.synchronizedList(new ArrayList<>());
+
+    Fsck(Repository repo, int threads) {
+        this.repo = repo;
+        this.threads = threads;
+        this.hash = repo.objectHash();
+    }
+
+    /** Check everything.  Returns one line per problem, sorted. */
+    List<String> run() {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (File prefix : prefixes(repo.BLOBS_DIR)) {
+                tasks.add(pool.submit(() -> checkBlobs(prefix)));
+            }
+            for (File prefix : prefixes(repo.COMMITS_DIR)) {
+                tasks.add(pool.submit(() -> readCommits(prefix)));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException | ExecutionException excp) {
+            throw error("fsck failed: %s", excp.getMessage());
+        } finally {
+            pool.shutdown();
+        }
+
+        checkReachable();
+        List<String> report = new ArrayList<>(problems);
+        report.sort(null);
+        return report;
+    }
+
+    /** Rehash the blobs under PREFIX. */
+    private void checkBlobs(File prefix) {
+        for (String rest : plainFilenamesIn(prefix)) {
+            String ID = prefix.getName() + rest;
+            if (hash.hash(readContents(join(prefix, rest))).equals(ID)) {
+                blobs.add(ID);
+            } else {
+                problems.add("corrupt blob " + ID);
+            }
+        }
+    }
+
+    /** Read the commits under PREFIX. */
+    private void readCommits(File prefix) {
+        for (String rest : plainFilenamesIn(prefix)) {
+            String ID = prefix.getName() + rest;
+            try {
+                commits.put(ID, readObject(join(prefix, rest), Commit.class));
+            } catch (IllegalArgumentException excp) {
+                problems.add("corrupt commit " + ID);
+            }
+        }
+    }
+
+    /** Walk the history from every branch head and stash entry. */
+    private void checkReachable() {
+        Set<String> shallow = repo.readShallow();
+        boolean lazy = repo.LAZY_SOURCE.exists();
+        HashSet<String> reached = new HashSet<>();
+        HashSet<String> usedBlobs = new HashSet<>();
+        Deque<String> stack = new ArrayDeque<>();
+        for (String branch : plainFilenamesIn(repo.BRANCHES_DIR)) {
+            String ID = readContentsAsString(join(repo.BRANCHES_DIR, branch));
+            if (!commits.containsKey(ID)) {
+                problems.add("broken branch " + branch + " (missing commit " + ID + ")");
+            } else if (reached.add(ID)) {
+                stack.push(ID);
+            }
+        }
+        if (repo.STASH.exists()) {
+            for (String ID : readContentsAsString(repo.STASH).split("\n")) {
+                if (ID.isEmpty()) {
+                    continue;
+                }
+                if (!commits.containsKey(ID)) {
+                    problems.add("missing commit " + ID + " (stash entry)");
+                } else if (reached.add(ID)) {
+                    stack.push(ID);
+                }
+            }
+        }
+
+        while (!stack.isEmpty()) {
+            String ID = stack.pop();
+            Commit commit = commits.get(ID);
+            for (Map.Entry<String, String> entry : commit.getBlobs().entrySet()) {
+                String blobID = entry.getValue();
+                if (!blobs.contains(blobID) && !lazy && !join(repo.BLOBS_DIR, blobID.substring(0, 2),
+                                                              blobID.substring(2)).exists()) {
+                    problems.add("missing blob " + blobID + " (" + entry.getKey() + " in commit " + ID + ")");
+                }
+            }
+            if (shallow.contains(ID)) {
+                continue;
+            }
+            for (String parentID : commit.getParents()) {
+                if (parentID == null || !reached.add(parentID)) {
+                    continue;
+                }
+                if (commits.containsKey(parentID)) {
+                    stack.push(parentID);
+                } else if (!join(repo.COMMITS_DIR, parentID.substring(0, 2), parentID.substring(2)).exists()) {
+                    problems.add("missing commit " + parentID + " (parent of " + ID + ")");
+                }
+            }
+        }
+
+        /* Blobs staged in any worktree are in use too. */
+        List<File> indexes = new ArrayList<>();
+        indexes.add(join(repo.COMMON_DIR, "INDEX"));
+        if (repo.WORKTREES.exists()) {
+            for (String line : readContentsAsString(repo.WORKTREES).split("\n")) {
+                if (!line.isEmpty()) {
+                    indexes.add(join(line, ".gitlet", "INDEX"));
+                }
+            }
+        }
+        for (File index : indexes) {
+            if (index.isFile()) {
+                usedBlobs.addAll(Index.getStagingArea(index).staged.values());
+            }
+        }
+
+        HashSet<String> unreachableParents = new HashSet<>();
+        for (Map.Entry<String, Commit> entry : commits.entrySet()) {
+            usedBlobs.addAll(entry.getValue().getBlobs().values());
+            if (!reached.contains(entry.getKey())) {
+                Collections.addAll(unreachableParents, entry.getValue().getParents());
+            }
+        }
+        for (String ID : commits.keySet()) {
+            if (!reached.contains(ID) && !unreachableParents.contains(ID)) {
+                problems.add("dangling commit " + ID);
+            }
+        }
+        for (String ID : blobs) {
+            if (!usedBlobs.contains(ID)) {
+                problems.add("dangling blob " + ID);
+            }
+        }
+    }
+
+    /** Return the prefix directories of the store DIR. */
+    private static List<File> prefixes(File dir) {
+        List<File> prefixes = new ArrayList<>();
+        File[] files = dir.listFiles(File::isDirectory);
+        if (files != null) {
+            Collections.addAll(prefixes, files);
+        }
+        return prefixes;
+    }
+}
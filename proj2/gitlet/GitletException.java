@@ -4,8 +4,9 @@ package gitlet;
  *  result of .getMessage() is the error message to be printed.
  *  @author P. N. Hilfinger
  */
-class GitletException extends RuntimeException {
-
+public class GitletException extends RuntimeException {
+    /** Pinned to the value the original package-private class had. */
+    private static final long serialVersionUID = -1679980020093532642L;
 
     /** A GitletException with no message. */
     GitletException() {
@@ -4,10 +4,11 @@ import java.io.File;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.HashSet;
-import static gitlet.Repository.INDEX;
 import static gitlet.Utils.*;
 
 public class Index implements Serializable {
+    /** Pinned so that objects written by earlier versions stay readable. */
+    private static final long serialVersionUID = 5508316047810767371L;
     public HashMap<String, String> staged;
     public HashMap<String, String> removed;
 
@@ -25,13 +26,15 @@ public class Index implements Serializable {
         return staged.isEmpty() && removed.isEmpty();
     }
 
-    public void save() {
-        writeObject(INDEX, this);
+    /** Save the staging area to the INDEX file of a repository. */
+    public void save(File index) {
+        writeObject(index, this);
     }
 
-    public static Index getStagingArea() {
-        if (INDEX.exists()) {
-            return readObject(INDEX, Index.class);
+    /** Return the staging area saved in INDEX, or an empty one. */
+    public static Index getStagingArea(File index) {
+        if (index.exists()) {
+            return readObject(index, Index.class);
         }
         return new Index();
     }
@@ -0,0 +1,103 @@
+package gitlet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** A line diff: Myers' O(ND) shortest edit script, after trimming the
+ *  common prefix and suffix.  Lines are compared as ints, so callers
+ *  intern each distinct line once and every comparison is one int
+ *  compare.
+ *
+ *  @author Shuyuan Wang
+ */
+class LineDiff {
+
+    private LineDiff() {
+    }
+
+    /** Return, for each line of B, the index of the line of A it is kept
+     *  from, or -1 if it was inserted, along a shortest edit script from A
+     *  to B. */
+    static int[] match(int[] a, int[] b) {
+        int[] match = new int[b.length];
+        Arrays.fill(match, -1);
+        int prefix = 0;
+        while (prefix < a.length && prefix < b.length && a[prefix] == b[prefix]) {
+            match[prefix] = prefix;
+            prefix += 1;
+        }
+        int suffix = 0;
+        while (suffix < a.length - prefix && suffix < b.length - prefix
+               && a[a.length - 1 - suffix] == b[b.length - 1 - suffix]) {
+            match[b.length - 1 - suffix] = a.length - 1 - suffix;
+            suffix += 1;
+        }
+        myers(a, prefix, a.length - suffix, b, prefix, b.length - suffix, match);
+        return match;
+    }
+
+    /** Fill MATCH for the lines B[BLO..BHI) against A[ALO..AHI). */
+    private static void myers(int[] a, int aLo, int aHi, int[] b, int bLo, int bHi, int[] match) {
+        int n = aHi - aLo;
+        int m = bHi - bLo;
+        if (n == 0 || m == 0) {
+            return;
+        }
+        int max = n + m;
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        /* trace.get(d) is v[-d-1 .. d+1] as it was before round d. */
+        List<int[]> trace = new ArrayList<>();
+        int found = -1;
+        for (int d = 0; d <= max && found < 0; d += 1) {
+            trace.add(Arrays.copyOfRange(v, offset - d - 1, offset + d + 2));
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+                    x = v[offset + k + 1];
+                } else {
+                    x = v[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m && a[aLo + x] == b[bLo + y]) {
+                    x += 1;
+                    y += 1;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    found = d;
+                    break;
+                }
+            }
+        }
+
+        /* Walk the snakes back from (n, m). */
+        int x = n;
+        int y = m;
+        for (int d = found; d > 0; d -= 1) {
+            int[] prev = trace.get(d);
+            int k = x - y;
+            int prevK;
+            if (k == -d || (k != d && prev[k - 1 + d + 1] < prev[k + 1 + d + 1])) {
+                prevK = k + 1;
+            } else {
+                prevK = k - 1;
+            }
+            int prevX = prev[prevK + d + 1];
+            int prevY = prevX - prevK;
+            while (x > prevX && y > prevY) {
+                x -= 1;
+                y -= 1;
+                match[bLo + y] = aLo + x;
+            }
+            x = prevX;
+            y = prevY;
+        }
+        while (x > 0 && y > 0) {
+            x -= 1;
+            y -= 1;
+            match[bLo + y] = aLo + x;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package gitlet;
+
+/** One commit as listed by log and global-log.  Holds only what is
+ *  printed, not the commit's blobs, so long histories stay cheap.
+ *
+ *  @author Shuyuan Wang
+ */
+public class LogEntry {
+    /** The SHA1 ID of the commit. */
+    public final String id;
+    /** The commit's message. */
+    public final String message;
+    /** The commit's timestamp, formatted as log prints it. */
+    public final String time;
+    /** The first parent's ID, or null for the initial commit. */
+    public final String parent;
+    /** The second parent's ID, or null unless this is a merge commit. */
+    public final String mergeParent;
+
+    LogEntry(String id, Commit commit) {
+        this.id = id;
+        this.message = commit.getMessage();
+        this.time = commit.getFormattedTime();
+        this.parent = commit.getParent();
+        this.mergeParent = commit.getMergeParent();
+    }
+
+    /** The entry exactly as log prints it. */
+    @Override
+    public String toString() {
+        StringBuilder returnSB = new StringBuilder();
+        returnSB.append("===\n");
+        returnSB.append("commit " + id + "\n");
+        if (mergeParent != null) {
+            returnSB.append(
+                "Merge: " + parent.substring(0, 7) + " " + mergeParent.substring(0, 7) + "\n"
+            );
+        }
+        returnSB.append("Date: " + time + "\n");
+        returnSB.append(message + "\n");
+        returnSB.append("\n");
+        return returnSB.toString();
+    }
+}
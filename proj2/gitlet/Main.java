@@ -1,8 +1,14 @@
 package gitlet;
 
-import static gitlet.Repository.GITLET_DIR;
+import java.io.File;
+import java.io.IOException;
+
+import static gitlet.Utils.*;
 
 /** Driver class for Gitlet, a subset of the Git version-control system.
+ *  A thin adapter from the command line to Repository: it runs one command
+ *  against the repository in the current directory, prints the result,
+ *  and turns a GitletException into its message.
  *  @author Shuyuan Wang
  */
 public class Main {
@@ -11,87 +17,214 @@ public class Main {
      *  <COMMAND> <OPERAND1> <OPERAND2> ... 
      */
     public static void main(String[] args) {
-        if (args.length == 0) {
-            System.out.println("Please enter a command.");
+        try {
+            Repository repo = new Repository(new File(System.getProperty("user.dir")));
+            run(repo, args);
+        } catch (GitletException excp) {
+            if (excp.getMessage() != null) {
+                System.out.println(excp.getMessage());
+            }
             System.exit(0);
         }
+    }
+
+    /** Run the command in ARGS against REPO, printing its output. */
+    static void run(Repository repo, String[] args) {
+        if (args.length == 0) {
+            throw error("Please enter a command.");
+        }
 
         String firstArg = args[0];
         switch(firstArg) {
             case "init":
-                validateNumArgs(args, 1);
-                Repository.initRepo();
+                initRepo(repo, args);
                 break;
             case "add":
                 validateNumArgs(args, 2);
-                Repository.addFile(args[1]);
+                repo.addFile(args[1]);
                 break;
             case "commit":
                 validateNumArgs(args, 2);
-                Repository.commit(args[1]);
+                repo.commit(args[1]);
                 break;
             case "rm":
                 validateNumArgs(args, 2);
-                Repository.remove(args[1]);
+                repo.remove(args[1]);
                 break;
             case "log":
                 validateNumArgs(args, 1);
-                Repository.log();
+                for (LogEntry entry : repo.log()) {
+                    System.out.print(entry);
+                }
                 break;
             case "global-log":
                 validateNumArgs(args, 1);
-                Repository.globalLog();
+                for (LogEntry entry : repo.globalLog()) {
+                    System.out.print(entry);
+                }
                 break;
             case "status":
                 validateNumArgs(args, 1);
-                Repository.status();
+                System.out.print(repo.status());
                 break;
             case "find":
                 validateNumArgs(args, 2);
-                Repository.find(args[1]);
+                System.out.println(String.join("\n", repo.find(args[1])) + "\n\n");
                 break;
             case "checkout":
                 if (args.length == 2) {
-                    Repository.checkoutBranch(args[1]);
+                    repo.checkoutBranch(args[1]);
                 } else if (args.length == 3) {
                     if (!args[1].equals("--")) {
-                        System.out.println("Incorrect operands.");
-                        System.exit(0);
+                        throw error("Incorrect operands.");
                     }
-                    Repository.checkoutFilefromHEAD(args[2]);
+                    repo.checkoutFilefromHEAD(args[2]);
                 } else if (args.length == 4) {
                     if (!args[2].equals("--")) {
-                        System.out.println("Incorrect operands.");
-                        System.exit(0);
+                        throw error("Incorrect operands.");
                     }
-                    Repository.checkoutFilefromCommitID(args[1], args[3]);
+                    repo.checkoutFilefromCommitID(args[1], args[3]);
                 }
                 break;
             case "branch":
                 validateNumArgs(args, 2);
-                Repository.newBranch(args[1]);
+                repo.newBranch(args[1]);
                 break;
             case "rm-branch":
                 validateNumArgs(args, 2);
-                Repository.removeBranch(args[1]);
+                repo.removeBranch(args[1]);
                 break;
             case "reset":
                 validateNumArgs(args, 2);
-                Repository.reset(args[1]);
+                repo.reset(args[1]);
                 break;
             case "merge":
                 validateNumArgs(args, 2);
-                Repository.merge(args[1]);
+                MergeResult result = repo.merge(args[1]);
+                if (result.kind.message != null) {
+                    System.out.println(result.kind.message);
+                }
+                break;
+            case "fsck":
+                validateNumArgs(args, 1);
+                for (String problem : repo.fsck()) {
+                    System.out.println(problem);
+                }
+                break;
+            case "blame":
+                validateNumArgs(args, 2);
+                for (BlameLine line : repo.blame(args[1])) {
+                    System.out.println(line);
+                }
+                break;
+            case "rebase":
+                validateNumArgs(args, 2);
+                MergeResult rebased = repo.rebase(args[1]);
+                if (rebased.kind.message != null) {
+                    System.out.println(rebased.kind.message);
+                }
+                break;
+            case "clone":
+                cloneRepo(repo, args);
+                break;
+            case "stash":
+                stash(repo, args);
+                break;
+            case "worktree":
+                if (args.length == 4 && args[1].equals("add")) {
+                    repo.worktreeAdd(new File(args[2]), args[3]);
+                } else if (args.length == 2 && args[1].equals("list")) {
+                    System.out.println(String.join("\n", repo.worktreeList()));
+                } else {
+                    throw error("Incorrect operands.");
+                }
+                break;
+            case "fast-import":
+                validateNumArgs(args, 1);
+                try {
+                    repo.fastImport(System.in);
+                } catch (IOException excp) {
+                    throw error(excp.getMessage());
+                }
+                break;
+            case "fast-export":
+                validateNumArgs(args, 1);
+                try {
+                    repo.fastExport(System.out);
+                } catch (IOException excp) {
+                    throw error(excp.getMessage());
+                }
                 break;
             default:
-                System.out.println("No command with that name exists.");
-                System.exit(0);
+                throw error("No command with that name exists.");
+        }
+    }
+
+    /** init [--hash NAME] */
+    private static void initRepo(Repository repo, String[] args) {
+        if (args.length == 1) {
+            repo.initRepo();
+            return;
+        }
+        if (args.length != 3 || !args[1].equals("--hash")) {
+            throw error("Incorrect operands.");
+        }
+        ObjectHash hash = ObjectHash.forName(args[2]);
+        if (hash == null) {
+            throw error("Unsupported object hash: %s", args[2]);
+        }
+        repo.initRepo(hash);
+    }
+
+    /** stash [push [MESSAGE] | pop | drop | list] */
+    private static void stash(Repository repo, String[] args) {
+        String sub = args.length == 1 ? "push" : args[1];
+        if (sub.equals("push") && args.length <= 3) {
+            repo.stashPush(args.length == 3 ? args[2] : null);
+        } else if (sub.equals("pop") && args.length == 2) {
+            if (!repo.stashPop()) {
+                System.out.println(MergeResult.Kind.CONFLICT.message);
+            }
+        } else if (sub.equals("drop") && args.length == 2) {
+            repo.stashDrop();
+        } else if (sub.equals("list") && args.length == 2) {
+            for (String line : repo.stashList()) {
+                System.out.println(line);
+            }
+        } else {
+            throw error("Incorrect operands.");
+        }
+    }
+
+    /** clone SOURCE [--depth N] [--lazy] */
+    private static void cloneRepo(Repository repo, String[] args) {
+        if (args.length < 2) {
+            throw error("Incorrect operands.");
+        }
+        int depth = 0;
+        boolean lazy = false;
+        for (int i = 2; i < args.length; i += 1) {
+            if (args[i].equals("--lazy")) {
+                lazy = true;
+            } else if (args[i].equals("--depth") && i + 1 < args.length) {
+                try {
+                    depth = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException excp) {
+                    throw error("Incorrect operands.");
+                }
+                if (depth <= 0) {
+                    throw error("Incorrect operands.");
+                }
+            } else {
+                throw error("Incorrect operands.");
+            }
         }
+        repo.cloneFrom(new File(args[1]), depth, lazy);
     }
 
     /**
      * Checks the number of arguments versus the expected number,
-     * throws a RuntimeException if they do not match.
+     * throws a GitletException if they do not match.
      *
      * @param cmd Name of command you are validating
      * @param args Argument array from command line
@@ -99,8 +232,7 @@ public class Main {
      */
     private static void validateNumArgs(String[] args, int n) {
         if (args.length != n) {
-            throw new RuntimeException(
-                    String.format("Incorrect operands."));
+            throw error("Incorrect operands.");
         }
     }
 }
@@ -0,0 +1,37 @@
+package gitlet;
+
+/** The outcome of the merge command.
+ *
+ *  @author Shuyuan Wang
+ */
+public class MergeResult {
+
+    /** The ways a merge can end without an error. */
+    public enum Kind {
+        /** The given branch is already in the current branch's history. */
+        ANCESTOR("Given branch is an ancestor of the current branch."),
+        /** The current branch was moved up to the given branch. */
+        FAST_FORWARD("Current branch fast-forwarded."),
+        /** A merge commit was made. */
+        MERGED(null),
+        /** A merge commit was made, with conflict markers in some files. */
+        CONFLICT("Encountered a merge conflict.");
+
+        /** What the merge command prints, or null if nothing. */
+        public final String message;
+
+        Kind(String message) {
+            this.message = message;
+        }
+    }
+
+    /** How the merge ended. */
+    public final Kind kind;
+    /** The commit the current branch points to afterwards. */
+    public final String commitID;
+
+    MergeResult(Kind kind, String commitID) {
+        this.kind = kind;
+        this.commitID = commitID;
+    }
+}
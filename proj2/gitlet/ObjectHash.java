@@ -0,0 +1,78 @@
+package gitlet;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/** The hash functions that can name the objects of a repository.  Which one
+ *  a repository uses is recorded in its config file when it is created;
+ *  repositories without one use SHA1.
+ *
+ *  Each thread keeps its own MessageDigest per algorithm, so hashing does
+ *  not look up a provider every time, and digests are hex-encoded through
+ *  a lookup table rather than a Formatter.
+ *
+ *  @author Shuyuan Wang
+ */
+public enum ObjectHash {
+    SHA1("sha1", "SHA-1"),
+    SHA256("sha256", "SHA-256");
+
+    /** The name used for this hash in the config file and on the command line. */
+    public final String configName;
+    /** The length of an ID as a hexadecimal numeral. */
+    public final int hexLength;
+    /** A digest per thread, reset before each use. */
+    private final ThreadLocal<MessageDigest> digests;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    ObjectHash(String configName, String algorithm) {
+        this.configName = configName;
+        this.digests = ThreadLocal.withInitial(() -> {
+            try {
+                return MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException excp) {
+                throw new IllegalArgumentException("System does not support " + algorithm);
+            }
+        });
+        this.hexLength = digests.get().getDigestLength() * 2;
+    }
+
+    /** Returns the hash of the concatenation of VALS, which may be any
+     *  mixture of byte arrays and Strings, as a lowercase hex string. */
+    public String hash(Object... vals) {
+        MessageDigest md = digests.get();
+        md.reset();
+        for (Object val : vals) {
+            if (val instanceof byte[]) {
+                md.update((byte[]) val);
+            } else if (val instanceof String) {
+                md.update(((String) val).getBytes(StandardCharsets.UTF_8));
+            } else {
+                throw new IllegalArgumentException("improper type to hash");
+            }
+        }
+        return toHex(md.digest());
+    }
+
+    /** Returns BYTES as a lowercase hex string. */
+    static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i += 1) {
+            hex[2 * i] = HEX[(bytes[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /** Returns the hash whose config name is NAME, or null if there is none. */
+    public static ObjectHash forName(String name) {
+        for (ObjectHash hash : values()) {
+            if (hash.configName.equals(name)) {
+                return hash;
+            }
+        }
+        return null;
+    }
+}
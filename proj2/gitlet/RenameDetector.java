@@ -0,0 +1,217 @@
+package gitlet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/** Pairs files that disappeared with files that appeared, to tell renames
+ *  and copies apart from unrelated deletions and additions.
+ *
+ *  Files with identical blob IDs are paired first, without reading any
+ *  content.  The rest are compared by content: every file is reduced to a
+ *  MinHash signature over the set of its lines, and signatures are bucketed
+ *  by bands (locality-sensitive hashing), so only files that share a band
+ *  are ever compared.  A pair whose estimated similarity is at least
+ *  THRESHOLD is a rename, best pairs first.  This keeps the cost close to
+ *  linear in the number of paths rather than quadratic.
+ *
+ *  Copies are only detected when the content is identical, since finding
+ *  near-copies would mean reading every tracked file.
+ *
+ *  @author Shuyuan Wang
+ */
+class RenameDetector {
+
+    /** The lowest estimated similarity that still counts as a rename. */
+    static final double THRESHOLD = 0.5;
+    /** The number of hash functions in a MinHash signature. */
+    private static final int SIGNATURE = 64;
+    /** The number of signature rows per LSH band. */
+    private static final int ROWS = 2;
+
+    /** Loads the content of a blob given its ID. */
+    private final Function<String, byte[]> contents;
+
+    /** A detector reading file contents through CONTENTS. */
+    RenameDetector(Function<String, byte[]> contents) {
+        this.contents = contents;
+    }
+
+    /**
+     * Pair files that were deleted or kept with files that were added.
+     *
+     * @param deleted Path to blob ID of each file that disappeared.
+     * @param kept    Path to blob ID of each file that is still there; these
+     *                can only be the source of exact copies.
+     * @param added   Path to blob ID of each file that appeared.
+     * @return A map from each added path that was paired to its source path.
+     *         A deleted source is used at most once.
+     */
+    Map<String, String> detect(Map<String, String> deleted, Map<String, String> kept,
+                               Map<String, String> added) {
+        TreeMap<String, String> sources = new TreeMap<>();
+        TreeMap<String, String> targets = new TreeMap<>(added);
+        List<String> unpairedDeleted = new ArrayList<>();
+
+        /* Exact renames, then exact copies: match blob IDs. */
+        HashMap<String, List<String>> byID = new HashMap<>();
+        for (Map.Entry<String, String> entry : new TreeMap<>(deleted).entrySet()) {
+            byID.computeIfAbsent(entry.getValue(), k -> new ArrayList<>()).add(entry.getKey());
+        }
+        for (Map.Entry<String, String> entry : new TreeMap<>(added).entrySet()) {
+            List<String> candidates = byID.get(entry.getValue());
+            if (candidates != null && !candidates.isEmpty()) {
+                sources.put(entry.getKey(), candidates.remove(0));
+                targets.remove(entry.getKey());
+            }
+        }
+        for (List<String> rest : byID.values()) {
+            unpairedDeleted.addAll(rest);
+        }
+        if (!targets.isEmpty() && !kept.isEmpty()) {
+            HashMap<String, String> keptByID = new HashMap<>();
+            for (Map.Entry<String, String> entry : new TreeMap<>(kept).entrySet()) {
+                keptByID.putIfAbsent(entry.getValue(), entry.getKey());
+            }
+            for (String target : new ArrayList<>(targets.keySet())) {
+                String source = keptByID.get(targets.get(target));
+                if (source != null) {
+                    sources.put(target, source);
+                    targets.remove(target);
+                }
+            }
+        }
+        if (targets.isEmpty() || unpairedDeleted.isEmpty()) {
+            return sources;
+        }
+
+        /* Inexact renames: bucket the deleted files' signatures by band. */
+        unpairedDeleted.sort(null);
+        long[][] deletedSigs = new long[unpairedDeleted.size()][];
+        HashMap<Long, List<Integer>> buckets = new HashMap<>();
+        for (int d = 0; d < deletedSigs.length; d += 1) {
+            deletedSigs[d] = signature(contents.apply(deleted.get(unpairedDeleted.get(d))));
+            if (deletedSigs[d] == null) {
+                continue;
+            }
+            for (int band = 0; band < SIGNATURE / ROWS; band += 1) {
+                buckets.computeIfAbsent(bandKey(deletedSigs[d], band), k -> new ArrayList<>()).add(d);
+            }
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        List<String> targetPaths = new ArrayList<>(targets.keySet());
+        for (int a = 0; a < targetPaths.size(); a += 1) {
+            long[] sig = signature(contents.apply(targets.get(targetPaths.get(a))));
+            if (sig == null) {
+                continue;
+            }
+            HashSet<Integer> seen = new HashSet<>();
+            for (int band = 0; band < SIGNATURE / ROWS; band += 1) {
+                List<Integer> bucket = buckets.get(bandKey(sig, band));
+                if (bucket == null) {
+                    continue;
+                }
+                for (int d : bucket) {
+                    if (seen.add(d)) {
+                        double score = similarity(sig, deletedSigs[d]);
+                        if (score >= THRESHOLD) {
+                            candidates.add(new Candidate(score, d, a));
+                        }
+                    }
+                }
+            }
+        }
+
+        /* Greedily take the most similar pairs first. */
+        candidates.sort((x, y) -> x.score != y.score ? Double.compare(y.score, x.score)
+                                  : x.deleted != y.deleted ? x.deleted - y.deleted
+                                  : x.added - y.added);
+        boolean[] deletedUsed = new boolean[deletedSigs.length];
+        boolean[] addedUsed = new boolean[targetPaths.size()];
+        for (Candidate c : candidates) {
+            if (!deletedUsed[c.deleted] && !addedUsed[c.added]) {
+                deletedUsed[c.deleted] = true;
+                addedUsed[c.added] = true;
+                sources.put(targetPaths.get(c.added), unpairedDeleted.get(c.deleted));
+            }
+        }
+        return sources;
+    }
+
+    /** A possible inexact rename of deleted file DELETED to added file ADDED. */
+    private static class Candidate {
+        final double score;
+        final int deleted;
+        final int added;
+
+        Candidate(double score, int deleted, int added) {
+            this.score = score;
+            this.deleted = deleted;
+            this.added = added;
+        }
+    }
+
+    /** Return the MinHash signature of the set of lines in CONTENT, or null
+     *  if it is empty. */
+    static long[] signature(byte[] content) {
+        if (content.length == 0) {
+            return null;
+        }
+        long[] sig = new long[SIGNATURE];
+        Arrays.fill(sig, Long.MAX_VALUE);
+        long h = 0xcbf29ce484222325L;  // FNV-1a over the current line.
+        int lineStart = 0;
+        for (int i = 0; i <= content.length; i += 1) {
+            if (i == content.length && i == lineStart) {
+                break;  // No unterminated last line.
+            }
+            if (i == content.length || content[i] == '\n') {
+                for (int k = 0; k < SIGNATURE; k += 1) {
+                    long v = mix(h + k * 0x9e3779b97f4a7c15L);
+                    if (v < sig[k]) {
+                        sig[k] = v;
+                    }
+                }
+                h = 0xcbf29ce484222325L;
+                lineStart = i + 1;
+            } else {
+                h = (h ^ (content[i] & 0xff)) * 0x100000001b3L;
+            }
+        }
+        return sig;
+    }
+
+    /** Return the fraction of positions at which signatures A and B agree,
+     *  an estimate of the Jaccard similarity of their line sets. */
+    static double similarity(long[] a, long[] b) {
+        int same = 0;
+        for (int k = 0; k < SIGNATURE; k += 1) {
+            if (a[k] == b[k]) {
+                same += 1;
+            }
+        }
+        return (double) same / SIGNATURE;
+    }
+
+    /** Return the bucket key of band BAND of signature SIG. */
+    private static long bandKey(long[] sig, int band) {
+        long key = band;
+        for (int r = 0; r < ROWS; r += 1) {
+            key = mix(key ^ sig[band * ROWS + r]);
+        }
+        return key;
+    }
+
+    /** The SplitMix64 finalizer. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,6 +1,7 @@
 package gitlet;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static gitlet.Utils.*;
@@ -8,100 +9,311 @@ import static gitlet.Utils.*;
 /** Represents a gitlet repository.
  *  Provides interfaces for all the commands and their helper methods.
  *
+ *  Each Repository is bound to one working directory.  Commands report
+ *  failures by throwing a GitletException whose message is what the
+ *  command-line tool prints, and return what they would otherwise print
+ *  as result objects, so several repositories can be driven from one
+ *  process (one instance per thread; instances share no state).
+ *
  *  @author Shuyuan Wang
  */
 public class Repository {
     /**
      * The current working directory.
      */
-    public static final File CWD = new File(System.getProperty("user.dir"));
+    public final File CWD;
     /**
      * The .gitlet directory.
      */
-    public static final File GITLET_DIR = join(CWD, ".gitlet");
+    public final File GITLET_DIR;
     /**
-     * The .gitlet/objects directory.
+     * The .gitlet/HEAD file.
      */
-    public static final File HEAD = join(GITLET_DIR, "HEAD");
+    public final File HEAD;
     /**
-     * The .gitlet/objects directory.
+     * The .gitlet/INDEX file.
      */
-    public static final File INDEX = join(GITLET_DIR, "INDEX");
+    public final File INDEX;
+    /**
+     * The .gitlet directory holding the branches and objects.  For a linked
+     * worktree this is the main worktree's, named by .gitlet/commondir;
+     * otherwise it is GITLET_DIR.  Everything below except HEAD and INDEX
+     * lives here.
+     */
+    public final File COMMON_DIR;
     /**
      * The .gitlet/branches directory.
      */
-    public static final File BRANCHES_DIR = join(GITLET_DIR, "branches");
+    public final File BRANCHES_DIR;
     /**
      * The .gitlet/objects directory.
      */
-    public static final File OBJECTS_DIR = join(GITLET_DIR, "objects");
+    public final File OBJECTS_DIR;
     /**
-     * The .gitlet/objects directory.
+     * The .gitlet/objects/blobs directory.
      */
-    public static final File BLOBS_DIR = join(OBJECTS_DIR, "blobs");
+    public final File BLOBS_DIR;
     /**
-     * The .gitlet/objects directory.
+     * The .gitlet/objects/commits directory.
+     */
+    public final File COMMITS_DIR;
+    /**
+     * The .gitlet/shallow file: the commits of a shallow clone whose parents were not copied.
+     */
+    public final File SHALLOW;
+    /**
+     * The .gitlet/lazy-source file: the repository a lazy clone fetches missing blobs from.
+     */
+    public final File LAZY_SOURCE;
+    /**
+     * The .gitlet/config file: the repository format version and object hash.
+     */
+    public final File CONFIG;
+    /**
+     * The .gitlet/stash file: the IDs of the stash commits, newest first.
+     */
+    public final File STASH;
+    /**
+     * The .gitlet/worktrees file: the roots of the linked worktrees, one per line.
+     */
+    public final File WORKTREES;
+    /**
+     * The .gitlet/blame directory: saved blame results, by commit and path.
+     */
+    public final File BLAME_CACHE;
+
+    /** The repository format version written by init. */
+    static final int FORMAT_VERSION = 1;
+    /** The hash naming this repository's objects, read from CONFIG on first use. */
+    private ObjectHash objectHash;
+
+    /**
+     * A repository whose working directory is ROOT.
      */
-    public static final File COMMITS_DIR = join(OBJECTS_DIR, "commits");
+    public Repository(File root) {
+        CWD = root.getAbsoluteFile();
+        GITLET_DIR = join(CWD, ".gitlet");
+        HEAD = join(GITLET_DIR, "HEAD");
+        INDEX = join(GITLET_DIR, "INDEX");
+        File commonDir = join(GITLET_DIR, "commondir");
+        COMMON_DIR = commonDir.isFile() ? new File(readContentsAsString(commonDir)) : GITLET_DIR;
+        BRANCHES_DIR = join(COMMON_DIR, "branches");
+        OBJECTS_DIR = join(COMMON_DIR, "objects");
+        BLOBS_DIR = join(OBJECTS_DIR, "blobs");
+        COMMITS_DIR = join(OBJECTS_DIR, "commits");
+        SHALLOW = join(COMMON_DIR, "shallow");
+        LAZY_SOURCE = join(COMMON_DIR, "lazy-source");
+        CONFIG = join(COMMON_DIR, "config");
+        STASH = join(COMMON_DIR, "stash");
+        WORKTREES = join(COMMON_DIR, "worktrees");
+        BLAME_CACHE = join(COMMON_DIR, "blame");
+    }
+
+    /**
+     * init command, naming objects with SHA1.
+     */
+    public void initRepo() {
+        initRepo(ObjectHash.SHA1);
+    }
 
     /**
-     * init command.
+     * init command, naming objects with HASH.
      */
-    public static void initRepo() {
+    public void initRepo(ObjectHash hash) {
         if (GITLET_DIR.exists()) {
-            System.out.println("A Gitlet version-control system already " +
+            throw error("A Gitlet version-control system already " +
                     "exists in the current directory.");
-            System.exit(0);
         }
 
-        /** Create the directories */
-        GITLET_DIR.mkdir();
-        BRANCHES_DIR.mkdir();
-        OBJECTS_DIR.mkdir();
-        BLOBS_DIR.mkdir();
-        COMMITS_DIR.mkdir();
+        makeDirs();
+        writeContents(CONFIG, "version=" + FORMAT_VERSION + "\nhash=" + hash.configName + "\n");
+        objectHash = hash;
 
         /** Create and save initial commit */
         Commit root = new Commit(new Date(0), "initial commit", null);
-        String ID = sha1(root.toString());
-        root.save(ID);
+        String ID = hash(root.toString());
+        root.save(COMMITS_DIR, ID);
 
         /** Save master branch and HEAD */
         writeContents(join(BRANCHES_DIR, "master"), ID);
         writeContents(HEAD, "master");
     }
 
-    private static void checkIfGitletDir() {
+    /** Create the directories */
+    private void makeDirs() {
+        GITLET_DIR.mkdir();
+        BRANCHES_DIR.mkdir();
+        OBJECTS_DIR.mkdir();
+        BLOBS_DIR.mkdir();
+        COMMITS_DIR.mkdir();
+    }
+
+    /**
+     * clone command: copy the repository at SOURCE into this (empty) one and
+     * check out its current branch.
+     *
+     * @param depth If positive, copy only the commits at most DEPTH steps
+     *              from some branch head, and record the commits whose
+     *              parents were left out in the shallow file.
+     * @param lazy  If true, copy only the blobs of the checked-out commit;
+     *              the rest are fetched from SOURCE the first time they are read.
+     */
+    public void cloneFrom(File source, int depth, boolean lazy) {
+        Repository src = new Repository(source);
+        if (!src.GITLET_DIR.isDirectory()) {
+            throw error("Source is not a Gitlet repository.");
+        }
+        if (GITLET_DIR.exists()) {
+            throw error("A Gitlet version-control system already " +
+                    "exists in the current directory.");
+        }
+        checkUntrackedOverwritten(plainFilenamesIn(CWD), new HashMap<>(), src.getHeadCommit());
+        makeDirs();
+        if (src.CONFIG.exists()) {
+            writeContents(CONFIG, readContents(src.CONFIG));
+        }
+
+        /* Walk back from every branch head, one generation at a time. */
+        HashSet<String> srcShallow = src.readShallow();
+        HashSet<String> copied = new HashSet<>();
+        HashMap<String, String[]> stopped = new HashMap<>();  // Commits whose parents were not walked.
+        HashSet<String> blobs = new HashSet<>();
+        List<String> generation = new ArrayList<>();
+        for (String branch : plainFilenamesIn(src.BRANCHES_DIR)) {
+            String ID = src.getHeadCommitID(branch);
+            writeContents(join(BRANCHES_DIR, branch), ID);
+            if (copied.add(ID)) {
+                generation.add(ID);
+            }
+        }
+        for (int level = 1; !generation.isEmpty(); level += 1) {
+            List<String> next = new ArrayList<>();
+            for (String ID : generation) {
+                Commit commit = src.getCommitBySHA(ID);
+                copyObject(src.COMMITS_DIR, COMMITS_DIR, ID);
+                blobs.addAll(commit.getBlobs().values());
+                if (srcShallow.contains(ID) || (depth > 0 && level == depth)) {
+                    stopped.put(ID, commit.getParents());
+                    continue;
+                }
+                for (String parentID : commit.getParents()) {
+                    if (parentID != null && copied.add(parentID)) {
+                        next.add(parentID);
+                    }
+                }
+            }
+            generation = next;
+        }
+        HashSet<String> boundary = new HashSet<>();
+        for (Map.Entry<String, String[]> entry : stopped.entrySet()) {
+            for (String parentID : entry.getValue()) {
+                if (parentID != null && !copied.contains(parentID)) {
+                    boundary.add(entry.getKey());
+                }
+            }
+        }
+        if (!boundary.isEmpty()) {
+            writeShallow(boundary);
+        }
+
+        if (lazy) {
+            writeContents(LAZY_SOURCE, src.CWD.getPath());
+        } else {
+            for (String blobID : blobs) {
+                src.fetchBlob(blobID);  // A lazy source may not have it yet.
+                copyObject(src.BLOBS_DIR, BLOBS_DIR, blobID);
+            }
+        }
+
+        /** Check out the source's current branch. */
+        String curBranch = readContentsAsString(src.HEAD);
+        writeContents(HEAD, curBranch);
+        for (Map.Entry<String, String> entry : getHeadCommit().getBlobs().entrySet()) {
+            writeContents(join(CWD, entry.getKey()), getBlobContent(entry.getValue()));
+        }
+    }
+
+    /**
+     * Copy the object named ID from the store FROMDIR to the store TODIR,
+     * unless TODIR already has it.
+     */
+    private static void copyObject(File fromDir, File toDir, String ID) {
+        File prefix = join(toDir, ID.substring(0, 2));
+        File target = join(prefix, ID.substring(2));
+        if (target.exists()) {
+            return;
+        }
+        prefix.mkdir();
+        writeContents(target, readContents(join(fromDir, ID.substring(0, 2), ID.substring(2))));
+    }
+
+    /**
+     * Return the commits whose parents are missing from this shallow clone,
+     * or an empty set if this is a complete repository.
+     */
+    HashSet<String> readShallow() {
+        HashSet<String> shallow = new HashSet<>();
+        if (SHALLOW.exists()) {
+            for (String ID : readContentsAsString(SHALLOW).split("\n")) {
+                if (!ID.isEmpty()) {
+                    shallow.add(ID);
+                }
+            }
+        }
+        return shallow;
+    }
+
+    private void writeShallow(Set<String> shallow) {
+        StringBuilder returnSB = new StringBuilder();
+        for (String ID : new TreeSet<>(shallow)) {
+            returnSB.append(ID);
+            returnSB.append("\n");
+        }
+        writeContents(SHALLOW, returnSB.toString());
+    }
+
+    /**
+     * fast-import command: read commits from the stream IN and write them
+     * straight into the object store (see FastImport for the format).
+     *
+     * @Return The number of commits imported.
+     */
+    public int fastImport(InputStream in) throws IOException {
+        checkIfGitletDir();
+        return new FastImport(this, in).run();
+    }
+
+    /**
+     * fast-export command: write the history of every branch to OUT in the
+     * format fast-import reads.
+     */
+    public void fastExport(OutputStream out) throws IOException {
+        checkIfGitletDir();
+        if (SHALLOW.exists()) {
+            throw error("Cannot export a shallow clone.");
+        }
+        new FastExport(this, out).run();
+    }
+
+    private void checkIfGitletDir() {
         if (!GITLET_DIR.exists()) {
-            System.out.println("Not in an initialized Gitlet directory.");
-            System.exit(0);
+            throw error("Not in an initialized Gitlet directory.");
         }
     }
 
     /**
      * add command.
      */
-    public static void addFile(String fileName) {
+    public void addFile(String fileName) {
         checkIfGitletDir();
         File newFile = join(CWD, fileName);
         if (!newFile.exists()) {
-            System.out.println("File does not exist.");
-            System.exit(0);
-        }
-        /** Save the blob if it's new. */
-        byte[] fileContent = readContents(newFile);
-        String ID = sha1(fileContent);
-        File blobPrefix = join(BLOBS_DIR, ID.substring(0, 2));
-        if (!blobPrefix.exists()) {
-            blobPrefix.mkdir();
-        }
-        File blob = join(blobPrefix, ID.substring(2));
-        if (!blob.exists()) {
-            writeContents(blob, fileContent);
+            throw error("File does not exist.");
         }
+        String ID = saveBlob(readContents(newFile));
         /** Update the INDEX if necessary. */
         Commit headCommit = getHeadCommit();
-        Index stagingArea = Index.getStagingArea();
+        Index stagingArea = Index.getStagingArea(INDEX);
         // rm and then add again.
         if (stagingArea.removed.containsKey(fileName)
             && stagingArea.removed.get(fileName).equals(ID)) {
@@ -119,13 +331,84 @@ public class Repository {
         } else {
             return;
         }
-        stagingArea.save();
+        stagingArea.save(INDEX);
+    }
+
+    /**
+     * Return the hash naming this repository's objects.
+     */
+    ObjectHash objectHash() {
+        if (objectHash == null) {
+            objectHash = readConfig();
+        }
+        return objectHash;
+    }
+
+    /**
+     * Return the ID of the concatenation of VALS under this repository's hash.
+     */
+    String hash(Object... vals) {
+        return objectHash().hash(vals);
+    }
+
+    /**
+     * Read the object hash from CONFIG.  Repositories created before CONFIG
+     * existed have none and use SHA1.
+     */
+    private ObjectHash readConfig() {
+        if (!CONFIG.exists()) {
+            return ObjectHash.SHA1;
+        }
+        int version = 0;
+        ObjectHash hash = ObjectHash.SHA1;
+        for (String line : readContentsAsString(CONFIG).split("\n")) {
+            int eq = line.indexOf('=');
+            if (eq < 0) {
+                continue;
+            }
+            String key = line.substring(0, eq).trim();
+            String value = line.substring(eq + 1).trim();
+            if (key.equals("version")) {
+                try {
+                    version = Integer.parseInt(value);
+                } catch (NumberFormatException excp) {
+                    throw error("Malformed repository config: %s", line);
+                }
+            } else if (key.equals("hash")) {
+                hash = ObjectHash.forName(value);
+                if (hash == null) {
+                    throw error("Unsupported object hash: %s", value);
+                }
+            }
+        }
+        if (version > FORMAT_VERSION) {
+            throw error("Unsupported repository format version: %d", version);
+        }
+        return hash;
+    }
+
+    /**
+     * Save a blob holding CONTENT if it's new.
+     *
+     * @Return The ID of the blob.
+     */
+    String saveBlob(byte[] content) {
+        String ID = hash(content);
+        File blobPrefix = join(BLOBS_DIR, ID.substring(0, 2));
+        if (!blobPrefix.exists()) {
+            blobPrefix.mkdir();
+        }
+        File blob = join(blobPrefix, ID.substring(2));
+        if (!blob.exists()) {
+            writeContents(blob, content);
+        }
+        return ID;
     }
 
     /**
      * Return the Commit Obj pointed by HEAD.
      */
-    private static Commit getHeadCommit() {
+    private Commit getHeadCommit() {
         String curBranch = readContentsAsString(HEAD);
         String SHA1 = getHeadCommitID(curBranch);
         return getCommitBySHA(SHA1);
@@ -134,19 +417,18 @@ public class Repository {
     /**
      * Return the SHA1 value of the head commit in the given branch.
      */
-    private static String getHeadCommitID(String branch) {
+    String getHeadCommitID(String branch) {
         return readContentsAsString(join(BRANCHES_DIR, branch));
     }
 
     /**
      * Return the Commit Obj with the given SHA1 value.
      */
-    private static Commit getCommitBySHA(String ID) {
+    Commit getCommitBySHA(String ID) {
         File commitPrefix = join(COMMITS_DIR, ID.substring(0, 2));
         File commit = join(commitPrefix, ID.substring(2));
         if (!commit.exists()) {
-            System.out.println("No commit with that id exists.");
-            System.exit(0);
+            throw error("No commit with that id exists.");
         }
         return readObject(commit, Commit.class);
     }
@@ -159,7 +441,7 @@ public class Repository {
      * @param changes The Index Object.
      * @Return The updated blobs.
      */
-    private static HashMap<String, String> getNewBlobs(Commit commit, Index changes) {
+    private HashMap<String, String> getNewBlobs(Commit commit, Index changes) {
         HashMap<String, String> orig = commit.getBlobs();
         HashMap<String, String> newBlobs = new HashMap<>(orig);
 
@@ -174,18 +456,18 @@ public class Repository {
 
     /**
      * commit command.
+     *
+     * @Return The SHA1 ID of the new commit.
      */
-    public static void commit(String message) {
+    public String commit(String message) {
         /** Precheck. */
         checkIfGitletDir();
         if (message.equals("")) {
-            System.out.println("Please enter a commit message.");
-            System.exit(0);
+            throw error("Please enter a commit message.");
         }
-        Index changes = Index.getStagingArea();
+        Index changes = Index.getStagingArea(INDEX);
         if (changes.isEmpty()) {
-            System.out.println("No changes added to the commit.");
-            System.exit(0);
+            throw error("No changes added to the commit.");
         }
 
         /** Construct and save the new commit. */
@@ -199,23 +481,24 @@ public class Repository {
         HashMap<String, String> newBlobs = getNewBlobs(prevCommit, changes);
         // Create and save the new commit.
         Commit newCommit = new Commit(timeStamp, message, parent, newBlobs);
-        String ID = sha1(newCommit.toString());
-        newCommit.save(ID);
+        String ID = hash(newCommit.toString());
+        newCommit.save(COMMITS_DIR, ID);
 
         /** Update branch and Clear the staging area. */
         writeContents(join(BRANCHES_DIR, curBranch), ID);
         changes.clear();
-        changes.save();
+        changes.save(INDEX);
+        return ID;
     }
 
     /**
      * rm command.
      */
-    public static void remove(String fileName) {
+    public void remove(String fileName) {
         checkIfGitletDir();
         boolean errorFlag = true;   // Flags: true if the file is neither staged nor tracked.
 
-        Index changes = Index.getStagingArea();
+        Index changes = Index.getStagingArea(INDEX);
         if (changes.staged.containsKey(fileName)) {
             changes.staged.remove(fileName);
             errorFlag = false;
@@ -226,77 +509,70 @@ public class Repository {
             changes.removed.put(fileName, headCommit.fileVersion(fileName));
             File toDelete = join(CWD, fileName);
             if (toDelete.exists() && !restrictedDelete(toDelete)) {
-                System.exit(0);
+                throw new GitletException();
             }
             errorFlag = false;
         }
 
         if (errorFlag) {
-            System.out.println("No reason to remove the file.");
-            System.exit(0);
+            throw error("No reason to remove the file.");
         }
 
-        changes.save();
-    }
-
-    private static void printCommit(String ID, Commit commit) {
-        StringBuilder returnSB = new StringBuilder();
-        returnSB.append("===\n");
-        returnSB.append("commit " + ID + "\n");
-        if (commit.isMergeCommit()) {
-            returnSB.append(
-                "Merge: " + commit.getParent().substring(0, 7) + " " + commit.getMergeParent().substring(0, 7) + "\n"
-            );
-        }
-        returnSB.append("Date: " + commit.getFormattedTime() + "\n");
-        returnSB.append(commit.getMessage() + "\n");
-        returnSB.append("\n");
-        System.out.print(returnSB.toString());
+        changes.save(INDEX);
     }
 
     /**
      * log command.
+     *
+     * @Return The first-parent history of HEAD, newest first.
      */
-    public static void log() {
+    public List<LogEntry> log() {
         checkIfGitletDir();
+        List<LogEntry> entries = new ArrayList<>();
         String curBranch = readContentsAsString(HEAD);
         String ID = getHeadCommitID(curBranch);
         Commit curCommit = getCommitBySHA(ID);
-        printCommit(ID, curCommit);
-        String parentID = curCommit.getParent();
+        entries.add(new LogEntry(ID, curCommit));
+        HashSet<String> shallow = readShallow();
+        String parentID = shallow.contains(ID) ? null : curCommit.getParent();
         while (parentID != null) {  // The parent of initial commit is null.
             curCommit = getCommitBySHA(parentID);
             ID = parentID;
-            printCommit(ID, curCommit);
-            parentID = curCommit.getParent();
+            entries.add(new LogEntry(ID, curCommit));
+            parentID = shallow.contains(ID) ? null : curCommit.getParent();
         }
+        return entries;
     }
 
     /**
      * global-log command.
+     *
+     * @Return Every commit ever made, in no particular order.
      */
-    public static void globalLog() {
+    public List<LogEntry> globalLog() {
         checkIfGitletDir();
+        List<LogEntry> entries = new ArrayList<>();
         String[] commitDirs = COMMITS_DIR.list();
         for (String commitDir : commitDirs) {
             List<String> commits = plainFilenamesIn(join(COMMITS_DIR, commitDir));
             for (String commit : commits) {
                 String ID = commitDir + commit;
                 Commit commitObj = getCommitBySHA(ID);
-                printCommit(ID, commitObj);
+                entries.add(new LogEntry(ID, commitObj));
             }
         }
+        return entries;
     }
 
     /**
      * Create a new blobs (HsahMap) for the CWD.
      */
-    private static HashMap<String, String> takeSnapShot() {
+    private HashMap<String, String> takeSnapShot() {
         List<String> curFiles = plainFilenamesIn(CWD);
         HashMap<String, String> snapShot = new HashMap<>();
         for (String fileName : curFiles) {
             byte[] fileContent = readContents(join(CWD, fileName));
-            String ID = sha1(fileContent);
+            String ID = hash(fileContent);
             snapShot.put(fileName, ID);
         }
         return snapShot;
@@ -305,50 +581,28 @@ public class Repository {
     /**
      * status command.
      */
-    public static void status() {
+    public Status status() {
         checkIfGitletDir();
-        StringBuilder returnSB = new StringBuilder();
 
         /** Branches. */
         String curBranch = readContentsAsString(HEAD);
         List<String> branches = plainFilenamesIn(BRANCHES_DIR);
-        returnSB.append("=== Branches ===\n");
-        returnSB.append("*");
-        returnSB.append(curBranch);
-        returnSB.append("\n");
+        List<String> otherBranches = new ArrayList<>();
         for (String branch : branches) {
             if (!branch.equals(curBranch)) {
-                returnSB.append(branch);
-                returnSB.append("\n");
+                otherBranches.add(branch);
             }
         }
-        returnSB.append("\n");
 
         /** Staged Files. */
-        Index changes = Index.getStagingArea();
-
-        String[] stagedFiles = changes.staged.keySet().toArray(new String[0]);
-        Arrays.sort(stagedFiles);
-        returnSB.append("=== Staged Files ===\n");
-        for (String stagedFile : stagedFiles) {
-            returnSB.append(stagedFile);
-            returnSB.append("\n");
-        }
-        returnSB.append("\n");
+        Index changes = Index.getStagingArea(INDEX);
+        List<String> stagedFiles = new ArrayList<>(new TreeSet<>(changes.staged.keySet()));
 
         /** Removed Files. */
-        String[] removedFiles = changes.removed.keySet().toArray(new String[0]);
-        Arrays.sort(removedFiles);
-        returnSB.append("=== Removed Files ===\n");
-        for (String removedFile : removedFiles) {
-            returnSB.append(removedFile);
-            returnSB.append("\n");
-        }
-        returnSB.append("\n");
+        List<String> removedFiles = new ArrayList<>(new TreeSet<>(changes.removed.keySet()));
 
         /** Modifications Not Staged For Commit. */
         // In essence, "modified" means (HEAD.blobs + INDEX) - the same entries in CWD.
-        returnSB.append("=== Modifications Not Staged For Commit ===\n");
         HashMap<String, String> newBlobs = getNewBlobs(getHeadCommit(), changes);   // HEAD.blobs + INDEX
         HashMap<String, String> snapShot = takeSnapShot();  // CWD snapshot
         TreeSet<String> modifications = new TreeSet<>();
@@ -359,35 +613,70 @@ public class Repository {
                 modifications.add(entry.getKey() + " (deleted)");
             }
         }
-        for (String entry : modifications) {
-            returnSB.append(entry);
-            returnSB.append("\n");
-        }
-        returnSB.append("\n");
 
         /** Untracked Files. */
-        returnSB.append("=== Untracked Files ===\n");
         TreeSet<String> untracked = new TreeSet<>();
         for (Map.Entry<String, String> entry : snapShot.entrySet()) {
             if (!newBlobs.containsKey(entry.getKey())) {
                 untracked.add(entry.getKey());
             }
         }
-        for (String entry : untracked) {
-            returnSB.append(entry);
-            returnSB.append("\n");
+
+        return new Status(curBranch, otherBranches, stagedFiles, removedFiles,
+                          new ArrayList<>(modifications), new ArrayList<>(untracked),
+                          statusRenames(changes, newBlobs, snapShot, untracked));
+    }
+
+    /**
+     * Return the renames and copies status reports, as "old -> new" or
+     * "old -> new (copied)": files staged for removal or deleted from the CWD,
+     * paired with new files that are staged or untracked.
+     */
+    private List<String> statusRenames(Index changes, HashMap<String, String> newBlobs,
+                                       HashMap<String, String> snapShot, Set<String> untracked) {
+        Commit headCommit = getHeadCommit();
+        HashMap<String, String> deleted = new HashMap<>(changes.removed);
+        HashMap<String, String> kept = new HashMap<>();
+        for (Map.Entry<String, String> entry : newBlobs.entrySet()) {
+            if (!snapShot.containsKey(entry.getKey())) {
+                deleted.put(entry.getKey(), entry.getValue());
+            } else if (headCommit.tracks(entry.getKey())) {
+                kept.put(entry.getKey(), entry.getValue());
+            }
+        }
+        HashMap<String, String> added = new HashMap<>();
+        HashMap<String, String> untrackedByID = new HashMap<>();  // Untracked files have no blob yet.
+        for (String fileName : untracked) {
+            added.put(fileName, snapShot.get(fileName));
+            untrackedByID.put(snapShot.get(fileName), fileName);
+        }
+        for (Map.Entry<String, String> entry : changes.staged.entrySet()) {
+            if (!headCommit.tracks(entry.getKey())) {
+                added.put(entry.getKey(), entry.getValue());
+            }
+        }
+        List<String> renames = new ArrayList<>();
+        if (added.isEmpty() || (deleted.isEmpty() && kept.isEmpty())) {
+            return renames;
         }
-        returnSB.append("\n");
 
-        System.out.print(returnSB.toString());
+        RenameDetector detector = new RenameDetector(ID -> untrackedByID.containsKey(ID)
+                ? readContents(join(CWD, untrackedByID.get(ID))) : getBlobContent(ID));
+        for (Map.Entry<String, String> pair : detector.detect(deleted, kept, added).entrySet()) {
+            renames.add(pair.getValue() + " -> " + pair.getKey()
+                        + (deleted.containsKey(pair.getValue()) ? "" : " (copied)"));
+        }
+        return renames;
     }
 
     /**
      * find command.
+     *
+     * @Return The IDs of all commits whose message contains MESSAGE.
      */
-    public static void find(String message) {
+    public List<String> find(String message) {
         checkIfGitletDir();
-        StringBuilder returnSB = new StringBuilder();
+        List<String> found = new ArrayList<>();
 
         String[] commitDirs = COMMITS_DIR.list();
         for (String commitDir : commitDirs) {
@@ -396,46 +685,62 @@ public class Repository {
                 String ID = commitDir + commit;
                 Commit commitObj = getCommitBySHA(ID);
                 if (commitObj.getMessage().contains(message)) { // Use String.contains() method.
-                    returnSB.append(ID);
-                    returnSB.append("\n");
+                    found.add(ID);
                 }
             }
         }
-        if (returnSB.toString().isEmpty()) {
-            System.out.println("Found no commit with that message.");
-            System.exit(0);
+        if (found.isEmpty()) {
+            throw error("Found no commit with that message.");
         }
-        returnSB.append("\n");
-        System.out.println(returnSB.toString());
+        return found;
     }
 
-    private static byte[] getBlobContent(String blobID) {
+    byte[] getBlobContent(String blobID) {
+        return readContents(fetchBlob(blobID));
+    }
+
+    /**
+     * Return the file of the blob BLOBID, first fetching it from the source
+     * if this is a lazy clone that does not have it yet.  Throws a
+     * GitletException if the blob is nowhere to be found.
+     */
+    private File fetchBlob(String blobID) {
         File blob = join(join(BLOBS_DIR, blobID.substring(0, 2)), blobID.substring(2));
-        return readContents(blob);
+        if (!blob.exists() && LAZY_SOURCE.exists()) {
+            /* A lazy clone: fetch the blob from the source on first use. */
+            Repository src = new Repository(new File(readContentsAsString(LAZY_SOURCE)));
+            if (!join(src.BLOBS_DIR, blobID.substring(0, 2), blobID.substring(2)).exists()) {
+                throw error("Cannot fetch blob %s from %s.", blobID, src.CWD.getPath());
+            }
+            copyObject(src.BLOBS_DIR, BLOBS_DIR, blobID);
+        }
+        if (!blob.exists()) {
+            throw error("Blob %s is missing from %s.", blobID, CWD.getPath());
+        }
+        return blob;
     }
 
-    private static boolean branchExists(String branchName) {
+    private boolean branchExists(String branchName) {
         File targetBranch = join(BRANCHES_DIR, branchName);
         return targetBranch.exists();
     }
 
-    private static void checkUntrackedOverwritten(List<String> snapShot, HashMap<String, String> newBlobs, Commit targetCommit) {
+    private void checkUntrackedOverwritten(List<String> snapShot, HashMap<String, String> newBlobs, Commit targetCommit) {
         for (String fileName : snapShot) {
             if (!newBlobs.containsKey(fileName)) {  // Untracked: neither staged nor tracked.
                 if (targetCommit.tracks(fileName)) {  // which will be overwritten.
                     //&& !targetCommit.fileVersion(fileName).equals(curFileVersion(fileName))) {
-                    System.out.println("There is an untracked file in the way;" +
+                    throw error("There is an untracked file in the way;" +
                             " delete it, or add and commit it first.");
-                    System.exit(0);
                 }
             }
         }
     }
 
-    public static void checkoutCommit(Commit targetCommit) {
+    private void checkoutCommit(Commit targetCommit) {
         Commit headCommit = getHeadCommit();
 
-        Index changes = Index.getStagingArea();
+        Index changes = Index.getStagingArea(INDEX);
         HashMap<String, String> newBlobs = getNewBlobs(headCommit, changes);   // HEAD.blobs + INDEX
 
         List<String> snapShot = plainFilenamesIn(CWD);
@@ -457,24 +762,23 @@ public class Repository {
         }
 
         changes.clear();
-        changes.save();
+        changes.save(INDEX);
     }
 
     /**
      * checkout [branch name]
      */
-    public static void checkoutBranch(String branch) {
+    public void checkoutBranch(String branch) {
         /** Precheck. */
         checkIfGitletDir();
         if (!branchExists(branch)) {
-            System.out.println("No such branch exists.");
-            System.exit(0);
+            throw error("No such branch exists.");
         }
         String curBranch = readContentsAsString(HEAD);
         if (curBranch.equals(branch)) {
-            System.out.println("No need to checkout the current branch.");
-            System.exit(0);
+            throw error("No need to checkout the current branch.");
         }
+        checkNotCheckedOutElsewhere(branch);
 
         /** Do the checkout. */
         Commit targetCommit = getCommitBySHA(getHeadCommitID(branch));
@@ -487,43 +791,38 @@ public class Repository {
     /**
      * checkout -- [file name]
      */
-    public static void checkoutFilefromHEAD(String fileName) {
+    public void checkoutFilefromHEAD(String fileName) {
         checkIfGitletDir();
         Commit headCommit = getHeadCommit();
         checkoutFilefromCommit(headCommit, fileName);
     }
 
-    private static void checkoutFilefromCommit(Commit commit, String fileName) {
+    private void checkoutFilefromCommit(Commit commit, String fileName) {
         if (!commit.getBlobs().containsKey(fileName)) {
-            System.out.println("File does not exist in that commit.");
-            System.exit(0);
+            throw error("File does not exist in that commit.");
         }
 
         byte[] content = readBlobContent(commit, fileName);
         writeContents(join(CWD, fileName), content);
     }
 
-    private static byte[] readBlobContent(Commit commit, String fileName) {
-        String ID = commit.fileVersion(fileName);
-        File file = join(join(BLOBS_DIR, ID.substring(0, 2)), ID.substring(2));
-        return readContents(file);
+    private byte[] readBlobContent(Commit commit, String fileName) {
+        return getBlobContent(commit.fileVersion(fileName));
     }
 
-    private static String readBlobContentAsString(Commit commit, String fileName) {
+    private String readBlobContentAsString(Commit commit, String fileName) {
         if (!commit.tracks(fileName)) {
             return "";
         }
-        String ID = commit.fileVersion(fileName);
-        File file = join(join(BLOBS_DIR, ID.substring(0, 2)), ID.substring(2));
-        return readContentsAsString(file);
+        return new String(readBlobContent(commit, fileName), StandardCharsets.UTF_8);
     }
 
     /**
      * checkout [commit id] -- [file name]
      */
-    public static void checkoutFilefromCommitID(String ID, String fileName) {
+    public void checkoutFilefromCommitID(String ID, String fileName) {
         checkIfGitletDir();
-        if (ID.length() == 40) {
+        if (ID.length() == objectHash().hexLength) {
             checkoutFilefromCommit(getCommitBySHA(ID), fileName);
             return;
         }
@@ -541,19 +840,56 @@ public class Repository {
             }
         }
 
-        System.out.println("No commit with that id exists.");
-        System.exit(0);
+        throw error("No commit with that id exists.");
+    }
+
+    /**
+     * fsck command, on one worker thread per available processor (see Fsck).
+     *
+     * @Return One line per problem found, sorted; empty if there are none.
+     */
+    public List<String> fsck() {
+        return fsck(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * fsck command, on THREADS worker threads.
+     */
+    public List<String> fsck(int threads) {
+        checkIfGitletDir();
+        return new Fsck(this, threads).run();
+    }
+
+    /**
+     * blame command: the commit that introduced each line of FILENAME as it
+     * is in HEAD (see Blame).
+     */
+    public List<BlameLine> blame(String fileName) {
+        checkIfGitletDir();
+        String headID = getHeadCommitID(readContentsAsString(HEAD));
+        Commit headCommit = getCommitBySHA(headID);
+        if (!headCommit.tracks(fileName)) {
+            throw error("File is not tracked in the current commit.");
+        }
+        String[] origins = new Blame(this).origins(headID, fileName);
+        String[] lines = Blame.lines(readBlobContent(headCommit, fileName));
+        HashMap<String, Commit> commits = new HashMap<>();
+        List<BlameLine> blame = new ArrayList<>();
+        for (int i = 0; i < lines.length; i += 1) {
+            Commit origin = commits.computeIfAbsent(origins[i], this::getCommitBySHA);
+            blame.add(new BlameLine(origins[i], origin, i + 1, lines[i]));
+        }
+        return blame;
     }
 
     /**
      * branch command.
      */
-    public static void newBranch(String branchName) {
+    public void newBranch(String branchName) {
         checkIfGitletDir();
         File branch = join(BRANCHES_DIR, branchName);
         if (branch.exists()) {
-            System.out.println("A branch with that name already exists.");
-            System.exit(0);
+            throw error("A branch with that name already exists.");
         }
 
         writeContents(branch, getHeadCommitID(readContentsAsString(HEAD)));
@@ -562,30 +898,293 @@ public class Repository {
     /**
      * rm-branch command.
      */
-    public static void removeBranch(String branchName) {
+    public void removeBranch(String branchName) {
         checkIfGitletDir();
         File branch = join(BRANCHES_DIR, branchName);
         if (!branch.exists()) {
-            System.out.println("A branch with that name does not exist.");
-            System.exit(0);
+            throw error("A branch with that name does not exist.");
         }
         if (readContentsAsString(HEAD).equals(branchName)) {
-            System.out.println("Cannot remove the current branch.");
-            System.exit(0);
+            throw error("Cannot remove the current branch.");
         }
+        checkNotCheckedOutElsewhere(branchName);
 
         branch.delete();
     }
 
+    /**
+     * stash push command: record the tracked files of the working directory,
+     * staged or not, as a commit whose parent is HEAD, push it onto the stash
+     * and restore those files to HEAD.  Untracked files are left alone.
+     * Only contents not already stored become new blobs.
+     *
+     * @param message The stash message, or null for the default one.
+     * @Return The ID of the stash commit.
+     */
+    public String stashPush(String message) {
+        checkIfGitletDir();
+        String curBranch = readContentsAsString(HEAD);
+        String headID = getHeadCommitID(curBranch);
+        Commit headCommit = getCommitBySHA(headID);
+        Index changes = Index.getStagingArea(INDEX);
+        HashMap<String, String> tracked = getNewBlobs(headCommit, changes);
+        for (String fileName : changes.removed.keySet()) {
+            if (join(CWD, fileName).exists()) {  // Untracked since the rm, and restored below.
+                throw error("There is an untracked file in the way;" +
+                        " delete it, or add and commit it first.");
+            }
+        }
+
+        HashMap<String, String> work = new HashMap<>();
+        for (String fileName : tracked.keySet()) {
+            File file = join(CWD, fileName);
+            if (file.exists()) {
+                work.put(fileName, saveBlob(readContents(file)));
+            }
+        }
+        if (work.equals(headCommit.getBlobs())) {
+            throw error("No local changes to save.");
+        }
+
+        if (message == null) {
+            message = "WIP on " + curBranch + ": " + headID.substring(0, 7) + " " + headCommit.getMessage();
+        } else {
+            message = "On " + curBranch + ": " + message;
+        }
+        Commit stash = new Commit(new Date(), message, headID, work);
+        String ID = hash(stash.toString());
+        stash.save(COMMITS_DIR, ID);
+        List<String> stashes = readStash();
+        stashes.add(0, ID);
+        writeStash(stashes);
+
+        /** Put the tracked files, and those staged for removal, back as they are in HEAD. */
+        TreeSet<String> restore = new TreeSet<>(tracked.keySet());
+        restore.addAll(headCommit.getBlobs().keySet());
+        for (String fileName : restore) {
+            if (!headCommit.tracks(fileName)) {
+                restrictedDelete(join(CWD, fileName));
+            } else if (!headCommit.fileVersion(fileName).equals(work.get(fileName))) {
+                checkoutFilefromCommit(headCommit, fileName);
+            }
+        }
+        changes.clear();
+        changes.save(INDEX);
+        return ID;
+    }
+
+    /**
+     * stash pop command: apply the newest stash entry to the working
+     * directory and drop it.  Files the stash added are staged; other changes
+     * are left unstaged.  A file changed both in the stash and in HEAD since
+     * the stash was made gets conflict markers, and the entry is kept.
+     *
+     * @Return False if there was a conflict.
+     */
+    public boolean stashPop() {
+        checkIfGitletDir();
+        List<String> stashes = readStash();
+        if (stashes.isEmpty()) {
+            throw error("No stash entries found.");
+        }
+        Commit stash = getCommitBySHA(stashes.get(0));
+        Commit base = getCommitBySHA(stash.getParent());
+        Commit headCommit = getHeadCommit();
+        Index changes = Index.getStagingArea(INDEX);
+        HashMap<String, String> newBlobs = getNewBlobs(headCommit, changes);
+        HashMap<String, String> snapShot = takeSnapShot();
+
+        /** The files the stash changed, which must be clean here. */
+        TreeSet<String> stashed = new TreeSet<>();
+        for (String fileName : base.getBlobs().keySet()) {
+            if (!base.fileVersion(fileName).equals(stash.fileVersion(fileName))) {
+                stashed.add(fileName);
+            }
+        }
+        for (String fileName : stash.getBlobs().keySet()) {
+            if (!base.tracks(fileName)) {
+                stashed.add(fileName);
+            }
+        }
+        for (String fileName : stashed) {
+            String current = snapShot.get(fileName);
+            if (!Objects.equals(current, newBlobs.get(fileName))
+                && !Objects.equals(current, stash.fileVersion(fileName))) {
+                throw error("Your local changes to %s would be overwritten by the stash; "
+                            + "commit them first.", fileName);
+            }
+        }
+
+        boolean clean = true;
+        for (String fileName : stashed) {
+            String mine = headCommit.fileVersion(fileName);
+            if (!Objects.equals(mine, base.fileVersion(fileName))
+                && !Objects.equals(mine, stash.fileVersion(fileName))) {
+                writeConflict(fileName, headCommit, stash);
+                clean = false;
+            } else if (!stash.tracks(fileName)) {
+                if (snapShot.containsKey(fileName)) {
+                    restrictedDelete(join(CWD, fileName));
+                }
+            } else {
+                checkoutFilefromCommit(stash, fileName);
+                if (!headCommit.tracks(fileName)) {
+                    changes.staged.put(fileName, stash.fileVersion(fileName));
+                }
+            }
+        }
+        changes.save(INDEX);
+
+        if (clean) {
+            stashes.remove(0);
+            writeStash(stashes);
+        }
+        return clean;
+    }
+
+    /**
+     * stash drop command: discard the newest stash entry.
+     */
+    public void stashDrop() {
+        checkIfGitletDir();
+        List<String> stashes = readStash();
+        if (stashes.isEmpty()) {
+            throw error("No stash entries found.");
+        }
+        stashes.remove(0);
+        writeStash(stashes);
+    }
+
+    /**
+     * stash list command.
+     *
+     * @Return One line per stash entry, newest first.
+     */
+    public List<String> stashList() {
+        checkIfGitletDir();
+        List<String> stashes = readStash();
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < stashes.size(); i += 1) {
+            lines.add("stash@{" + i + "}: " + getCommitBySHA(stashes.get(i)).getMessage());
+        }
+        return lines;
+    }
+
+    private List<String> readStash() {
+        List<String> stashes = new ArrayList<>();
+        if (STASH.exists()) {
+            for (String ID : readContentsAsString(STASH).split("\n")) {
+                if (!ID.isEmpty()) {
+                    stashes.add(ID);
+                }
+            }
+        }
+        return stashes;
+    }
+
+    private void writeStash(List<String> stashes) {
+        StringBuilder returnSB = new StringBuilder();
+        for (String ID : stashes) {
+            returnSB.append(ID);
+            returnSB.append("\n");
+        }
+        writeContents(STASH, returnSB.toString());
+    }
+
+    /**
+     * worktree add command: create a working directory at PATH, sharing this
+     * repository's branches and objects, with BRANCH checked out.  Only HEAD
+     * and INDEX are its own.
+     */
+    public void worktreeAdd(File path, String branch) {
+        checkIfGitletDir();
+        File root = (path.isAbsolute() ? path : join(CWD, path.getPath())).toPath().normalize().toFile();
+        if (!branchExists(branch)) {
+            throw error("No such branch exists.");
+        }
+        if (readContentsAsString(HEAD).equals(branch)) {
+            throw error("Branch %s is already checked out at %s.", branch, CWD);
+        }
+        checkNotCheckedOutElsewhere(branch);
+        String[] existing = root.list();
+        if (existing != null && existing.length > 0) {
+            throw error("%s already exists and is not empty.", root);
+        }
+
+        File gitletDir = join(root, ".gitlet");
+        gitletDir.mkdirs();
+        writeContents(join(gitletDir, "commondir"), COMMON_DIR.getAbsolutePath());
+        Repository tree = new Repository(root);
+        writeContents(tree.HEAD, branch);
+        for (Map.Entry<String, String> entry : tree.getHeadCommit().getBlobs().entrySet()) {
+            writeContents(join(root, entry.getKey()), getBlobContent(entry.getValue()));
+        }
+
+        List<File> linked = readWorktrees();
+        linked.add(tree.CWD);
+        StringBuilder returnSB = new StringBuilder();
+        for (File linkedRoot : linked) {
+            returnSB.append(linkedRoot.getPath());
+            returnSB.append("\n");
+        }
+        writeContents(WORKTREES, returnSB.toString());
+    }
+
+    /**
+     * worktree list command.
+     *
+     * @Return One line per worktree, the main one first: its root and the
+     *         branch checked out there.
+     */
+    public List<String> worktreeList() {
+        checkIfGitletDir();
+        List<String> lines = new ArrayList<>();
+        for (File root : allWorktrees()) {
+            lines.add(root.getPath() + " " + readContentsAsString(new Repository(root).HEAD));
+        }
+        return lines;
+    }
+
+    /** Return the roots of the linked worktrees that still exist. */
+    private List<File> readWorktrees() {
+        List<File> linked = new ArrayList<>();
+        if (WORKTREES.exists()) {
+            for (String path : readContentsAsString(WORKTREES).split("\n")) {
+                if (!path.isEmpty() && join(path, ".gitlet", "HEAD").isFile()) {
+                    linked.add(new File(path));
+                }
+            }
+        }
+        return linked;
+    }
+
+    /** Return the roots of the main worktree and of every linked one. */
+    private List<File> allWorktrees() {
+        List<File> roots = new ArrayList<>();
+        roots.add(COMMON_DIR.getAbsoluteFile().getParentFile());
+        roots.addAll(readWorktrees());
+        return roots;
+    }
+
+    private void checkNotCheckedOutElsewhere(String branch) {
+        if (!WORKTREES.exists()) {
+            return;
+        }
+        for (File root : allWorktrees()) {
+            if (!root.equals(CWD) && readContentsAsString(new Repository(root).HEAD).equals(branch)) {
+                throw error("Branch %s is checked out at %s.", branch, root);
+            }
+        }
+    }
+
     /**
      * reset command.
      */
-    public static void reset(String commitID) {
+    public void reset(String commitID) {
         checkIfGitletDir();
         File commit = join(join(COMMITS_DIR, commitID.substring(0, 2)), commitID.substring(2));
         if (!commit.exists()) {
-            System.out.println("No commit with that id exists.");
-            System.exit(0);
+            throw error("No commit with that id exists.");
         }
         checkoutCommit(getCommitBySHA(commitID));
         String curBranch = readContentsAsString(HEAD);
@@ -595,23 +1194,20 @@ public class Repository {
     /**
      * merge command.
      */
-    public static void merge(String branchName) {
+    public MergeResult merge(String branchName) {
         /** Precheck. */
         checkIfGitletDir();
         File branch = join(BRANCHES_DIR, branchName);
         if (!branch.exists()) {
-            System.out.println("A branch with that name does not exist.");
-            System.exit(0);
+            throw error("A branch with that name does not exist.");
         }
         String curBranch = readContentsAsString(HEAD);
         if (curBranch.equals(branchName)) {
-            System.out.println("Cannot merge a branch with itself.");
-            System.exit(0);
+            throw error("Cannot merge a branch with itself.");
         }
-        Index changes = Index.getStagingArea();
+        Index changes = Index.getStagingArea(INDEX);
         if (!changes.isEmpty()) {
-            System.out.println("You have uncommitted changes.");
-            System.exit(0);
+            throw error("You have uncommitted changes.");
         }
 
 
@@ -620,14 +1216,12 @@ public class Repository {
         String curCommitID = getHeadCommitID(curBranch);
         String mergedCommitID = getHeadCommitID(branchName);
         if (mergedCommitID.equals(spiltPointID)) {
-            System.out.println("Given branch is an ancestor of the current branch.");
-            return;
+            return new MergeResult(MergeResult.Kind.ANCESTOR, curCommitID);
         }
         if (curCommitID.equals(spiltPointID)) {
             checkoutCommit(getCommitBySHA(mergedCommitID));
             writeContents(join(BRANCHES_DIR, curBranch), mergedCommitID);
-            System.out.println("Current branch fast-forwarded.");
-            return;
+            return new MergeResult(MergeResult.Kind.FAST_FORWARD, mergedCommitID);
         }
 
         /** Common cases. */
@@ -635,7 +1229,15 @@ public class Repository {
         Commit curCommit = getCommitBySHA(curCommitID);
         Commit mergedCommit = getCommitBySHA(mergedCommitID);
 
+        /** Follow files renamed on either branch, so that an edit on one side lands on the new name. */
+        HashMap<String, String> movedHere = new HashMap<>();
+        Commit[] views = followRenames(splitPoint, curCommit, mergedCommit, movedHere);
+        Commit curView = views[1];
+        splitPoint = views[0];
+        mergedCommit = views[2];
+
         checkUntrackedOverwritten(plainFilenamesIn(CWD), curCommit.getBlobs(), mergedCommit);
+        curCommit = curView;
 
         HashSet<String> modifiedOrAddInMerge = modifiedOrAddInMergedBranch(splitPoint, curCommit, mergedCommit);
         for (String fileName : modifiedOrAddInMerge) {
@@ -650,32 +1252,237 @@ public class Repository {
         }
 
         HashSet<String> bothModified = bothModified(splitPoint, curCommit, mergedCommit);
-        if (!bothModified.isEmpty()) {
-            for (String fileName : bothModified) {
-                writeConflict(fileName, curCommit, mergedCommit);
-                changes.staged.put(fileName, sha1(readContents(join(CWD, fileName))));
+        for (String fileName : bothModified) {
+            writeConflict(fileName, curCommit, mergedCommit);
+            changes.staged.put(fileName, saveBlob(readContents(join(CWD, fileName))));
+        }
+
+        for (Map.Entry<String, String> move : movedHere.entrySet()) {
+            restrictedDelete(join(CWD, move.getKey()));
+            String newName = move.getValue();
+            if (!modifiedOrAddInMerge.contains(newName) && !bothModified.contains(newName)) {
+                writeContents(join(CWD, newName), readBlobContent(curCommit, newName));
             }
-            System.out.println("Encountered a merge conflict.");
         }
 
-        changes.save();
+        changes.save(INDEX);
         Commit mergeCommit = new Commit(
                 new Date(),
                 "Merged " + branchName + " into " + curBranch + ".",
                 new String[] {curCommitID, mergedCommitID},
                 getNewBlobs(curCommit, changes)
         );
-        String newID = sha1(mergeCommit.toString());
-        mergeCommit.save(newID);
+        String newID = hash(mergeCommit.toString());
+        mergeCommit.save(COMMITS_DIR, newID);
         writeContents(join(BRANCHES_DIR, curBranch), newID);
         changes.clear();
-        changes.save();
+        changes.save(INDEX);
+        return new MergeResult(bothModified.isEmpty() ? MergeResult.Kind.MERGED
+                                                      : MergeResult.Kind.CONFLICT, newID);
+    }
+
+    /**
+     * Return rename-aware views of the split point, the current commit and the
+     * merged commit, in that order.  A file one branch renamed (and perhaps
+     * edited) while the other still has it under the old name is moved to the
+     * new name in the split point and in the other branch's view, so the usual
+     * three-way rules then apply to it under one name.
+     *
+     * @param movedHere Filled with old name -> new name for the files the
+     *                  merged branch renamed, which the working directory
+     *                  still has under the old name.
+     */
+    private Commit[] followRenames(Commit splitPoint, Commit curCommit, Commit mergedCommit,
+                                   Map<String, String> movedHere) {
+        HashMap<String, String> split = new HashMap<>(splitPoint.getBlobs());
+        HashMap<String, String> cur = new HashMap<>(curCommit.getBlobs());
+        HashMap<String, String> merged = new HashMap<>(mergedCommit.getBlobs());
+
+        Map<String, String> renamedThere = renames(splitPoint, mergedCommit);
+        Map<String, String> renamedHere = renames(splitPoint, curCommit);
+        for (Map.Entry<String, String> rename : renamedThere.entrySet()) {
+            String newName = rename.getKey();
+            String oldName = rename.getValue();
+            if (cur.containsKey(oldName) && !cur.containsKey(newName)) {
+                split.put(newName, split.remove(oldName));
+                cur.put(newName, cur.remove(oldName));
+                movedHere.put(oldName, newName);
+            }
+        }
+        for (Map.Entry<String, String> rename : renamedHere.entrySet()) {
+            String newName = rename.getKey();
+            String oldName = rename.getValue();
+            if (merged.containsKey(oldName) && !merged.containsKey(newName) && split.containsKey(oldName)) {
+                split.put(newName, split.remove(oldName));
+                merged.put(newName, merged.remove(oldName));
+            }
+        }
+
+        return new Commit[] {
+            new Commit(splitPoint.getDate(), splitPoint.getMessage(), splitPoint.getParents(), split),
+            new Commit(curCommit.getDate(), curCommit.getMessage(), curCommit.getParents(), cur),
+            new Commit(mergedCommit.getDate(), mergedCommit.getMessage(), mergedCommit.getParents(), merged),
+        };
+    }
+
+    /**
+     * Return new name -> old name for the files renamed between FROM and TO.
+     */
+    private Map<String, String> renames(Commit from, Commit to) {
+        HashMap<String, String> deleted = new HashMap<>();
+        for (Map.Entry<String, String> entry : from.getBlobs().entrySet()) {
+            if (!to.tracks(entry.getKey())) {
+                deleted.put(entry.getKey(), entry.getValue());
+            }
+        }
+        HashMap<String, String> added = new HashMap<>();
+        for (Map.Entry<String, String> entry : to.getBlobs().entrySet()) {
+            if (!from.tracks(entry.getKey())) {
+                added.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (deleted.isEmpty() || added.isEmpty()) {
+            return new HashMap<>();
+        }
+        return new RenameDetector(this::getBlobContent).detect(deleted, new HashMap<>(), added);
+    }
+
+    /**
+     * rebase command: replay the commits of the current branch since it split
+     * from BRANCHNAME on top of BRANCHNAME's head.
+     *
+     * Each commit's change against its first parent is computed once and
+     * applied to the new base in memory.  A change to a file that the new
+     * base also changed stops the rebase before anything is written.
+     * Otherwise all replayed commits are saved, then the branch is moved, and
+     * the working directory is checked out once at the end.  Commits whose
+     * changes are already in the new base are dropped.
+     *
+     * @Return ANCESTOR if there is nothing to replay, FAST_FORWARD if the
+     *         current branch had no commits of its own, MERGED otherwise,
+     *         with the new head of the current branch.
+     */
+    public MergeResult rebase(String branchName) {
+        checkIfGitletDir();
+        if (!branchExists(branchName)) {
+            throw error("A branch with that name does not exist.");
+        }
+        String curBranch = readContentsAsString(HEAD);
+        if (curBranch.equals(branchName)) {
+            throw error("Cannot rebase a branch onto itself.");
+        }
+        Index changes = Index.getStagingArea(INDEX);
+        if (!changes.isEmpty()) {
+            throw error("You have uncommitted changes.");
+        }
+
+        String splitPointID = getSplitPointID(branchName);
+        String curCommitID = getHeadCommitID(curBranch);
+        String ontoID = getHeadCommitID(branchName);
+        if (ontoID.equals(splitPointID)) {
+            return new MergeResult(MergeResult.Kind.ANCESTOR, curCommitID);
+        }
+        if (curCommitID.equals(splitPointID)) {
+            checkoutCommit(getCommitBySHA(ontoID));
+            writeContents(join(BRANCHES_DIR, curBranch), ontoID);
+            return new MergeResult(MergeResult.Kind.FAST_FORWARD, ontoID);
+        }
+
+        /** The commits to replay, oldest first, each with its change: the
+         *  first-parent chain of the current branch down to the first commit
+         *  the new base already contains. */
+        HashSet<String> shallow = readShallow();
+        HashSet<String> upstream = new HashSet<>();
+        Queue<String> q = new ArrayDeque<>();
+        q.add(ontoID);
+        while (!q.isEmpty()) {
+            String ID = q.poll();
+            if (upstream.add(ID) && !shallow.contains(ID)) {
+                for (String parentID : getCommitBySHA(ID).getParents()) {
+                    if (parentID != null) {
+                        q.add(parentID);
+                    }
+                }
+            }
+        }
+        List<Commit> replayed = new ArrayList<>();
+        List<HashMap<String, String[]>> diffs = new ArrayList<>();  // File -> {old version, new version}.
+        for (String ID = curCommitID; !upstream.contains(ID); ) {
+            if (shallow.contains(ID)) {
+                throw error("No split point within the shallow history; clone with a larger depth.");
+            }
+            Commit child = getCommitBySHA(ID);
+            Commit parent = getCommitBySHA(child.getParent());
+            HashMap<String, String[]> diff = new HashMap<>();
+            for (Map.Entry<String, String> entry : child.getBlobs().entrySet()) {
+                String before = parent.fileVersion(entry.getKey());
+                if (!entry.getValue().equals(before)) {
+                    diff.put(entry.getKey(), new String[] {before, entry.getValue()});
+                }
+            }
+            for (Map.Entry<String, String> entry : parent.getBlobs().entrySet()) {
+                if (!child.tracks(entry.getKey())) {
+                    diff.put(entry.getKey(), new String[] {entry.getValue(), null});
+                }
+            }
+            replayed.add(child);
+            diffs.add(diff);
+            ID = child.getParent();
+        }
+        Collections.reverse(replayed);
+        Collections.reverse(diffs);
+
+        /** Apply the changes in memory. */
+        Commit onto = getCommitBySHA(ontoID);
+        HashMap<String, String> tree = new HashMap<>(onto.getBlobs());
+        String parentID = ontoID;
+        LinkedHashMap<String, Commit> newCommits = new LinkedHashMap<>();
+        for (int i = 0; i < replayed.size(); i += 1) {
+            Commit commit = replayed.get(i);
+            boolean changed = false;
+            for (Map.Entry<String, String[]> entry : diffs.get(i).entrySet()) {
+                String fileName = entry.getKey();
+                String before = entry.getValue()[0];
+                String after = entry.getValue()[1];
+                String mine = tree.get(fileName);
+                if (Objects.equals(mine, after)) {
+                    continue;
+                }
+                if (!Objects.equals(mine, before)) {
+                    throw error("Rebase stopped: %s conflicts in \"%s\"; nothing was changed.",
+                                fileName, commit.getMessage());
+                }
+                if (after == null) {
+                    tree.remove(fileName);
+                } else {
+                    tree.put(fileName, after);
+                }
+                changed = true;
+            }
+            if (!changed) {
+                continue;
+            }
+            Commit newCommit = new Commit(commit.getDate(), commit.getMessage(), parentID, new HashMap<>(tree));
+            parentID = hash(newCommit.toString());
+            newCommits.put(parentID, newCommit);
+        }
+
+        /** Write everything, then move the branch and check it out. */
+        Commit newHead = newCommits.isEmpty() ? onto : newCommits.get(parentID);
+        checkUntrackedOverwritten(plainFilenamesIn(CWD), getCommitBySHA(curCommitID).getBlobs(), newHead);
+        for (Map.Entry<String, Commit> entry : newCommits.entrySet()) {
+            entry.getValue().save(COMMITS_DIR, entry.getKey());
+        }
+        checkoutCommit(newHead);
+        writeContents(join(BRANCHES_DIR, curBranch), parentID);
+        return new MergeResult(MergeResult.Kind.MERGED, parentID);
     }
 
     /**
      * Get the SHA1 ID of the closest common ancestor for curBranch and given branch.
      */
-    public static String getSplitPointID(String mergedBranch) {
+    public String getSplitPointID(String mergedBranch) {
+        HashSet<String> shallow = readShallow();
         HashSet<String> history = new HashSet<>();
         /* Add all the ancestors of curBranch into Set. */
         String curID = getHeadCommitID(readContentsAsString(HEAD));
@@ -686,6 +1493,9 @@ public class Repository {
         while (!q.isEmpty()) {
             for (int i = 0; i < q.size(); ++i) {
                 curID = q.poll();
+                if (shallow.contains(curID)) {
+                    continue;
+                }
                 Commit curCommit = getCommitBySHA(curID);
                 for (String parentID : curCommit.getParents()) {
                     if (parentID != null) {
@@ -705,15 +1515,24 @@ public class Repository {
                 if (history.contains(curID)) {
                     return curID;
                 }
+                if (shallow.contains(curID)) {
+                    continue;
+                }
                 Commit curCommit = getCommitBySHA(curID);
-                for (String parentID : curCommit.getParents())
-                    q.add(parentID);
+                for (String parentID : curCommit.getParents()) {
+                    if (parentID != null) {
+                        q.add(parentID);
+                    }
+                }
             }
         }
+        if (!shallow.isEmpty()) {
+            throw error("No split point within the shallow history; clone with a larger depth.");
+        }
         return curID;
     }
 
-    private static HashSet<String> modifiedOrAddInMergedBranch(Commit splitPoint, Commit curCommit, Commit mergedCommit) {
+    private HashSet<String> modifiedOrAddInMergedBranch(Commit splitPoint, Commit curCommit, Commit mergedCommit) {
         HashSet<String> modifiedOrAddInMerge = new HashSet<String>();
         for (Map.Entry<String, String> entry : mergedCommit.getBlobs().entrySet()) {
             if (splitPoint.tracks(entry.getKey()) &&
@@ -728,7 +1547,7 @@ public class Repository {
         return modifiedOrAddInMerge;
     }
 
-    private static HashSet<String> deletedInMergedBranch(Commit splitPoint, Commit curCommit, Commit mergedCommit) {
+    private HashSet<String> deletedInMergedBranch(Commit splitPoint, Commit curCommit, Commit mergedCommit) {
         HashSet<String> deletedInMerge = new HashSet<String>();
         for (Map.Entry<String, String> entry : curCommit.getBlobs().entrySet()) {
             if (splitPoint.tracks(entry.getKey()) &&
@@ -740,7 +1559,7 @@ public class Repository {
         return deletedInMerge;
     }
 
-    private static HashSet<String> bothModified(Commit splitPoint, Commit curCommit, Commit mergedCommit) {
+    private HashSet<String> bothModified(Commit splitPoint, Commit curCommit, Commit mergedCommit) {
         HashSet<String> bothModified = new HashSet<String>();
         for (Map.Entry<String, String> entry : curCommit.getBlobs().entrySet()) {
             /** Both add but with diff content. */
@@ -773,7 +1592,7 @@ public class Repository {
         return bothModified;
     }
 
-    private static void writeConflict(String fileName, Commit curCommit, Commit mergedCommit) {
+    private void writeConflict(String fileName, Commit curCommit, Commit mergedCommit) {
             StringBuilder returnSB = new StringBuilder();
             File conflictFile = join(CWD, fileName);
             returnSB.append("<<<<<<< HEAD\n");
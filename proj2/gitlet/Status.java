@@ -0,0 +1,65 @@
+package gitlet;
+
+import java.util.List;
+
+/** The result of the status command: every section of the report, each
+ *  already in the order it is printed.
+ *
+ *  @author Shuyuan Wang
+ */
+public class Status {
+    /** The branch HEAD points to. */
+    public final String currentBranch;
+    /** All other branches. */
+    public final List<String> otherBranches;
+    /** Files staged for addition. */
+    public final List<String> staged;
+    /** Files staged for removal. */
+    public final List<String> removed;
+    /** Entries such as "f.txt (modified)" or "f.txt (deleted)". */
+    public final List<String> modifications;
+    /** Files in the working directory that are neither staged nor tracked. */
+    public final List<String> untracked;
+    /** Entries such as "old.txt -> new.txt" or "a.txt -> b.txt (copied)". */
+    public final List<String> renames;
+
+    Status(String currentBranch, List<String> otherBranches,
+           List<String> staged, List<String> removed,
+           List<String> modifications, List<String> untracked,
+           List<String> renames) {
+        this.currentBranch = currentBranch;
+        this.otherBranches = otherBranches;
+        this.staged = staged;
+        this.removed = removed;
+        this.modifications = modifications;
+        this.untracked = untracked;
+        this.renames = renames;
+    }
+
+    /** The report exactly as the status command prints it. */
+    @Override
+    public String toString() {
+        StringBuilder returnSB = new StringBuilder();
+        returnSB.append("=== Branches ===\n");
+        returnSB.append("*");
+        returnSB.append(currentBranch);
+        returnSB.append("\n");
+        appendSection(returnSB, otherBranches);
+        appendSection(returnSB.append("=== Staged Files ===\n"), staged);
+        appendSection(returnSB.append("=== Removed Files ===\n"), removed);
+        appendSection(returnSB.append("=== Modifications Not Staged For Commit ===\n"), modifications);
+        appendSection(returnSB.append("=== Untracked Files ===\n"), untracked);
+        if (!renames.isEmpty()) {
+            appendSection(returnSB.append("=== Renamed Files ===\n"), renames);
+        }
+        return returnSB.toString();
+    }
+
+    private static void appendSection(StringBuilder returnSB, List<String> lines) {
+        for (String line : lines) {
+            returnSB.append(line);
+            returnSB.append("\n");
+        }
+        returnSB.append("\n");
+    }
+}
@@ -0,0 +1,137 @@
+package gitlet.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/** Runs the gitlet benchmarks with the GC profiler attached, so every
+ *  result carries its allocation rate (gc.alloc.rate.norm, in bytes per
+ *  operation), and optionally saves or checks regression baselines.
+ *
+ *  Usage: java -jar target/benchmarks.jar [OPTIONS] [REGEX]
+ *    --save FILE      Write every score to the baseline FILE.
+ *    --check FILE     Compare every score against the baseline FILE and
+ *                     exit with status 1 if any got worse than allowed.
+ *    --tolerance PCT  Allowed slowdown/extra allocation in percent
+ *                     (default 10).
+ *  REGEX selects benchmarks as for JMH (default: everything in gitlet.bench).
+ *  Raw results are also written as JSON to jmh-result.json.
+ */
+public class BenchmarkRunner {
+
+    /** The secondary result holding normalized allocation. */
+    private static final String ALLOC = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String save = null;
+        String check = null;
+        double tolerance = 10;
+        String include = "gitlet\\.bench\\..*";
+        for (int i = 0; i < args.length; i += 1) {
+            switch (args[i]) {
+                case "--save":
+                    save = args[++i];
+                    break;
+                case "--check":
+                    check = args[++i];
+                    break;
+                case "--tolerance":
+                    tolerance = Double.parseDouble(args[++i]);
+                    break;
+                default:
+                    include = args[i];
+            }
+        }
+
+        ChainedOptionsBuilder opts = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result.json");
+        Collection<RunResult> results = new Runner(opts.build()).run();
+        Map<String, Double> scores = scores(results);
+
+        if (save != null) {
+            Properties baseline = new Properties();
+            for (Map.Entry<String, Double> e : scores.entrySet()) {
+                baseline.setProperty(e.getKey(), Double.toString(e.getValue()));
+            }
+            try (Writer out = new FileWriter(save)) {
+                baseline.store(out, "gitlet benchmark baseline");
+            }
+        }
+        if (check != null && !compare(scores, new File(check), tolerance)) {
+            System.exit(1);
+        }
+    }
+
+    /** Return the primary score and allocation of every result in RESULTS,
+     *  keyed by benchmark name plus parameters. */
+    private static Map<String, Double> scores(Collection<RunResult> results) {
+        Map<String, Double> scores = new TreeMap<>();
+        for (RunResult run : results) {
+            String key = run.getParams().getBenchmark()
+                         + paramString(run);
+            Result<?> primary = run.getPrimaryResult();
+            scores.put(key, primary.getScore());
+            Result<?> alloc = run.getSecondaryResults().get(ALLOC);
+            if (alloc != null) {
+                scores.put(key + ":" + ALLOC, alloc.getScore());
+            }
+        }
+        return scores;
+    }
+
+    /** Return the parameters of RUN as "[name=value,...]", or "" if none. */
+    private static String paramString(RunResult run) {
+        StringBuilder sb = new StringBuilder();
+        for (String name : run.getParams().getParamsKeys()) {
+            sb.append(sb.length() == 0 ? "[" : ",");
+            sb.append(name).append('=').append(run.getParams().getParam(name));
+        }
+        return sb.length() == 0 ? "" : sb.append(']').toString();
+    }
+
+    /** Print how SCORES compare with the baseline in FILE.  Returns false
+     *  if any score is more than TOLERANCE percent worse.  All gitlet
+     *  benchmarks measure time or bytes per operation, so lower is better. */
+    private static boolean compare(Map<String, Double> scores, File file,
+                                   double tolerance) throws IOException {
+        Properties baseline = new Properties();
+        try (Reader in = new FileReader(file)) {
+            baseline.load(in);
+        }
+        boolean ok = true;
+        for (Map.Entry<String, Double> e : scores.entrySet()) {
+            String old = baseline.getProperty(e.getKey());
+            if (old == null) {
+                System.out.printf("NEW   %s: %.3f%n", e.getKey(), e.getValue());
+                continue;
+            }
+            double before = Double.parseDouble(old);
+            double change = before == 0 ? 0 : (e.getValue() - before) / before * 100;
+            boolean worse = change > tolerance;
+            ok &= !worse;
+            System.out.printf("%s %s: %.3f -> %.3f (%+.1f%%)%n",
+                              worse ? "WORSE" : "ok   ", e.getKey(),
+                              before, e.getValue(), change);
+        }
+        return ok;
+    }
+}
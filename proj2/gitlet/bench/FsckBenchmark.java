@@ -0,0 +1,61 @@
+package gitlet.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** fsck over a synthetic repository with a varying number of worker
+ *  threads, to see how object checking scales with cores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FsckBenchmark {
+
+    /** Number of plain files in the working directory. */
+    @Param({"1000"})
+    public int files;
+
+    /** Number of commits after the initial import. */
+    @Param({"1000"})
+    public int commits;
+
+    /** Worker threads. */
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    /** The repository under test. */
+    private SyntheticRepo repo;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        repo = new SyntheticRepo(files, commits, 4);
+        repo.generate();
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() {
+        repo.delete();
+    }
+
+    @Benchmark
+    public List<String> fsck() {
+        return repo.repository.fsck(threads);
+    }
+}
@@ -0,0 +1,54 @@
+package gitlet.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gitlet.ObjectHash;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Time to name one object, per hash algorithm and object size.
+ *  Divide size by the score for gigabytes per second.  LegacySha1Benchmark
+ *  times the old SHA-1 code path on the same objects.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class HashBenchmark {
+
+    /** The object hash under test. */
+    @Param({"SHA1", "SHA256"})
+    public ObjectHash algorithm;
+
+    /** Object size in bytes: a small file, a typical source file, a large file. */
+    @Param({"64", "4096", "1048576"})
+    public int size;
+
+    private byte[] content;
+
+    @Setup
+    public void generate() {
+        content = new byte[size];
+        new Random(size).nextBytes(content);
+    }
+
+    @Benchmark
+    public String hash() {
+        return algorithm.hash(content);
+    }
+}
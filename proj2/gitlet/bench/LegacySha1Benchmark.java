@@ -0,0 +1,58 @@
+package gitlet.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Formatter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** The old Utils.sha1, which looked up a MessageDigest and hex-encoded
+ *  through a Formatter on every call, on the objects HashBenchmark hashes.
+ *  The difference to HashBenchmark.hash with algorithm=SHA1 is what
+ *  caching the digest and the hex table save.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class LegacySha1Benchmark {
+
+    /** Object size in bytes, as in HashBenchmark. */
+    @Param({"64", "4096", "1048576"})
+    public int size;
+
+    private byte[] content;
+
+    @Setup
+    public void generate() {
+        content = new byte[size];
+        new Random(size).nextBytes(content);
+    }
+
+    @Benchmark
+    public String legacySha1() throws NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("SHA-1");
+        md.update(content);
+        Formatter result = new Formatter();
+        for (byte b : md.digest()) {
+            result.format("%02x", b);
+        }
+        return result.toString();
+    }
+}
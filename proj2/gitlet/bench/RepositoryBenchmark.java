@@ -0,0 +1,139 @@
+package gitlet.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gitlet.LogEntry;
+import gitlet.MergeResult;
+import gitlet.Status;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** In-process benchmarks of the gitlet commands against a synthetic
+ *  repository (see SyntheticRepo), regenerated for every trial.  Commands
+ *  that report something return it, so nothing is printed while timing.
+ *
+ *  Run with gitlet.bench.BenchmarkRunner to get allocation rates and
+ *  baseline comparison, or with org.openjdk.jmh.Main for plain JMH.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+
+    /** Number of plain files in the working directory. */
+    @Param({"100", "1000"})
+    public int files;
+
+    /** Number of commits after the initial import. */
+    @Param({"200"})
+    public int commits;
+
+    /** Number of branches; merge needs at least two. */
+    @Param({"4"})
+    public int branches;
+
+    /** The repository under test. */
+    private SyntheticRepo repo;
+    /** The head of master right after generation. */
+    private String masterHead;
+    /** The branch checkout() will switch to next. */
+    private String nextBranch;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        repo = new SyntheticRepo(files, commits, branches);
+        repo.generate();
+        masterHead = repo.head("master");
+        nextBranch = SyntheticRepo.branchName(1 % branches);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() {
+        repo.delete();
+    }
+
+    @Benchmark
+    public void add(DirtyState dirty) {
+        repo.repository.addFile(SyntheticRepo.fileName(0));
+    }
+
+    @Benchmark
+    public String commit(StagedState staged) {
+        return repo.repository.commit("bench commit");
+    }
+
+    @Benchmark
+    public Status status() {
+        return repo.repository.status();
+    }
+
+    @Benchmark
+    public List<LogEntry> log() {
+        return repo.repository.log();
+    }
+
+    @Benchmark
+    public List<String> find() {
+        return repo.repository.find("commit 1");
+    }
+
+    @Benchmark
+    public void checkout() {
+        repo.repository.checkoutBranch(nextBranch);
+        nextBranch = nextBranch.equals("master")
+                     ? SyntheticRepo.branchName(1 % branches) : "master";
+    }
+
+    @Benchmark
+    public MergeResult merge(MergeState unmerged) {
+        return repo.repository.merge(SyntheticRepo.branchName(1 % branches));
+    }
+
+    /** Dirties the first file before each add(), so it always has
+     *  something to stage. */
+    @State(Scope.Thread)
+    public static class DirtyState {
+        /** Bumped on every invocation to keep the contents unique. */
+        private int edits;
+
+        @Setup(Level.Invocation)
+        public void touch(RepositoryBenchmark bench) {
+            edits += 1;
+            bench.repo.write(SyntheticRepo.fileName(0), "edit " + edits + "\n");
+        }
+    }
+
+    /** Dirties and stages the first file before each commit(). */
+    @State(Scope.Thread)
+    public static class StagedState extends DirtyState {
+        @Setup(Level.Invocation)
+        public void stage(RepositoryBenchmark bench) {
+            bench.repo.repository.addFile(SyntheticRepo.fileName(0));
+        }
+    }
+
+    /** Puts master back at its generated head before each merge(). */
+    @State(Scope.Thread)
+    public static class MergeState {
+        @Setup(Level.Invocation)
+        public void reset(RepositoryBenchmark bench) {
+            bench.repo.repository.reset(bench.masterHead);
+        }
+    }
+}
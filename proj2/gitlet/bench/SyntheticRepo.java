@@ -0,0 +1,144 @@
+package gitlet.bench;
+
+import gitlet.Repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/** Builds a synthetic gitlet repository for the benchmarks.
+ *
+ *  The generated history is shaped by three knobs: FILES plain files in
+ *  the working directory, COMMITS commits after the initial import, and
+ *  BRANCHES branches that the commits are dealt out to round-robin
+ *  (master is branch 0, the others are named b1, b2, ...).  Branch j only
+ *  ever touches files whose index is congruent to j modulo BRANCHES, so
+ *  any two branches merge without conflicts.
+ *
+ *  Each SyntheticRepo lives in its own temporary directory, which every
+ *  call to generate() wipes before building a fresh history.
+ */
+public class SyntheticRepo {
+
+    /** The working directory of the repository. */
+    public final File root;
+    /** The repository under test. */
+    public final Repository repository;
+
+    /** Number of plain files in the working directory. */
+    public final int files;
+    /** Number of commits made after the initial import. */
+    public final int commits;
+    /** Number of branches, including master. */
+    public final int branches;
+
+    public SyntheticRepo(int files, int commits, int branches) {
+        if (files < 1 || commits < 0 || branches < 1) {
+            throw new IllegalArgumentException("bad repository shape");
+        }
+        this.files = files;
+        this.commits = commits;
+        this.branches = branches;
+        try {
+            this.root = Files.createTempDirectory("gitlet-bench").toFile();
+        } catch (IOException excp) {
+            throw new IllegalStateException(excp);
+        }
+        this.repository = new Repository(root);
+    }
+
+    /** Return the name of branch J. */
+    public static String branchName(int j) {
+        return j == 0 ? "master" : "b" + j;
+    }
+
+    /** Return the name of working file I. */
+    public static String fileName(int i) {
+        return String.format("f%05d.txt", i);
+    }
+
+    /** Build the repository from scratch and leave master checked out. */
+    public void generate() {
+        wipe(root);
+
+        repository.initRepo();
+        for (int i = 0; i < files; i += 1) {
+            write(fileName(i), "file " + i + "\n");
+            repository.addFile(fileName(i));
+        }
+        repository.commit("import " + files + " files");
+
+        for (int j = 1; j < branches; j += 1) {
+            repository.newBranch(branchName(j));
+        }
+        String current = "master";
+        for (int c = 0; c < commits; c += 1) {
+            int j = c % branches;
+            if (!current.equals(branchName(j))) {
+                repository.checkoutBranch(branchName(j));
+                current = branchName(j);
+            }
+            int i = pick(c / branches, j);
+            if (i < 0) {
+                continue;
+            }
+            write(fileName(i), "file " + i + " edited by commit " + c + "\n");
+            repository.addFile(fileName(i));
+            repository.commit("commit " + c + " on " + branchName(j));
+        }
+        if (!current.equals("master")) {
+            repository.checkoutBranch("master");
+        }
+    }
+
+    /** Return the index of the K-th file owned by branch J, cycling over
+     *  the owned files, or -1 if branch J owns none. */
+    private int pick(int k, int j) {
+        int owned = (files - j + branches - 1) / branches;
+        if (owned <= 0) {
+            return -1;
+        }
+        return j + (k % owned) * branches;
+    }
+
+    /** Overwrite working file NAME with CONTENTS. */
+    public void write(String name, String contents) {
+        try {
+            Files.write(new File(root, name).toPath(),
+                        contents.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException excp) {
+            throw new IllegalStateException(excp);
+        }
+    }
+
+    /** Return the commit ID at the head of BRANCH. */
+    public String head(String branch) {
+        File ref = new File(new File(new File(root, ".gitlet"), "branches"), branch);
+        try {
+            return new String(Files.readAllBytes(ref.toPath()), StandardCharsets.UTF_8);
+        } catch (IOException excp) {
+            throw new IllegalStateException(excp);
+        }
+    }
+
+    /** Delete the repository and its working directory. */
+    public void delete() {
+        wipe(root);
+        root.delete();
+    }
+
+    /** Delete everything under DIR, leaving DIR itself in place. */
+    private static void wipe(File dir) {
+        try (Stream<Path> walk = Files.walk(dir.toPath())) {
+            walk.sorted(Comparator.reverseOrder())
+                .filter(p -> !p.equals(dir.toPath()))
+                .forEach(p -> p.toFile().delete());
+        } catch (IOException excp) {
+            throw new IllegalStateException(excp);
+        }
+    }
+}